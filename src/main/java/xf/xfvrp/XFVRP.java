@@ -3,12 +3,17 @@ package xf.xfvrp;
 import xf.xfvrp.base.*;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.base.exception.XFVRPExceptionType;
+import xf.xfvrp.base.metric.CoordinateMetric;
+import xf.xfvrp.base.metric.Metric;
+import xf.xfvrp.base.metric.internal.MetricCache;
+import xf.xfvrp.base.metric.internal.MetricTransformationPipeline;
 import xf.xfvrp.base.monitor.StatusCode;
 import xf.xfvrp.base.xfvrp.XFVRPData;
 import xf.xfvrp.opt.Solution;
 import xf.xfvrp.opt.XFVRPOptBase;
 import xf.xfvrp.opt.XFVRPOptSplitter;
 import xf.xfvrp.opt.XFVRPOptType;
+import xf.xfvrp.opt.evaluation.EvaluationService;
 import xf.xfvrp.opt.init.ModelBuilder;
 import xf.xfvrp.opt.init.precheck.PreCheckService;
 import xf.xfvrp.opt.init.solution.InitialSolutionBuilder;
@@ -45,6 +50,9 @@ public class XFVRP extends XFVRPData {
 	/* List of optimization procedures */
 	private final List<XFVRPOptBase> optList = new ArrayList<>();
 
+	/* Metric of the current planning run, which caches the transformed user metric */
+	private Metric runMetric;
+
 	/* Last model for the last created solution */
 	private XFVRPModel lastModel;
 
@@ -59,6 +67,7 @@ public class XFVRP extends XFVRPData {
 	public void executeRoutePlanning() throws XFVRPException {
 		statusManager.fireMessage(StatusCode.RUNNING, "XFVRP started");
 		statusManager.setStartTime();
+		statusManager.getPenaltyStatistics().clear();
 
 		// Flush import buffer
 		importer.finishImport();
@@ -78,20 +87,31 @@ public class XFVRP extends XFVRPData {
 			throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "No vehicle information are present.");
 		}
 
-		List<Solution> solutions = getParameters()
-				.getMixedFleetHeuristic()
-				.execute(
-						nodes,
-						importer.getCompartmentTypes(),
-						vehicles,
-						this::executeRoutePlanning,
-						metric,
-						parameters,
-						statusManager
-				);
+		// Transformed metric is shared by all plannings of this run (not needed, if distances are calculated on demand)
+		runMetric = (parameters.isLazyCoordinateMetric() && metric instanceof CoordinateMetric) ?
+				metric :
+				new MetricCache(metric, nodes, MetricTransformationPipeline.isSymmetric(metric, parameters));
+
+		List<Solution> solutions;
+		try {
+			solutions = getParameters()
+					.getMixedFleetHeuristic()
+					.execute(
+							nodes,
+							importer.getCompartmentTypes(),
+							vehicles,
+							this::executeRoutePlanning,
+							runMetric,
+							parameters,
+							statusManager
+					);
+		} finally {
+			runMetric = null;
+		}
 
 		vehicleSolutionList.addAll(solutions);
 
+		statusManager.fireMessage(StatusCode.RUNNING, "Penalties of evaluations : " + statusManager.getPenaltyStatistics());
 		statusManager.fireMessage(StatusCode.FINISHED, "XFVRP finished successfully.");
 	}
 
@@ -101,9 +121,22 @@ public class XFVRP extends XFVRPData {
 	 */
 	private Solution executeRoutePlanning(RoutingDataBag dataBag) throws XFVRPException {
 		Node[] nodes = new PreCheckService().precheck(dataBag.nodes, dataBag.vehicle, parameters);
-		XFVRPModel model = new ModelBuilder().build(nodes, dataBag.compartmentTypes, dataBag.vehicle, metric, parameters, statusManager);
-		Solution solution = new InitialSolutionBuilder().build(model, parameters, statusManager);
+		XFVRPModel model = new ModelBuilder().build(nodes, dataBag.compartmentTypes, dataBag.vehicle, runMetric, parameters, statusManager);
+		try {
+			Solution solution = optimize(new InitialSolutionBuilder().build(model, parameters, statusManager), model);
+
+			lastModel = model;
+			return solution;
+		} finally {
+			// Optimization of the model is finished
+			EvaluationService.releaseWorkspaces(model);
+		}
+	}
 
+	/**
+	 * Optimizes the initial solution with all announced optimization procedures.
+	 */
+	private Solution optimize(Solution solution, XFVRPModel model) throws XFVRPException {
 		// VRP optimizations, if initiated solution has appropriate length
 		if (solution.isValid()) {
 			/*
@@ -131,7 +164,6 @@ public class XFVRP extends XFVRPData {
 			NormalizeSolutionService.normalizeRoute(solution);
 		}
 
-		lastModel = model;
 		return solution;
 	}
 
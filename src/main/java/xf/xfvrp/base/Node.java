@@ -242,6 +242,10 @@ public class Node implements Cloneable {
 		return timeWindowArr[timeWindowArr.length - 1];
 	}
 
+	public int getNbrOfTimeWindows() {
+		return timeWindowArr.length;
+	}
+
 	public int getDepotId() {
 		return depotId ;
 	}
@@ -24,14 +24,13 @@ public class Quality {
 
 	private static final float DECIMAL_CORRECTOR = 1000;
 
-	private static int[] reasons = new int[10];
-	
 	public static final int PENALTY_REASON_CAPACITY = 0;
 	public static final int PENALTY_REASON_PRESETTING = 1;
 	public static final int PENALTY_REASON_DURATION = 2;
 	public static final int PENALTY_REASON_BLACKLIST = 3;
 	public static final int PENALTY_REASON_DELAY = 5;
 	public static final int PENALTY_REASON_STOPCOUNT = 6;
+	public static final int NBR_OF_PENALTY_REASONS = 7;
 
 	public Quality() {
 	}
@@ -72,12 +71,11 @@ public class Quality {
 	
 	/**
 	 * Adds a given value to the penalty value of this
-	 * quality instance.
+	 * quality instance. The reason is counted by the
+	 * caller in the penalty statistics of the model.
 	 */
 	public void addPenalty(float penalty, int reason) {
 		this.penalty += (int)(penalty * DECIMAL_CORRECTOR);
-		if(penalty != 0)
-			reasons[reason]++;
 	}
 	
 	public void addCost(float cost) {
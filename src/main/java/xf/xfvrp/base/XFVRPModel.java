@@ -2,7 +2,9 @@ package xf.xfvrp.base;
 
 import xf.xfvrp.base.compartment.CompartmentType;
 import xf.xfvrp.base.metric.InternalMetric;
+import xf.xfvrp.base.metric.internal.NeighborhoodIndex;
 import xf.xfvrp.base.preset.BlockNameConverter;
+import xf.xfvrp.base.quality.PenaltyStatistics;
 
 import java.util.Arrays;
 
@@ -31,6 +33,7 @@ public class XFVRPModel {
 	protected final Node[] nodes;
 	protected final InternalMetric metric;
 	protected final InternalMetric optMetric;
+	protected final NeighborhoodIndex neighborhoodIndex;
 	protected final CompartmentType[] compartments;
 
 	protected final Vehicle vehicle;
@@ -41,6 +44,9 @@ public class XFVRPModel {
 	protected final int[] blockCountArr;
 
 	protected final int maxGlobalNodeIdx;
+
+	/* Counted penalties of all evaluations of this model */
+	protected final PenaltyStatistics penaltyStatistics;
 	
 	protected XFVRPModel() {
 		nbrOfDepots = 0;
@@ -49,11 +55,13 @@ public class XFVRPModel {
 		nodes = null;
 		metric = null;
 		optMetric = null;
+		neighborhoodIndex = null;
 		vehicle = null;
 		parameter = null;
 		blockCountArr = null;
 		compartments = null;
 		maxGlobalNodeIdx = -1;
+		penaltyStatistics = new PenaltyStatistics();
 	}
 
 	/**
@@ -61,9 +69,26 @@ public class XFVRPModel {
 	 * parameter for all optimization procedures. It holds no solution information.
 	 */
 	public XFVRPModel(Node[] nodes, CompartmentType[] compartmentTypes, InternalMetric metric, InternalMetric optMetric, Vehicle vehicle, XFVRPParameter parameter) {
+		this(nodes, compartmentTypes, metric, optMetric, null, vehicle, parameter);
+	}
+
+	/**
+	 * Initialize an optimization model object with candidate lists for granular neighborhood searches.
+	 */
+	public XFVRPModel(Node[] nodes, CompartmentType[] compartmentTypes, InternalMetric metric, InternalMetric optMetric, NeighborhoodIndex neighborhoodIndex, Vehicle vehicle, XFVRPParameter parameter) {
+		this(nodes, compartmentTypes, metric, optMetric, neighborhoodIndex, vehicle, parameter, new PenaltyStatistics());
+	}
+
+	/**
+	 * Initialize an optimization model object, where the penalties of all evaluations are counted
+	 * in the given statistics. The statistics can be shared by several models of a planning run.
+	 */
+	public XFVRPModel(Node[] nodes, CompartmentType[] compartmentTypes, InternalMetric metric, InternalMetric optMetric, NeighborhoodIndex neighborhoodIndex, Vehicle vehicle, XFVRPParameter parameter, PenaltyStatistics penaltyStatistics) {
 		this.nodes = nodes;
+		this.penaltyStatistics = penaltyStatistics;
 		this.metric = metric;
 		this.optMetric = optMetric;
+		this.neighborhoodIndex = neighborhoodIndex;
 		this.vehicle = vehicle;
 		this.parameter = parameter;
 
@@ -148,6 +173,18 @@ public class XFVRPModel {
 		return metric.getDistanceAndTime(n1, n2);
 	}
 
+	/**
+	 * Writes the distance and time between two given XFNodes
+	 * into the given record without allocating a new one.
+	 *
+	 * @param n1 source node
+	 * @param n2 destination node
+	 * @param out tupel of distance (0) and travel time (1), which is filled
+	 */
+	public void getDistanceAndTime(Node n1, Node n2, float[] out) {
+		metric.getDistanceAndTime(n1, n2, out);
+	}
+
 	public int getNbrOfDepots() {
 		return nbrOfDepots;
 	}
@@ -172,6 +209,20 @@ public class XFVRPModel {
 		return parameter;
 	}
 
+	/**
+	 * @return metric of the distances for the purposes of optimization
+	 */
+	public InternalMetric getOptMetric() {
+		return optMetric;
+	}
+
+	/**
+	 * @return candidate lists for granular neighborhood searches or null, if granular search is not active
+	 */
+	public NeighborhoodIndex getNeighborhoodIndex() {
+		return neighborhoodIndex;
+	}
+
 	public Node[] getNodes() {
 		return nodes;
 	}
@@ -195,4 +246,8 @@ public class XFVRPModel {
 	public int getNbrOfShipments() {
 		return nbrOfShipments;
 	}
+
+	public PenaltyStatistics getPenaltyStatistics() {
+		return penaltyStatistics;
+	}
 }
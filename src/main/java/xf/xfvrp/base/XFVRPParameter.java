@@ -1,7 +1,9 @@
 package xf.xfvrp.base;
 
+import xf.xfvrp.base.metric.OptimizationMetricPrecision;
 import xf.xfvrp.opt.fleetmix.DefaultMixedFleetHeuristic;
 import xf.xfvrp.opt.fleetmix.IMixedFleetHeuristic;
+import xf.xfvrp.opt.improve.routebased.AcceptanceStrategy;
 
 import java.io.Serializable;
 
@@ -60,6 +62,60 @@ public class XFVRPParameter implements Serializable {
 	 */
 	private boolean isWithPDP = false;
 	
+	/*
+	 * Parameters for big instances with coordinate based metrics (EucledianMetric, AirMetric)
+	 *
+	 * Distances are not stored in a matrix, but calculated on demand from the coordinates.
+	 * Optionally a bounded cache of calculated distances and a list of nearest neighbors
+	 * per node are kept. Memory then scales with O(n * k) instead of O(n^2).
+	 */
+	private boolean lazyCoordinateMetric = false;
+	private int lazyCoordinateMetricCacheSize = 0;
+	private int nbrOfNearestNeighbors = 0;
+
+	/*
+	 * If the distance and time from A to B is always equal to B to A, only
+	 * the lower triangle of the metric matrices is stored. Coordinate based
+	 * metrics are detected as symmetric automatically.
+	 */
+	private boolean symmetricMetric = false;
+
+	/*
+	 * Granular neighborhood: improvement operators only generate moves, which
+	 * place a node next to one of its nbrOfNearestNeighbors nearest customers
+	 * (or at start or end of a route).
+	 */
+	private boolean granularNeighborhood = false;
+
+	/*
+	 * Storage precision of the optimization metric. With fixed-point precisions
+	 * distances are stored as round(distance * scale). A scale of 0 means, that
+	 * the largest scale is chosen, where all distances fit into the value range.
+	 */
+	private OptimizationMetricPrecision optimizationMetricPrecision = OptimizationMetricPrecision.FLOAT;
+	private float optimizationMetricScale = 0;
+
+	/*
+	 * Improvement operators try only the best improving steps up to this number
+	 * after each search (0 = all steps). The remaining steps are only searched again,
+	 * if all kept steps are rejected.
+	 */
+	private int maxNbrOfImprovingSteps = 0;
+
+	/*
+	 * Route based improvement operators search the source routes in parallel. The
+	 * improving steps are merged in route order, so the result is the same as with
+	 * the sequential search.
+	 */
+	private boolean parallelNeighborhoodSearch = false;
+
+	/*
+	 * Acceptance of improving steps in route based improvement operators. With
+	 * BEST_OF_FIRST_N the search stops after nbrOfFirstImprovingSteps improving steps.
+	 */
+	private AcceptanceStrategy acceptanceStrategy = AcceptanceStrategy.BEST_IMPROVEMENT;
+	private int nbrOfFirstImprovingSteps = 10;
+
 	IMixedFleetHeuristic mixedFleetHeuristic = new DefaultMixedFleetHeuristic();
 	
 	/**
@@ -75,6 +131,17 @@ public class XFVRPParameter implements Serializable {
 		predefinedSolutionString = null;
 		nbrOfILSLoops = 50;
 		maxRunningTimeInSec = Long.MAX_VALUE;
+		lazyCoordinateMetric = false;
+		lazyCoordinateMetricCacheSize = 0;
+		nbrOfNearestNeighbors = 0;
+		symmetricMetric = false;
+		granularNeighborhood = false;
+		optimizationMetricPrecision = OptimizationMetricPrecision.FLOAT;
+		optimizationMetricScale = 0;
+		maxNbrOfImprovingSteps = 0;
+		parallelNeighborhoodSearch = false;
+		acceptanceStrategy = AcceptanceStrategy.BEST_IMPROVEMENT;
+		nbrOfFirstImprovingSteps = 10;
 	}
 
 	/**
@@ -222,4 +289,137 @@ public class XFVRPParameter implements Serializable {
 	public void setMixedFleetHeuristic(IMixedFleetHeuristic mixedFleetHeuristic) {
 		this.mixedFleetHeuristic = mixedFleetHeuristic;
 	}
+
+	/**
+	 * @return true, if distances of coordinate based metrics are calculated on demand
+	 */
+	public boolean isLazyCoordinateMetric() {
+		return lazyCoordinateMetric;
+	}
+
+	/**
+	 * If set, the distances of coordinate based metrics (EucledianMetric, AirMetric)
+	 * are calculated on demand instead of storing them in a n x n matrix. Other
+	 * metrics are not affected.
+	 */
+	public void setLazyCoordinateMetric(boolean lazyCoordinateMetric) {
+		this.lazyCoordinateMetric = lazyCoordinateMetric;
+	}
+
+	public int getLazyCoordinateMetricCacheSize() {
+		return lazyCoordinateMetricCacheSize;
+	}
+
+	/**
+	 * @param cacheSize Max number of cached distances of a lazy coordinate metric (0 = no cache)
+	 */
+	public void setLazyCoordinateMetricCacheSize(int cacheSize) {
+		this.lazyCoordinateMetricCacheSize = cacheSize;
+	}
+
+	public int getNbrOfNearestNeighbors() {
+		return nbrOfNearestNeighbors;
+	}
+
+	/**
+	 * @param nbrOfNearestNeighbors Number of nearest neighbors, which are kept per node (0 = no list)
+	 */
+	public void setNbrOfNearestNeighbors(int nbrOfNearestNeighbors) {
+		this.nbrOfNearestNeighbors = nbrOfNearestNeighbors;
+	}
+
+	/**
+	 * @return true, if the user metric is declared as symmetric
+	 */
+	public boolean isSymmetricMetric() {
+		return symmetricMetric;
+	}
+
+	/**
+	 * Declares the user metric as symmetric (distance and time of A to B is equal to B to A).
+	 * Then only half of the metric matrices is stored.
+	 */
+	public void setSymmetricMetric(boolean symmetricMetric) {
+		this.symmetricMetric = symmetricMetric;
+	}
+
+	public boolean isGranularNeighborhood() {
+		return granularNeighborhood;
+	}
+
+	/**
+	 * If set, improvement operators only search moves, which place a node next to one of
+	 * its nearest customers. The number of candidates per node is given by
+	 * nbrOfNearestNeighbors (0 = default of 20).
+	 */
+	public void setGranularNeighborhood(boolean granularNeighborhood) {
+		this.granularNeighborhood = granularNeighborhood;
+	}
+
+	public OptimizationMetricPrecision getOptimizationMetricPrecision() {
+		return optimizationMetricPrecision;
+	}
+
+	/**
+	 * Optimization procedures read distances from a fixed-point matrix with the given precision.
+	 * If the distances do not fit into the value range, the exact distances are used.
+	 */
+	public void setOptimizationMetricPrecision(OptimizationMetricPrecision optimizationMetricPrecision) {
+		this.optimizationMetricPrecision = optimizationMetricPrecision;
+	}
+
+	public float getOptimizationMetricScale() {
+		return optimizationMetricScale;
+	}
+
+	/**
+	 * @param scale Fixed-point factor of quantized optimization metrics (0 = largest scale, where all distances fit)
+	 */
+	public void setOptimizationMetricScale(float scale) {
+		this.optimizationMetricScale = scale;
+	}
+
+	public int getMaxNbrOfImprovingSteps() {
+		return maxNbrOfImprovingSteps;
+	}
+
+	/**
+	 * @param maxNbrOfImprovingSteps Number of best improving steps, which are kept per search of an improvement operator (0 = all)
+	 */
+	public void setMaxNbrOfImprovingSteps(int maxNbrOfImprovingSteps) {
+		this.maxNbrOfImprovingSteps = maxNbrOfImprovingSteps;
+	}
+
+	public boolean isParallelNeighborhoodSearch() {
+		return parallelNeighborhoodSearch;
+	}
+
+	/**
+	 * @param parallelNeighborhoodSearch Search the source routes of route based improvement operators in parallel
+	 */
+	public void setParallelNeighborhoodSearch(boolean parallelNeighborhoodSearch) {
+		this.parallelNeighborhoodSearch = parallelNeighborhoodSearch;
+	}
+
+	public AcceptanceStrategy getAcceptanceStrategy() {
+		return acceptanceStrategy;
+	}
+
+	/**
+	 * @param acceptanceStrategy Acceptance of improving steps in route based improvement operators
+	 */
+	public void setAcceptanceStrategy(AcceptanceStrategy acceptanceStrategy) {
+		this.acceptanceStrategy = acceptanceStrategy;
+	}
+
+	public int getNbrOfFirstImprovingSteps() {
+		return nbrOfFirstImprovingSteps;
+	}
+
+	/**
+	 * @param nbrOfFirstImprovingSteps Number of improving steps, after which the search stops with acceptance strategy BEST_OF_FIRST_N
+	 */
+	public void setNbrOfFirstImprovingSteps(int nbrOfFirstImprovingSteps) {
+		this.nbrOfFirstImprovingSteps = nbrOfFirstImprovingSteps;
+	}
 }
@@ -19,7 +19,7 @@ import xf.xfvrp.base.Vehicle;
  * @author hschneid
  *
  */
-public class AirMetric implements Metric {
+public class AirMetric implements CoordinateMetric {
 
 	public static final double EARTH_RANGE = 40076.592;
 
@@ -38,7 +38,16 @@ public class AirMetric implements Metric {
 	 */
 	@Override
 	public float getTime(Node src, Node dst, Vehicle veh) {
-		return (getDistance(src, dst, veh)/60f)*60f;
+		return getTime(getDistance(src, dst, veh));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#getTime(float)
+	 */
+	@Override
+	public float getTime(float distance) {
+		return (distance/60f)*60f;
 	}
 
 	/*
@@ -47,18 +56,16 @@ public class AirMetric implements Metric {
 	 */
 	@Override
 	public float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) {
-		return new float[]{getDistance(src, dst, veh), getTime(src, dst, veh)};
+		float distance = getDistance(src, dst, veh);
+		return new float[]{distance, getTime(distance)};
 	}	
 	
-	/**
-	 * 
-	 * @param xlong1
-	 * @param ylat1
-	 * @param xlong2
-	 * @param ylat2
-	 * @return
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#getDistance(float, float, float, float)
 	 */
-	private float getDistance(float xlong1, float ylat1, float xlong2, float ylat2) {
+	@Override
+	public float getDistance(float xlong1, float ylat1, float xlong2, float ylat2) {
 		if (xlong1 == xlong2 && ylat1 == ylat2)
 			return 0.0f;
 
@@ -74,6 +81,32 @@ public class AirMetric implements Metric {
 		return (float)distance;	
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#fillRow(float, float, float[], float[], float[], float[])
+	 */
+	@Override
+	public void fillRow(float srcXlong, float srcYlat, float[] dstXlong, float[] dstYlat, float[] outDist, float[] outTime) {
+		// Trigonometry of the source is the same for the whole row
+		double dif1 = ToRadians(90 - srcYlat);
+		double cosDif1 = Math.cos(dif1);
+		double sinDif1 = Math.sin(dif1);
+
+		for (int i = 0; i < dstXlong.length; i++) {
+			float distance = 0.0f;
+			if (srcXlong != dstXlong[i] || srcYlat != dstYlat[i]) {
+				double dif2 = ToRadians(90 - dstYlat[i]);
+				double diffLon = ToRadians(Math.abs(dstXlong[i] - srcXlong));
+				double alpha = ToDegree(
+						Math.acos((cosDif1 * Math.cos(dif2)) + (sinDif1 * Math.sin(dif2) * Math.cos(diffLon)))
+				);
+				distance = (float)((alpha * EARTH_RANGE) / 360.0d);
+			}
+			outDist[i] = distance;
+			outTime[i] = getTime(distance);
+		}
+	}
+
 	/**
 	 *         
 	 * @param angle
@@ -0,0 +1,70 @@
+package xf.xfvrp.base.metric;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * A metric, where distance and travel time only depend on the coordinates
+ * of two locations and not on the vehicle. Such metrics can be calculated
+ * on demand instead of storing all values in a matrix.
+ * <p>
+ * Coordinate metrics must be symmetric, so that only half of a matrix is stored.
+ *
+ * @author hschneid
+ */
+public interface CoordinateMetric extends Metric {
+
+    /**
+     * Only distance
+     *
+     * @return distance between the two coordinates
+     */
+    float getDistance(float srcXlong, float srcYlat, float dstXlong, float dstYlat);
+
+    /**
+     * Travel time for a distance of this metric
+     *
+     * @param distance Distance between two coordinates
+     * @return time
+     */
+    float getTime(float distance);
+
+    /**
+     * Fills distances and times from one source coordinate to many destination
+     * coordinates. Implementations should use a tight loop over the primitive arrays,
+     * which can be vectorized by the JIT compiler.
+     *
+     * @param outDist outDist[i] = distance from source to (dstXlong[i], dstYlat[i])
+     * @param outTime outTime[i] = time from source to (dstXlong[i], dstYlat[i])
+     */
+    default void fillRow(float srcXlong, float srcYlat, float[] dstXlong, float[] dstYlat, float[] outDist, float[] outTime) {
+        for (int i = 0; i < dstXlong.length; i++) {
+            float distance = getDistance(srcXlong, srcYlat, dstXlong[i], dstYlat[i]);
+            outDist[i] = distance;
+            outTime[i] = getTime(distance);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#fillRow(xf.xfvrp.base.Node, xf.xfvrp.base.Node[], xf.xfvrp.base.Vehicle, float[], float[])
+     */
+    @Override
+    default void fillRow(Node src, Node[] dsts, Vehicle veh, float[] outDist, float[] outTime) {
+        float[] dstXlong = new float[dsts.length];
+        float[] dstYlat = new float[dsts.length];
+        for (int i = 0; i < dsts.length; i++) {
+            dstXlong[i] = dsts[i].getXlong();
+            dstYlat[i] = dsts[i].getYlat();
+        }
+
+        fillRow(src.getXlong(), src.getYlat(), dstXlong, dstYlat, outDist, outTime);
+    }
+}
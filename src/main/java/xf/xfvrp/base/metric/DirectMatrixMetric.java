@@ -23,7 +23,7 @@ public class DirectMatrixMetric implements Metric {
 	 * @param size
 	 */
 	public DirectMatrixMetric(int size) {
-		matrix = new float[size][size][1][];
+		matrix = new float[1][size][size][];
 	}
 	
 	/**
@@ -84,4 +84,21 @@ public class DirectMatrixMetric implements Metric {
 	public void add(int srcIdx, int dstIdx, int vehicleMetricId, float dist, float time) {
 		matrix[vehicleMetricId][srcIdx][dstIdx] = new float[]{dist, time};
 	}
+
+	/**
+	 * Raw access for converting this metric into other formats.
+	 *
+	 * @return record {distance, time} or null if not set
+	 */
+	float[] get(int srcIdx, int dstIdx, int vehicleMetricId) {
+		return matrix[vehicleMetricId][srcIdx][dstIdx];
+	}
+
+	int getSize() {
+		return matrix[0].length;
+	}
+
+	int getNbrOfVehicleMetricIds() {
+		return matrix.length;
+	}
 }
@@ -14,7 +14,7 @@ import xf.xfvrp.base.Vehicle;
  * @author hschneid
  *
  */
-public class EucledianMetric implements Metric {
+public class EucledianMetric implements CoordinateMetric {
 
 	/*
 	 * (non-Javadoc)
@@ -34,6 +34,24 @@ public class EucledianMetric implements Metric {
 		return calc(src.getXlong(), src.getYlat(), dst.getXlong(), dst.getYlat());
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#getDistance(float, float, float, float)
+	 */
+	@Override
+	public float getDistance(float srcXlong, float srcYlat, float dstXlong, float dstYlat) {
+		return calc(srcXlong, srcYlat, dstXlong, dstYlat);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#getTime(float)
+	 */
+	@Override
+	public float getTime(float distance) {
+		return distance;
+	}
+
 	/**
 	 * 
 	 * @param x1
@@ -43,7 +61,24 @@ public class EucledianMetric implements Metric {
 	 * @return
 	 */
 	private float calc(float x1, float y1, float x2, float y2) {
-		return (float)Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+		float dx = x1 - x2;
+		float dy = y1 - y2;
+		return (float)Math.sqrt((double)dx * dx + (double)dy * dy);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see xf.xfvrp.base.metric.CoordinateMetric#fillRow(float, float, float[], float[], float[], float[])
+	 */
+	@Override
+	public void fillRow(float srcXlong, float srcYlat, float[] dstXlong, float[] dstYlat, float[] outDist, float[] outTime) {
+		for (int i = 0; i < dstXlong.length; i++) {
+			float dx = srcXlong - dstXlong[i];
+			float dy = srcYlat - dstYlat[i];
+			float distance = (float)Math.sqrt((double)dx * dx + (double)dy * dy);
+			outDist[i] = distance;
+			outTime[i] = distance;
+		}
 	}
 
 	/*
@@ -45,4 +45,19 @@ public interface InternalMetric {
 	 * @return record {distance, time}
 	 */
 	public float[] getDistanceAndTime(Node src, Node dst);
+
+	/**
+	 * Writes distance and time into the given record instead
+	 * of allocating a new one. Should be overwritten by metrics,
+	 * which are read in the inner loops of the evaluation.
+	 *
+	 * @param src Source node
+	 * @param dst Destination node
+	 * @param out record {distance, time}, which is filled
+	 */
+	public default void getDistanceAndTime(Node src, Node dst, float[] out) {
+		float[] v = getDistanceAndTime(src, dst);
+		out[0] = v[0];
+		out[1] = v[1];
+	}
 }
@@ -0,0 +1,264 @@
+package xf.xfvrp.base.metric;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Map based metric like MapMetric, but without String keys and boxed records.
+ * <p>
+ * Source geoId, destination geoId and vehicle metric id are packed into one
+ * primitive long key of an open-addressing hash table with linear probing.
+ * Distances and times are stored interleaved in a float array beside the keys.
+ * So a lookup neither concatenates Strings nor allocates, besides the returned
+ * record of getDistanceAndTime.
+ * <p>
+ * GeoIds must be in [0, 2^24) and vehicle metric ids in [0, 2^15).
+ *
+ * @author hschneid
+ */
+public class LongMapMetric implements Metric {
+
+    private static final int DEFAULT_VEHICLE_METRIC_ID = 0;
+    private static final int ID_BITS = 24;
+    private static final int MAX_ID = (1 << ID_BITS) - 1;
+    private static final int MAX_VEHICLE_METRIC_ID = Short.MAX_VALUE;
+    private static final long EMPTY = -1;
+    private static final float LOAD_FACTOR = 0.6f;
+    // Largest number of slots, where the values array with 2 floats per slot still has a valid size
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private long[] keys;
+    private float[] values;
+    private int mask;
+    private int shift;
+    private int count;
+
+    public LongMapMetric() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedNbrOfEntries Number of entries, which can be added without rehashing
+     */
+    public LongMapMetric(int expectedNbrOfEntries) {
+        allocate(capacityFor(expectedNbrOfEntries));
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistance(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getDistance(Node src, Node dst, Vehicle veh) {
+        return values[slotOrFail(src, dst, veh) << 1];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getTime(Node src, Node dst, Vehicle veh) {
+        return values[(slotOrFail(src, dst, veh) << 1) + 1];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistanceAndTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) {
+        return get(src.getGeoId(), dst.getGeoId(), veh.getVehicleMetricId());
+    }
+
+    /**
+     *
+     * @param srcId
+     * @param dstId
+     * @param dist
+     */
+    public void addDist(int srcId, int dstId, float dist) {
+        int slot = insert(key(srcId, dstId, DEFAULT_VEHICLE_METRIC_ID), -1, -1);
+        values[slot << 1] = dist;
+    }
+
+    /**
+     *
+     * @param srcId
+     * @param dstId
+     * @param time
+     */
+    public void addTime(int srcId, int dstId, float time) {
+        int slot = insert(key(srcId, dstId, DEFAULT_VEHICLE_METRIC_ID), -1, -1);
+        values[(slot << 1) + 1] = time;
+    }
+
+    /**
+     *
+     * @param srcId
+     * @param dstId
+     * @param dist
+     * @param time
+     */
+    public void add(int srcId, int dstId, float dist, float time) {
+        add(srcId, dstId, DEFAULT_VEHICLE_METRIC_ID, dist, time);
+    }
+
+    /**
+     *
+     * @param srcId
+     * @param dstId
+     * @param vehicleMetricId
+     * @param dist
+     * @param time
+     */
+    public void add(int srcId, int dstId, int vehicleMetricId, float dist, float time) {
+        int slot = insert(key(srcId, dstId, vehicleMetricId), dist, time);
+        values[slot << 1] = dist;
+        values[(slot << 1) + 1] = time;
+    }
+
+    /**
+     * Adds all entries of the parallel arrays for the default vehicle metric id.
+     */
+    public void add(int[] srcIds, int[] dstIds, float[] dists, float[] times) {
+        add(srcIds, dstIds, DEFAULT_VEHICLE_METRIC_ID, dists, times);
+    }
+
+    /**
+     * Adds all entries of the parallel arrays for the given vehicle metric id.
+     * The table is grown once before inserting.
+     */
+    public void add(int[] srcIds, int[] dstIds, int vehicleMetricId, float[] dists, float[] times) {
+        int n = srcIds.length;
+        if (dstIds.length != n || dists.length != n || times.length != n)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Arrays of bulk insert must have the same length");
+
+        ensureCapacity(count + n);
+        for (int i = 0; i < n; i++)
+            add(srcIds[i], dstIds[i], vehicleMetricId, dists[i], times[i]);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return record {distance, time} or null if not set
+     */
+    float[] get(int srcId, int dstId, int vehicleMetricId) {
+        if (srcId < 0 || srcId > MAX_ID || dstId < 0 || dstId > MAX_ID || vehicleMetricId < 0 || vehicleMetricId > MAX_VEHICLE_METRIC_ID)
+            return null;
+
+        int slot = find(key(srcId, dstId, vehicleMetricId));
+        if (slot < 0)
+            return null;
+
+        return new float[]{values[slot << 1], values[(slot << 1) + 1]};
+    }
+
+    private int slotOrFail(Node src, Node dst, Vehicle veh) {
+        int slot = find(key(src.getGeoId(), dst.getGeoId(), veh.getVehicleMetricId()));
+        if (slot < 0)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Missing distance information (" + src.getGeoId() + "," + dst.getGeoId() + ")");
+
+        return slot;
+    }
+
+    private int find(long key) {
+        int slot = hash(key);
+        while (true) {
+            long k = keys[slot];
+            if (k == key)
+                return slot;
+            if (k == EMPTY)
+                return -1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the slot of the key. If the key is new, it is inserted with the given values.
+     */
+    private int insert(long key, float dist, float time) {
+        ensureCapacity(count + 1);
+
+        int slot = hash(key);
+        while (true) {
+            long k = keys[slot];
+            if (k == key)
+                return slot;
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot << 1] = dist;
+                values[(slot << 1) + 1] = time;
+                count++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void ensureCapacity(int nbrOfEntries) {
+        if (nbrOfEntries <= (int) (keys.length * LOAD_FACTOR))
+            return;
+
+        long[] oldKeys = keys;
+        float[] oldValues = values;
+        allocate(capacityFor(nbrOfEntries));
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+
+            int slot = hash(oldKeys[i]);
+            while (keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot << 1] = oldValues[i << 1];
+            values[(slot << 1) + 1] = oldValues[(i << 1) + 1];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new float[capacity << 1];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Fibonacci hashing: the high bits of the product depend on all bits of the key.
+     */
+    private int hash(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private static int capacityFor(int nbrOfEntries) {
+        long needed = (long) Math.ceil(Math.max(nbrOfEntries, 1) / LOAD_FACTOR);
+        if (needed > MAX_CAPACITY)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Too many entries for map metric (" + nbrOfEntries + ")");
+
+        return Math.max(2, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    private static long key(int srcId, int dstId, int vehicleMetricId) {
+        if (srcId < 0 || srcId > MAX_ID || dstId < 0 || dstId > MAX_ID)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "GeoId out of range [0," + MAX_ID + "] (" + srcId + "," + dstId + ")");
+        if (vehicleMetricId < 0 || vehicleMetricId > MAX_VEHICLE_METRIC_ID)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Vehicle metric id out of range [0," + MAX_VEHICLE_METRIC_ID + "] (" + vehicleMetricId + ")");
+
+        return ((long) vehicleMetricId << (2 * ID_BITS)) | ((long) srcId << ID_BITS) | dstId;
+    }
+}
@@ -101,6 +101,15 @@ public class MapMetric implements Metric {
 		map.put(genKey(srcId, dstId, vehicleMetricId), new float[]{dist, time});
 	}
 
+	/**
+	 * Raw access for converting this metric into other formats.
+	 *
+	 * @return record {distance, time} or null if not set
+	 */
+	float[] get(int srcId, int dstId, int vehicleMetricId) {
+		return map.get(genKey(srcId, dstId, vehicleMetricId));
+	}
+
 	/**
 	 * Generates an unique key for the two given ids.
 	 * 
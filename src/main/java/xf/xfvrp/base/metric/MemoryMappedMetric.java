@@ -0,0 +1,160 @@
+package xf.xfvrp.base.metric;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Metric on a binary matrix file, which is memory-mapped read-only. The
+ * values are not loaded on heap, so several solver processes can share the
+ * page-cached file of one big road matrix.
+ * <p>
+ * Values are indexed by geoId of the nodes and vehicle metric id of the vehicle.
+ * The file format is written by MemoryMappedMetricWriter:
+ * <pre>
+ * header: int magic, int version, int size, int nbrOfVehicleMetricIds
+ * body:   for each vehicle metric id, source geoId and destination geoId
+ *         the pair {float distance, float time}
+ * </pre>
+ * All values are little endian. Missing entries are stored as NaN and are
+ * returned as null, like in the other metrics.
+ *
+ * @author hschneid
+ */
+public class MemoryMappedMetric implements Metric {
+
+    static final int MAGIC = 0x58464D4D;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 8;
+
+    // A single mapping is limited to 2 GB, so the body is mapped in chunks of 2^27 entries (1 GB).
+    private static final int CHUNK_BITS = 27;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final int size;
+    private final int nbrOfVehicleMetricIds;
+    private final FloatBuffer[] chunks;
+
+    /**
+     * Maps the given matrix file into memory.
+     *
+     * @param file Matrix file written by MemoryMappedMetricWriter
+     */
+    public MemoryMappedMetric(Path file) throws XFVRPException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+                if (channel.read(header) < 0)
+                    break;
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "File " + file + " is no matrix file");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Unsupported version " + version + " of matrix file " + file);
+
+            this.size = header.getInt();
+            this.nbrOfVehicleMetricIds = header.getInt();
+
+            long nbrOfEntries = (long) nbrOfVehicleMetricIds * size * size;
+            if (channel.size() < HEADER_SIZE + nbrOfEntries * ENTRY_SIZE)
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " is truncated");
+
+            this.chunks = new FloatBuffer[(int) ((nbrOfEntries + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long firstEntry = (long) i << CHUNK_BITS;
+                long entries = Math.min(nbrOfEntries - firstEntry, 1L << CHUNK_BITS);
+                chunks[i] = channel
+                        .map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstEntry * ENTRY_SIZE, entries * ENTRY_SIZE)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asFloatBuffer();
+            }
+        } catch (IOException e) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " could not be mapped", e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistance(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getDistance(Node src, Node dst, Vehicle veh) {
+        long entry = checkedEntry(src.getGeoId(), dst.getGeoId(), veh.getVehicleMetricId());
+        return chunks[(int) (entry >>> CHUNK_BITS)].get((int) (entry & CHUNK_MASK) << 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getTime(Node src, Node dst, Vehicle veh) {
+        long entry = checkedEntry(src.getGeoId(), dst.getGeoId(), veh.getVehicleMetricId());
+        return chunks[(int) (entry >>> CHUNK_BITS)].get(((int) (entry & CHUNK_MASK) << 1) + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistanceAndTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) {
+        int srcId = src.getGeoId();
+        int dstId = dst.getGeoId();
+        int vehicleMetricId = veh.getVehicleMetricId();
+        if (srcId < 0 || srcId >= size || dstId < 0 || dstId >= size || vehicleMetricId < 0 || vehicleMetricId >= nbrOfVehicleMetricIds)
+            return null;
+
+        long entry = entry(srcId, dstId, vehicleMetricId);
+        FloatBuffer chunk = chunks[(int) (entry >>> CHUNK_BITS)];
+        int pos = (int) (entry & CHUNK_MASK) << 1;
+
+        float dist = chunk.get(pos);
+        if (Float.isNaN(dist))
+            return null;
+
+        return new float[]{dist, chunk.get(pos + 1)};
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNbrOfVehicleMetricIds() {
+        return nbrOfVehicleMetricIds;
+    }
+
+    /**
+     * Same as entry, where ids outside of the matrix are rejected.
+     */
+    private long checkedEntry(int srcId, int dstId, int vehicleMetricId) {
+        if (srcId < 0 || srcId >= size || dstId < 0 || dstId >= size)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "GeoId out of range [0," + (size - 1) + "] (" + srcId + "," + dstId + ")");
+        if (vehicleMetricId < 0 || vehicleMetricId >= nbrOfVehicleMetricIds)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Vehicle metric id out of range [0," + (nbrOfVehicleMetricIds - 1) + "] (" + vehicleMetricId + ")");
+
+        return entry(srcId, dstId, vehicleMetricId);
+    }
+
+    private long entry(int srcId, int dstId, int vehicleMetricId) {
+        return ((long) vehicleMetricId * size + srcId) * size + dstId;
+    }
+}
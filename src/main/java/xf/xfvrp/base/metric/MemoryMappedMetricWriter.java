@@ -0,0 +1,101 @@
+package xf.xfvrp.base.metric;
+
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Writes metrics into the binary matrix format of MemoryMappedMetric.
+ * <p>
+ * The ids of the converted metric (node index for DirectMatrixMetric, geoId
+ * for MapMetric and LongMapMetric) become the geoIds of the written matrix. Missing entries are
+ * written as NaN.
+ *
+ * @author hschneid
+ */
+public class MemoryMappedMetricWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Writes all vehicle metric ids of the given matrix metric into the file.
+     */
+    public static void write(DirectMatrixMetric metric, Path file) throws XFVRPException {
+        write(metric::get, metric.getSize(), metric.getNbrOfVehicleMetricIds(), file);
+    }
+
+    /**
+     * Writes all vehicle metric ids of the given packed matrix metric into the file.
+     */
+    public static void write(PackedMatrixMetric metric, Path file) throws XFVRPException {
+        write(metric::get, metric.getSize(), metric.getNbrOfVehicleMetricIds(), file);
+    }
+
+    /**
+     * Writes the entries of the given map metric for all geoIds in [0, size)
+     * and vehicle metric ids in [0, nbrOfVehicleMetricIds) into the file.
+     */
+    public static void write(MapMetric metric, int size, int nbrOfVehicleMetricIds, Path file) throws XFVRPException {
+        write(metric::get, size, nbrOfVehicleMetricIds, file);
+    }
+
+    /**
+     * Writes the entries of the given map metric for all geoIds in [0, size)
+     * and vehicle metric ids in [0, nbrOfVehicleMetricIds) into the file.
+     */
+    public static void write(LongMapMetric metric, int size, int nbrOfVehicleMetricIds, Path file) throws XFVRPException {
+        write(metric::get, size, nbrOfVehicleMetricIds, file);
+    }
+
+    private static void write(EntrySource source, int size, int nbrOfVehicleMetricIds, Path file) throws XFVRPException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MemoryMappedMetric.MAGIC);
+            buffer.putInt(MemoryMappedMetric.VERSION);
+            buffer.putInt(size);
+            buffer.putInt(nbrOfVehicleMetricIds);
+
+            for (int v = 0; v < nbrOfVehicleMetricIds; v++)
+                for (int i = 0; i < size; i++)
+                    for (int j = 0; j < size; j++) {
+                        if (buffer.remaining() < MemoryMappedMetric.ENTRY_SIZE)
+                            flush(buffer, channel);
+
+                        float[] entry = source.get(i, j, v);
+                        buffer.putFloat(entry != null ? entry[0] : Float.NaN);
+                        buffer.putFloat(entry != null ? entry[1] : Float.NaN);
+                    }
+            flush(buffer, channel);
+        } catch (IOException e) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " could not be written", e);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    @FunctionalInterface
+    private interface EntrySource {
+        float[] get(int srcId, int dstId, int vehicleMetricId);
+    }
+}
@@ -2,6 +2,8 @@ package xf.xfvrp.base.metric;
 
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
 
 /**
  * Copyright (c) 2012-2026 Holger Schneider
@@ -48,4 +50,27 @@ public interface Metric {
      * @return record {0 = distance, 1 = time}
      */
     float[] getDistanceAndTime(Node src, Node dst, Vehicle veh);
+
+    /**
+     * Fills distances and times from one source to many destinations in one call.
+     * Metrics, which can calculate a whole row faster than single pairs, should
+     * overwrite this method.
+     *
+     * @param src      Source node
+     * @param dsts     Destination nodes
+     * @param veh      Container
+     * @param outDist  outDist[i] = distance from src to dsts[i]
+     * @param outTime  outTime[i] = time from src to dsts[i]
+     * @throws XFVRPException if an entry is missing
+     */
+    default void fillRow(Node src, Node[] dsts, Vehicle veh, float[] outDist, float[] outTime) throws XFVRPException {
+        for (int i = 0; i < dsts.length; i++) {
+            float[] v = getDistanceAndTime(src, dsts[i], veh);
+            if (v == null)
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Missing distance information (" + src.getGeoId() + "," + dsts[i].getGeoId() + ")");
+
+            outDist[i] = v[0];
+            outTime[i] = v[1];
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package xf.xfvrp.base.metric;
+
+/** 
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ *
+ *
+ * Storage precision of the optimization metric, which is read by
+ * the neighborhood searches and construction heuristics.
+ *
+ * FLOAT stores exact distances. INT32 and INT16 store distances as
+ * fixed-point numbers (distance * scale). INT32 needs the same memory
+ * as FLOAT, but has a constant absolute precision. INT16 halves the
+ * size of the matrix. Evaluation and reports always use the exact
+ * distances.
+ *
+ * @author hschneid
+ *
+ */
+public enum OptimizationMetricPrecision {
+
+	FLOAT,
+	INT32,
+	INT16
+}
@@ -0,0 +1,321 @@
+package xf.xfvrp.base.metric;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Matrix metric for several vehicle metric ids (profiles), where each profile
+ * is one flat primitive array with interleaved distance and time. Values are
+ * indexed by geoId of the nodes and vehicle metric id of the vehicle.
+ * <p>
+ * The matrix is filled by whole rows or whole matrices from primitive arrays
+ * or FloatBuffers, or it is read from a binary matrix file (see MemoryMappedMetric)
+ * or a CSV file. So no object per entry is allocated.
+ * <p>
+ * Missing entries are NaN and are returned as null, like in the other metrics.
+ *
+ * @author hschneid
+ */
+public class PackedMatrixMetric implements Metric {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final int size;
+    private final float[][] profiles;
+
+    /**
+     * @param size                  Number of geoIds, which are in [0, size)
+     * @param nbrOfVehicleMetricIds Number of profiles, which are in [0, nbrOfVehicleMetricIds)
+     */
+    public PackedMatrixMetric(int size, int nbrOfVehicleMetricIds) throws XFVRPException {
+        long length = (long) size * size * 2;
+        if (size < 0 || length > Integer.MAX_VALUE - 8)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Invalid size of packed matrix (" + size + ")");
+        if (nbrOfVehicleMetricIds <= 0)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Invalid number of vehicle metric ids (" + nbrOfVehicleMetricIds + ")");
+
+        this.size = size;
+        this.profiles = new float[nbrOfVehicleMetricIds][(int) length];
+        for (float[] profile : profiles)
+            Arrays.fill(profile, Float.NaN);
+    }
+
+    /**
+     * Reads a binary matrix file in the format of MemoryMappedMetricWriter
+     * completely into the heap.
+     */
+    public static PackedMatrixMetric read(Path file) throws XFVRPException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(MemoryMappedMetric.HEADER_SIZE);
+            fill(buffer, channel);
+            if (buffer.remaining() < MemoryMappedMetric.HEADER_SIZE ||
+                    buffer.getInt() != MemoryMappedMetric.MAGIC ||
+                    buffer.getInt() != MemoryMappedMetric.VERSION)
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "File " + file + " is no matrix file of version " + MemoryMappedMetric.VERSION);
+
+            PackedMatrixMetric metric = new PackedMatrixMetric(buffer.getInt(), buffer.getInt());
+            for (float[] profile : metric.profiles) {
+                int pos = 0;
+                while (pos < profile.length) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(BUFFER_SIZE, (long) (profile.length - pos) * Float.BYTES));
+                    fill(buffer, channel);
+                    if (buffer.remaining() < Float.BYTES)
+                        throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " is truncated");
+
+                    int n = buffer.remaining() / Float.BYTES;
+                    buffer.asFloatBuffer().get(profile, pos, n);
+                    pos += n;
+                }
+            }
+            return metric;
+        } catch (IOException e) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " could not be read", e);
+        }
+    }
+
+    /**
+     * Reads a CSV file with one entry per line. The columns are separated by comma or
+     * semicolon and are either
+     * <pre>
+     * srcGeoId, dstGeoId, distance, time
+     * srcGeoId, dstGeoId, vehicleMetricId, distance, time
+     * </pre>
+     * Empty lines and lines starting with # are skipped.
+     */
+    public static PackedMatrixMetric readCSV(Path file, int size, int nbrOfVehicleMetricIds) throws XFVRPException {
+        PackedMatrixMetric metric = new PackedMatrixMetric(size, nbrOfVehicleMetricIds);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String[] columns = new String[5];
+            String line;
+            int lineNbr = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNbr++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#')
+                    continue;
+
+                int nbrOfColumns = split(line, columns);
+                try {
+                    if (nbrOfColumns == 4)
+                        metric.add(Integer.parseInt(columns[0]), Integer.parseInt(columns[1]), 0, Float.parseFloat(columns[2]), Float.parseFloat(columns[3]));
+                    else if (nbrOfColumns == 5)
+                        metric.add(Integer.parseInt(columns[0]), Integer.parseInt(columns[1]), Integer.parseInt(columns[2]), Float.parseFloat(columns[3]), Float.parseFloat(columns[4]));
+                    else
+                        throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Wrong number of columns in line " + lineNbr + " of " + file);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Invalid entry in line " + lineNbr + " of " + file, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Matrix file " + file + " could not be read", e);
+        }
+
+        return metric;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistance(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getDistance(Node src, Node dst, Vehicle veh) {
+        return profiles[veh.getVehicleMetricId()][index(src.getGeoId(), dst.getGeoId())];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getTime(Node src, Node dst, Vehicle veh) {
+        return profiles[veh.getVehicleMetricId()][index(src.getGeoId(), dst.getGeoId()) + 1];
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistanceAndTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) {
+        return get(src.getGeoId(), dst.getGeoId(), veh.getVehicleMetricId());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#fillRow(xf.xfvrp.base.Node, xf.xfvrp.base.Node[], xf.xfvrp.base.Vehicle, float[], float[])
+     */
+    @Override
+    public void fillRow(Node src, Node[] dsts, Vehicle veh, float[] outDist, float[] outTime) throws XFVRPException {
+        int srcId = src.getGeoId();
+        int vehicleMetricId = veh.getVehicleMetricId();
+        if (srcId < 0 || srcId >= size || vehicleMetricId < 0 || vehicleMetricId >= profiles.length)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Missing distance information (" + srcId + ", vehicle metric id " + vehicleMetricId + ")");
+
+        float[] profile = profiles[vehicleMetricId];
+        int rowOffset = index(srcId, 0);
+        for (int i = 0; i < dsts.length; i++) {
+            int dstId = dsts[i].getGeoId();
+            float dist = (dstId >= 0 && dstId < size) ? profile[rowOffset + (dstId << 1)] : Float.NaN;
+            if (Float.isNaN(dist))
+                throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Missing distance information (" + srcId + "," + dstId + ")");
+
+            outDist[i] = dist;
+            outTime[i] = profile[rowOffset + (dstId << 1) + 1];
+        }
+    }
+
+    public void add(int srcId, int dstId, float dist, float time) {
+        add(srcId, dstId, 0, dist, time);
+    }
+
+    public void add(int srcId, int dstId, int vehicleMetricId, float dist, float time) {
+        int i = index(srcId, dstId);
+        profiles[vehicleMetricId][i] = dist;
+        profiles[vehicleMetricId][i + 1] = time;
+    }
+
+    /**
+     * Sets all entries from one source to all destination geoIds.
+     *
+     * @param distances distances[dstId]
+     * @param times     times[dstId]
+     */
+    public void setRow(int srcId, int vehicleMetricId, float[] distances, float[] times) throws XFVRPException {
+        checkLength(distances.length, size);
+        checkLength(times.length, size);
+
+        float[] profile = profiles[vehicleMetricId];
+        int offset = index(srcId, 0);
+        for (int j = 0; j < size; j++) {
+            profile[offset + (j << 1)] = distances[j];
+            profile[offset + (j << 1) + 1] = times[j];
+        }
+    }
+
+    /**
+     * Sets the complete matrix of a profile.
+     *
+     * @param distances row-major matrix with distances[srcId * size + dstId]
+     * @param times     row-major matrix with times[srcId * size + dstId]
+     */
+    public void setMatrix(int vehicleMetricId, float[] distances, float[] times) throws XFVRPException {
+        setMatrix(vehicleMetricId, FloatBuffer.wrap(distances), FloatBuffer.wrap(times));
+    }
+
+    /**
+     * Sets the complete matrix of a profile from the remaining values of the buffers.
+     * The positions of the buffers are not changed.
+     *
+     * @param distances row-major matrix with distances[srcId * size + dstId]
+     * @param times     row-major matrix with times[srcId * size + dstId]
+     */
+    public void setMatrix(int vehicleMetricId, FloatBuffer distances, FloatBuffer times) throws XFVRPException {
+        checkLength(distances.remaining(), size * size);
+        checkLength(times.remaining(), size * size);
+
+        float[] profile = profiles[vehicleMetricId];
+        int distOffset = distances.position();
+        int timeOffset = times.position();
+        for (int i = 0; i < size * size; i++) {
+            profile[i << 1] = distances.get(distOffset + i);
+            profile[(i << 1) + 1] = times.get(timeOffset + i);
+        }
+    }
+
+    /**
+     * Sets the complete matrix of a profile from the remaining values of the buffer, where
+     * distance and time of each entry are interleaved like in the binary matrix file.
+     * The position of the buffer is not changed.
+     *
+     * @param distanceAndTime row-major matrix with {distance, time} per entry
+     */
+    public void setMatrix(int vehicleMetricId, FloatBuffer distanceAndTime) throws XFVRPException {
+        checkLength(distanceAndTime.remaining(), size * size * 2);
+
+        distanceAndTime.duplicate().get(profiles[vehicleMetricId]);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNbrOfVehicleMetricIds() {
+        return profiles.length;
+    }
+
+    /**
+     * Raw access for converting this metric into other formats.
+     *
+     * @return record {distance, time} or null if not set
+     */
+    float[] get(int srcId, int dstId, int vehicleMetricId) {
+        if (srcId < 0 || srcId >= size || dstId < 0 || dstId >= size || vehicleMetricId < 0 || vehicleMetricId >= profiles.length)
+            return null;
+
+        int i = index(srcId, dstId);
+        float dist = profiles[vehicleMetricId][i];
+        if (Float.isNaN(dist))
+            return null;
+
+        return new float[]{dist, profiles[vehicleMetricId][i + 1]};
+    }
+
+    private int index(int srcId, int dstId) {
+        return (srcId * size + dstId) << 1;
+    }
+
+    private static void checkLength(int length, int expected) throws XFVRPException {
+        if (length != expected)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Expected " + expected + " values, but got " + length);
+    }
+
+    /**
+     * Reads from the channel until the buffer is full or the end of the file
+     * is reached. Afterwards the buffer is flipped for reading.
+     */
+    private static void fill(ByteBuffer buffer, FileChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                break;
+        }
+        buffer.flip();
+    }
+
+    private static int split(String line, String[] columns) {
+        int nbrOfColumns = 0;
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == ',' || line.charAt(i) == ';') {
+                if (nbrOfColumns == columns.length)
+                    return columns.length + 1;
+                columns[nbrOfColumns++] = line.substring(start, i).trim();
+                start = i + 1;
+            }
+        }
+        return nbrOfColumns;
+    }
+}
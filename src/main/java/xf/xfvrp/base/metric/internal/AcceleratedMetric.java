@@ -1,6 +1,8 @@
 package xf.xfvrp.base.metric.internal;
 
 import xf.xfvrp.base.Node;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
 import xf.xfvrp.base.metric.InternalMetric;
 
 /**
@@ -9,18 +11,44 @@ import xf.xfvrp.base.metric.InternalMetric;
  * <p>
  * This source code is licensed under the MIT License (MIT) found in the
  * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Dense distance and time matrix for all nodes of a model.
+ * <p>
+ * Distance and time of a pair of nodes are stored interleaved in one flat
+ * primitive array (distance at even, time at odd positions). So a lookup
+ * touches a single cache line and no extra object per node pair is needed.
+ * <p>
+ * For symmetric metrics only the lower triangle (including the diagonal) is stored,
+ * which halves the memory.
  *
  * @author hschneid
  */
 public class AcceleratedMetric implements InternalMetric {
 
-    private final float[][][] matrix;
+    private final int size;
+    private final boolean symmetric;
+    private final float[] matrix;
 
     /**
-     * @param size
+     * @param size Number of nodes
      */
     public AcceleratedMetric(int size) {
-        matrix = new float[size][size][];
+        this(size, false);
+    }
+
+    /**
+     * @param size      Number of nodes
+     * @param symmetric If true, distance and time from A to B must be equal to B to A
+     */
+    public AcceleratedMetric(int size, boolean symmetric) {
+        long length = (symmetric) ? (long) size * (size + 1) : (long) size * size * 2;
+        if (length > Integer.MAX_VALUE - 8)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_INPUT, "Too many nodes for a dense metric (" + size + ")");
+
+        this.size = size;
+        this.symmetric = symmetric;
+        this.matrix = new float[(int) length];
     }
 
     /*
@@ -29,7 +57,7 @@ public class AcceleratedMetric implements InternalMetric {
      */
     @Override
     public float getDistance(Node src, Node dst) {
-        return matrix[src.getIdx()][dst.getIdx()][0];
+        return matrix[index(src.getIdx(), dst.getIdx())];
     }
 
     /*
@@ -38,7 +66,7 @@ public class AcceleratedMetric implements InternalMetric {
      */
     @Override
     public float getTime(Node src, Node dst) {
-        return matrix[src.getIdx()][dst.getIdx()][1];
+        return matrix[index(src.getIdx(), dst.getIdx()) + 1];
     }
 
     /*
@@ -47,10 +75,49 @@ public class AcceleratedMetric implements InternalMetric {
      */
     @Override
     public float[] getDistanceAndTime(Node src, Node dst) {
-        return matrix[src.getIdx()][dst.getIdx()];
+        int i = index(src.getIdx(), dst.getIdx());
+        return new float[]{matrix[i], matrix[i + 1]};
+    }
+
+    @Override
+    public void getDistanceAndTime(Node src, Node dst, float[] out) {
+        int i = index(src.getIdx(), dst.getIdx());
+        out[0] = matrix[i];
+        out[1] = matrix[i + 1];
     }
 
     public void add(int srcIdx, int dstIdx, float dist, float time) {
-        matrix[srcIdx][dstIdx] = new float[]{dist, time};
+        int i = index(srcIdx, dstIdx);
+        matrix[i] = dist;
+        matrix[i + 1] = time;
+    }
+
+    public float getDistance(int srcIdx, int dstIdx) {
+        return matrix[index(srcIdx, dstIdx)];
+    }
+
+    public float getTime(int srcIdx, int dstIdx) {
+        return matrix[index(srcIdx, dstIdx) + 1];
+    }
+
+    public void getDistanceAndTime(int srcIdx, int dstIdx, float[] out) {
+        int i = index(srcIdx, dstIdx);
+        out[0] = matrix[i];
+        out[1] = matrix[i + 1];
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    private int index(int srcIdx, int dstIdx) {
+        if (symmetric)
+            return TriangleIndex.index(srcIdx, dstIdx) << 1;
+
+        return (srcIdx * size + dstIdx) << 1;
     }
 }
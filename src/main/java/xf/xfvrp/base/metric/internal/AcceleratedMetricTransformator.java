@@ -36,6 +36,12 @@ public class AcceleratedMetricTransformator {
      * @return Internal metric for use in optimization procedures
      */
     public static InternalMetric transform(Metric metric, Node[] nodeArr, Vehicle veh) throws XFVRPException {
+        if (metric instanceof MetricCache) {
+            InternalMetric cachedMetric = ((MetricCache) metric).getInternalMetric(nodeArr, veh);
+            if (cachedMetric != null)
+                return cachedMetric;
+        }
+
         AcceleratedMetric acceleratedMetric = new AcceleratedMetric(nodeArr.length);
         for (int i = 0; i < nodeArr.length; i++)
             for (int j = 0; j < nodeArr.length; j++) {
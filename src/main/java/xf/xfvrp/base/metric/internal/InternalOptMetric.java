@@ -15,20 +15,31 @@ import xf.xfvrp.base.metric.InternalMetric;
  * by all optimization procedures.
  * <p>
  * This metric holds only distance information in an one-dimensional array for faster access.
+ * For symmetric metrics only the lower triangle (including the diagonal) is stored.
  *
  * @author hschneid
  */
 public class InternalOptMetric implements InternalMetric {
 
     private final int size;
+    private final boolean symmetric;
     private final float[] matrix;
 
     /**
      * @param size
      */
     public InternalOptMetric(int size) {
+        this(size, false);
+    }
+
+    /**
+     * @param size      Number of nodes
+     * @param symmetric If true, distance from A to B must be equal to B to A
+     */
+    public InternalOptMetric(int size, boolean symmetric) {
         this.size = size;
-        matrix = new float[size * size];
+        this.symmetric = symmetric;
+        matrix = new float[(symmetric) ? TriangleIndex.length(size) : size * size];
     }
 
     /*
@@ -37,7 +48,7 @@ public class InternalOptMetric implements InternalMetric {
      */
     @Override
     public float getDistance(Node src, Node dst) {
-        return matrix[src.getIdx() * size + dst.getIdx()];
+        return matrix[index(src.getIdx(), dst.getIdx())];
     }
 
     /**
@@ -50,7 +61,64 @@ public class InternalOptMetric implements InternalMetric {
      * @param distance Distance
      */
     public void setDistance(Node src, Node dst, float distance) {
-        matrix[src.getIdx() * size + dst.getIdx()] = distance;
+        matrix[index(src.getIdx(), dst.getIdx())] = distance;
+    }
+
+    /**
+     * Adds a distance for a src and a dst node index.
+     */
+    public void setDistance(int srcIdx, int dstIdx, float distance) {
+        matrix[index(srcIdx, dstIdx)] = distance;
+    }
+
+    /**
+     * Gathers the distances from the node with srcIdx to the nodes with the indexes
+     * dstIdx[from] to dstIdx[to - 1] into out[from] to out[to - 1].
+     */
+    public void getDistancesFrom(int srcIdx, int[] dstIdx, int from, int to, float[] out) {
+        if (symmetric) {
+            for (int i = from; i < to; i++)
+                out[i] = matrix[TriangleIndex.index(srcIdx, dstIdx[i])];
+            return;
+        }
+
+        int offset = srcIdx * size;
+        for (int i = from; i < to; i++)
+            out[i] = matrix[offset + dstIdx[i]];
+    }
+
+    /**
+     * Gathers the distances from the nodes with the indexes srcIdx[from] to srcIdx[to - 1]
+     * to the node with dstIdx into out[from] to out[to - 1].
+     */
+    public void getDistancesTo(int[] srcIdx, int dstIdx, int from, int to, float[] out) {
+        if (symmetric) {
+            for (int i = from; i < to; i++)
+                out[i] = matrix[TriangleIndex.index(srcIdx[i], dstIdx)];
+            return;
+        }
+
+        for (int i = from; i < to; i++)
+            out[i] = matrix[srcIdx[i] * size + dstIdx];
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    float[] getMatrix() {
+        return matrix;
+    }
+
+    private int index(int srcIdx, int dstIdx) {
+        if (symmetric)
+            return TriangleIndex.index(srcIdx, dstIdx);
+
+        return srcIdx * size + dstIdx;
     }
 
     /*
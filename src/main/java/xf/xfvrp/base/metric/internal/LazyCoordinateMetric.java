@@ -0,0 +1,182 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.XFVRPParameter;
+import xf.xfvrp.base.metric.CoordinateMetric;
+import xf.xfvrp.base.metric.InternalMetric;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Internal metric for coordinate based metrics, which calculates distances
+ * and times on demand from primitive coordinate arrays instead of storing
+ * a n x n matrix.
+ * <p>
+ * Optionally
+ * - a bounded, direct-mapped cache keeps calculated distances. Each entry packs
+ * the pair of node indexes and the distance into one long, so concurrent
+ * readers never see torn entries.
+ * - a list of the k nearest neighbors per node is precomputed.
+ * <p>
+ * Open routes are considered like in the MetricTransformationPipeline.
+ *
+ * @author hschneid
+ */
+public class LazyCoordinateMetric implements InternalMetric {
+
+    // Pairs of node indexes must fit into the 32 bit key of a cache entry
+    private static final int MAX_SIZE_FOR_CACHE = 65535;
+
+    private final CoordinateMetric metric;
+    private final int size;
+    private final float[] xlong;
+    private final float[] ylat;
+    private final boolean[] isDepot;
+    private final boolean openAtStart;
+    private final boolean openAtEnd;
+
+    private final AtomicLongArray cache;
+    private final int cacheMask;
+
+    private final int[][] nearestNeighbors;
+
+    /**
+     * @param metric    Coordinate based user metric
+     * @param nodes     Nodes with set index
+     * @param parameter Parameters for open routes, cache size and number of nearest neighbors
+     */
+    public LazyCoordinateMetric(CoordinateMetric metric, Node[] nodes, XFVRPParameter parameter) {
+        this.metric = metric;
+        this.size = nodes.length;
+        this.openAtStart = parameter.isOpenRouteAtStart();
+        this.openAtEnd = parameter.isOpenRouteAtEnd();
+
+        xlong = new float[size];
+        ylat = new float[size];
+        isDepot = new boolean[size];
+        for (Node node : nodes) {
+            xlong[node.getIdx()] = node.getXlong();
+            ylat[node.getIdx()] = node.getYlat();
+            isDepot[node.getIdx()] = node.getSiteType() == SiteType.DEPOT;
+        }
+
+        int cacheSize = parameter.getLazyCoordinateMetricCacheSize();
+        if (cacheSize > 0 && size <= MAX_SIZE_FOR_CACHE) {
+            int capacity = Integer.highestOneBit(Math.min(cacheSize, 1 << 30));
+            cache = new AtomicLongArray(capacity);
+            cacheMask = capacity - 1;
+        } else {
+            cache = null;
+            cacheMask = 0;
+        }
+
+        nearestNeighbors = buildNearestNeighbors(Math.min(parameter.getNbrOfNearestNeighbors(), size - 1));
+    }
+
+    @Override
+    public float getDistance(Node src, Node dst) {
+        return getDistance(src.getIdx(), dst.getIdx());
+    }
+
+    @Override
+    public float getTime(Node src, Node dst) {
+        return getTime(src.getIdx(), dst.getIdx());
+    }
+
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst) {
+        float[] out = new float[2];
+        getDistanceAndTime(src, dst, out);
+        return out;
+    }
+
+    @Override
+    public void getDistanceAndTime(Node src, Node dst, float[] out) {
+        int srcIdx = src.getIdx();
+        int dstIdx = dst.getIdx();
+        if (isOpen(srcIdx, dstIdx)) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+
+        float distance = distance(srcIdx, dstIdx);
+        out[0] = distance;
+        out[1] = metric.getTime(distance);
+    }
+
+    public float getDistance(int srcIdx, int dstIdx) {
+        return isOpen(srcIdx, dstIdx) ? 0 : distance(srcIdx, dstIdx);
+    }
+
+    public float getTime(int srcIdx, int dstIdx) {
+        return isOpen(srcIdx, dstIdx) ? 0 : metric.getTime(distance(srcIdx, dstIdx));
+    }
+
+    /**
+     * @return indexes of the nearest nodes to the given node index in ascending order of
+     * distance or null, if no nearest neighbors are kept.
+     */
+    public int[] getNearestNeighbors(int idx) {
+        return (nearestNeighbors != null) ? nearestNeighbors[idx] : null;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private boolean isOpen(int srcIdx, int dstIdx) {
+        return (openAtStart && isDepot[srcIdx] && !isDepot[dstIdx]) ||
+                (openAtEnd && !isDepot[srcIdx] && isDepot[dstIdx]);
+    }
+
+    private float distance(int srcIdx, int dstIdx) {
+        if (cache == null)
+            return calc(srcIdx, dstIdx);
+
+        // Coordinate metrics are symmetric, so A-B and B-A share one cache entry
+        long key = (long) Math.max(srcIdx, dstIdx) * size + Math.min(srcIdx, dstIdx) + 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & cacheMask;
+
+        long entry = cache.getOpaque(slot);
+        if ((entry >>> 32) == key)
+            return Float.intBitsToFloat((int) entry);
+
+        float distance = calc(srcIdx, dstIdx);
+        cache.setOpaque(slot, (key << 32) | (Float.floatToRawIntBits(distance) & 0xFFFFFFFFL));
+
+        return distance;
+    }
+
+    private float calc(int srcIdx, int dstIdx) {
+        return metric.getDistance(xlong[srcIdx], ylat[srcIdx], xlong[dstIdx], ylat[dstIdx]);
+    }
+
+    /**
+     * For each node the k nearest other nodes are selected (see NearestNeighbors).
+     */
+    private int[][] buildNearestNeighbors(int k) {
+        if (k <= 0)
+            return null;
+
+        int[][] neighbors = new int[size][];
+        IntStream.range(0, size).parallel().forEach(i -> {
+            float[] rowDist = new float[size];
+            float[] rowTime = new float[size];
+            metric.fillRow(xlong[i], ylat[i], xlong, ylat, rowDist, rowTime);
+
+            neighbors[i] = NearestNeighbors.select(rowDist, i, k, null);
+        });
+
+        return neighbors;
+    }
+}
@@ -0,0 +1,60 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.metric.InternalMetric;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Optimization metric on top of a lazy internal metric. Fix costs and
+ * sequence position presets are applied on demand with the same rules as
+ * in the MetricTransformationPipeline.
+ *
+ * @author hschneid
+ */
+public class LazyOptMetric implements InternalMetric {
+
+    private final InternalMetric metric;
+    private final boolean[] isDepot;
+    private final float fixCost;
+    private final int[] followers;
+    private final int[] ancestors;
+
+    LazyOptMetric(InternalMetric metric, Node[] nodes, float fixCost, int[] followers, int[] ancestors) {
+        this.metric = metric;
+        this.fixCost = fixCost;
+        this.followers = followers;
+        this.ancestors = ancestors;
+
+        isDepot = new boolean[nodes.length];
+        for (Node node : nodes)
+            isDepot[node.getIdx()] = node.getSiteType() == SiteType.DEPOT;
+    }
+
+    @Override
+    public float getDistance(Node src, Node dst) {
+        int sIdx = src.getIdx();
+        int dIdx = dst.getIdx();
+        return MetricTransformationPipeline.getOptDistance(
+                metric.getDistance(src, dst),
+                isDepot[sIdx], isDepot[dIdx], fixCost,
+                followers, ancestors, sIdx, dIdx
+        );
+    }
+
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst) {
+        throw new UnsupportedOperationException("Method cannot be used.");
+    }
+
+    @Override
+    public float getTime(Node src, Node dst) {
+        throw new UnsupportedOperationException("Method cannot be used.");
+    }
+}
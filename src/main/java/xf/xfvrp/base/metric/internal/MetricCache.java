@@ -0,0 +1,183 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.metric.CoordinateMetric;
+import xf.xfvrp.base.metric.InternalMetric;
+import xf.xfvrp.base.metric.Metric;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Caches the transformed user metric for all nodes of a planning run.
+ * <p>
+ * The mixed fleet heuristics plan the same or shrinking node sets several times,
+ * once per vehicle type or vehicle instance. Instead of transforming the user metric
+ * for each planning again, the full matrix is built once per vehicle metric id. Each
+ * model then gets an index-remapped view on the sub-matrix of its nodes.
+ * <p>
+ * As all metrics of this library, the cache assumes that distances and times only
+ * depend on the vehicle metric id of a vehicle. Nodes are identified by their
+ * global index.
+ * <p>
+ * The cache is a metric itself and delegates to the user metric. So it can be
+ * handed through the mixed fleet heuristics instead of the user metric.
+ * <p>
+ * For symmetric user metrics only the lower triangle of the matrices is read and stored.
+ *
+ * @author hschneid
+ */
+public class MetricCache implements Metric {
+
+    private final Metric metric;
+    private final Node[] nodes;
+    private final int[] positionByGlobalIdx;
+    private final boolean symmetric;
+    private final Map<Integer, AcceleratedMetric> matrices = new HashMap<>();
+
+    /**
+     * @param metric User defined metric
+     * @param nodes  All nodes of a planning run
+     */
+    public MetricCache(Metric metric, Node[] nodes) {
+        this(metric, nodes, metric instanceof CoordinateMetric);
+    }
+
+    /**
+     * @param metric    User defined metric
+     * @param nodes     All nodes of a planning run
+     * @param symmetric If true, the user metric must return equal values for A to B and B to A
+     */
+    public MetricCache(Metric metric, Node[] nodes, boolean symmetric) {
+        this.metric = metric;
+        this.nodes = nodes;
+        this.symmetric = symmetric;
+
+        int maxGlobalIdx = Arrays.stream(nodes).mapToInt(Node::getGlobalIdx).max().orElse(-1);
+        positionByGlobalIdx = new int[maxGlobalIdx + 1];
+        Arrays.fill(positionByGlobalIdx, -1);
+        for (int i = 0; i < nodes.length; i++)
+            positionByGlobalIdx[nodes[i].getGlobalIdx()] = i;
+    }
+
+    /**
+     * Returns a view on the cached matrix for the given nodes. The index of
+     * the nodes must be set.
+     *
+     * @return internal metric or null, if the nodes are not covered by the cache
+     * or the user metric has missing entries.
+     */
+    public InternalMetric getInternalMetric(Node[] subset, Vehicle vehicle) {
+        int[] positions = new int[subset.length];
+        boolean isIdentity = subset.length == nodes.length;
+        for (Node node : subset) {
+            int globalIdx = node.getGlobalIdx();
+            if (node.getIdx() < 0 || node.getIdx() >= subset.length ||
+                    globalIdx < 0 || globalIdx >= positionByGlobalIdx.length ||
+                    positionByGlobalIdx[globalIdx] == -1)
+                return null;
+
+            positions[node.getIdx()] = positionByGlobalIdx[globalIdx];
+            isIdentity &= positions[node.getIdx()] == node.getIdx();
+        }
+
+        AcceleratedMetric matrix = getMatrix(vehicle);
+        if (matrix == null)
+            return null;
+
+        return (isIdentity) ? matrix : new RemappedMetric(matrix, positions);
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistance(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getDistance(Node src, Node dst, Vehicle veh) {
+        return metric.getDistance(src, dst, veh);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float getTime(Node src, Node dst, Vehicle veh) {
+        return metric.getTime(src, dst, veh);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#getDistanceAndTime(xf.xfvrp.base.Node, xf.xfvrp.base.Node, xf.xfvrp.base.Vehicle)
+     */
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) {
+        return metric.getDistanceAndTime(src, dst, veh);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see xf.xfvrp.base.metric.Metric#fillRow(xf.xfvrp.base.Node, xf.xfvrp.base.Node[], xf.xfvrp.base.Vehicle, float[], float[])
+     */
+    @Override
+    public void fillRow(Node src, Node[] dsts, Vehicle veh, float[] outDist, float[] outTime) throws XFVRPException {
+        metric.fillRow(src, dsts, veh, outDist, outTime);
+    }
+
+    private synchronized AcceleratedMetric getMatrix(Vehicle vehicle) {
+        int vehicleMetricId = vehicle.getVehicleMetricId();
+        if (!matrices.containsKey(vehicleMetricId))
+            matrices.put(vehicleMetricId, buildMatrix(vehicle));
+
+        return matrices.get(vehicleMetricId);
+    }
+
+    /**
+     * @return matrix for all nodes or null, if the user metric has missing entries
+     */
+    private AcceleratedMetric buildMatrix(Vehicle vehicle) {
+        AcceleratedMetric matrix = new AcceleratedMetric(nodes.length, symmetric);
+        AtomicBoolean isComplete = new AtomicBoolean(true);
+
+        IntStream.range(0, nodes.length).parallel().forEach(i -> {
+            if (!isComplete.get())
+                return;
+
+            // Symmetric matrices only need the row up to the diagonal
+            Node[] dsts = (symmetric) ? Arrays.copyOf(nodes, i + 1) : nodes;
+            float[] dists = new float[dsts.length];
+            float[] times = new float[dsts.length];
+            try {
+                metric.fillRow(nodes[i], dsts, vehicle, dists, times);
+            } catch (XFVRPException e) {
+                isComplete.set(false);
+                return;
+            }
+
+            for (int j = 0; j < dsts.length; j++)
+                matrix.add(i, j, dists[j], times[j]);
+        });
+
+        return (isComplete.get()) ? matrix : null;
+    }
+}
@@ -0,0 +1,238 @@
+package xf.xfvrp.base.metric.internal;
+
+import util.collection.ListMap;
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.XFVRPParameter;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.metric.CoordinateMetric;
+import xf.xfvrp.base.metric.InternalMetric;
+import xf.xfvrp.base.metric.Metric;
+import xf.xfvrp.base.preset.BlockNameConverter;
+import xf.xfvrp.base.preset.BlockPositionConverter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Transforms the user defined metric into the internal metric and the
+ * optimization metric of a model in one pass.
+ * <p>
+ * For each pair of nodes the user metric is read once and
+ * - open routes: edges from depot to customer (open at start) or from customer
+ * to depot (open at end) get zero distance and time (internal metric)
+ * - fix costs: the fix cost of the vehicle is added at all edges between a depot
+ * and a non-depot (optimization metric)
+ * - sequence position presets: if node A must not be the predecessor of node B,
+ * the edge A-B gets an infinite distance (optimization metric)
+ * <p>
+ * If lazy coordinate metrics are enabled and the user metric is coordinate based,
+ * no matrix is built at all (see LazyCoordinateMetric).
+ * <p>
+ * If the user metric is a MetricCache, the values are read from the cached matrix
+ * and the cached matrix is used as internal metric, where possible.
+ * <p>
+ * If the user metric is symmetric (declared by parameter or coordinate based), the
+ * matrices store only one triangle. The internal metric stays symmetric without
+ * open routes and the optimization metric additionally without sequence position presets.
+ * <p>
+ * On demand the optimization metric is quantized into fixed-point numbers (see QuantizedOptMetric).
+ * <p>
+ * Rows of the matrices are filled in parallel on the common fork-join pool.
+ * So the user metric must allow concurrent reads, which is given for all metrics
+ * of this library.
+ *
+ * @author hschneid
+ */
+public class MetricTransformationPipeline {
+
+    private final InternalMetric internalMetric;
+    private final InternalMetric optimizationMetric;
+
+    private MetricTransformationPipeline(InternalMetric internalMetric, InternalMetric optimizationMetric) {
+        this.internalMetric = internalMetric;
+        this.optimizationMetric = optimizationMetric;
+    }
+
+    /**
+     * @param metric    The user defined metric
+     * @param nodes     Current list of nodes with set index
+     * @param vehicle   Container with the vehicle metric id and the fix cost
+     * @param parameter Parameters for open routes
+     * @return Internal metric and optimization metric for use in optimization procedures
+     */
+    public static MetricTransformationPipeline transform(Metric metric, Node[] nodes, Vehicle vehicle, XFVRPParameter parameter) throws XFVRPException {
+        Metric userMetric = (metric instanceof MetricCache) ? ((MetricCache) metric).getMetric() : metric;
+        if (parameter.isLazyCoordinateMetric() && userMetric instanceof CoordinateMetric)
+            return transformLazy((CoordinateMetric) userMetric, nodes, vehicle, parameter);
+
+        boolean openAtStart = parameter.isOpenRouteAtStart();
+        boolean openAtEnd = parameter.isOpenRouteAtEnd();
+
+        float fixCost = vehicle.getFixCost();
+        int[][] followersAndAncestors = findFollowersAndAncestors(nodes);
+        int[] followers = followersAndAncestors[0];
+        int[] ancestors = followersAndAncestors[1];
+
+        boolean isSymmetricInternal = isSymmetric(metric, parameter) && !openAtStart && !openAtEnd;
+        boolean isSymmetricOpt = isSymmetricInternal && followers == null;
+
+        // A cached matrix can be used directly as internal metric, if no open route modifications are necessary
+        InternalMetric cachedMetric = (metric instanceof MetricCache) ? ((MetricCache) metric).getInternalMetric(nodes, vehicle) : null;
+        AcceleratedMetric internalMetric = (cachedMetric == null || openAtStart || openAtEnd) ? new AcceleratedMetric(nodes.length, isSymmetricInternal) : null;
+        InternalOptMetric optMetric = new InternalOptMetric(nodes.length, isSymmetricOpt);
+
+        // Coordinate metrics calculate whole rows from primitive arrays
+        CoordinateMetric coordinateMetric = (cachedMetric == null && userMetric instanceof CoordinateMetric) ? (CoordinateMetric) userMetric : null;
+        float[] xlong = (coordinateMetric != null) ? new float[nodes.length] : null;
+        float[] ylat = (coordinateMetric != null) ? new float[nodes.length] : null;
+        if (coordinateMetric != null) {
+            for (int i = 0; i < nodes.length; i++) {
+                xlong[i] = nodes[i].getXlong();
+                ylat[i] = nodes[i].getYlat();
+            }
+        }
+
+        IntStream.range(0, nodes.length).parallel().forEach(i -> {
+            Node src = nodes[i];
+            int sIdx = src.getIdx();
+            boolean srcIsDepot = src.getSiteType() == SiteType.DEPOT;
+            float[] dists = new float[nodes.length];
+            float[] times = new float[nodes.length];
+
+            if (cachedMetric != null) {
+                float[] v = new float[2];
+                for (int j = 0; j < nodes.length; j++) {
+                    cachedMetric.getDistanceAndTime(src, nodes[j], v);
+                    dists[j] = v[0];
+                    times[j] = v[1];
+                }
+            } else if (coordinateMetric != null)
+                coordinateMetric.fillRow(xlong[i], ylat[i], xlong, ylat, dists, times);
+            else
+                metric.fillRow(src, nodes, vehicle, dists, times);
+
+            for (int j = 0; j < nodes.length; j++) {
+                Node dst = nodes[j];
+                int dIdx = dst.getIdx();
+                boolean dstIsDepot = dst.getSiteType() == SiteType.DEPOT;
+
+                float dist = dists[j];
+                float time = times[j];
+                if ((openAtStart && srcIsDepot && !dstIsDepot) || (openAtEnd && !srcIsDepot && dstIsDepot)) {
+                    dist = 0;
+                    time = 0;
+                }
+                // Symmetric matrices get each pair only once
+                if (internalMetric != null && (!isSymmetricInternal || dIdx <= sIdx))
+                    internalMetric.add(sIdx, dIdx, dist, time);
+                if (!isSymmetricOpt || dIdx <= sIdx)
+                    optMetric.setDistance(sIdx, dIdx, getOptDistance(dist, srcIsDepot, dstIsDepot, fixCost, followers, ancestors, sIdx, dIdx));
+            }
+        });
+
+        return new MetricTransformationPipeline(
+                (internalMetric != null) ? internalMetric : cachedMetric,
+                QuantizedOptMetric.quantize(optMetric, parameter.getOptimizationMetricPrecision(), parameter.getOptimizationMetricScale())
+        );
+    }
+
+    /**
+     * No matrix is built. Distances are calculated on demand from coordinates.
+     */
+    private static MetricTransformationPipeline transformLazy(CoordinateMetric metric, Node[] nodes, Vehicle vehicle, XFVRPParameter parameter) {
+        LazyCoordinateMetric internalMetric = new LazyCoordinateMetric(metric, nodes, parameter);
+        int[][] followersAndAncestors = findFollowersAndAncestors(nodes);
+
+        return new MetricTransformationPipeline(
+                internalMetric,
+                new LazyOptMetric(internalMetric, nodes, vehicle.getFixCost(), followersAndAncestors[0], followersAndAncestors[1])
+        );
+    }
+
+    /**
+     * @return true, if the user metric is declared as symmetric or is coordinate based
+     */
+    public static boolean isSymmetric(Metric metric, XFVRPParameter parameter) {
+        if (metric instanceof MetricCache)
+            return ((MetricCache) metric).isSymmetric();
+
+        return parameter.isSymmetricMetric() || metric instanceof CoordinateMetric;
+    }
+
+    /**
+     * Distance for optimization: fix costs are added at all edges between a depot and a
+     * non-depot and edges, which violate a sequence position preset, get an infinite distance.
+     */
+    static float getOptDistance(float dist, boolean srcIsDepot, boolean dstIsDepot, float fixCost, int[] followers, int[] ancestors, int sIdx, int dIdx) {
+        if (srcIsDepot != dstIsDepot)
+            dist += fixCost;
+        if (followers != null &&
+                ((followers[sIdx] != -1 && followers[sIdx] != dIdx) ||
+                        (ancestors[dIdx] != -1 && ancestors[dIdx] != sIdx)))
+            return Float.MAX_VALUE;
+
+        return dist;
+    }
+
+    public InternalMetric getInternalMetric() {
+        return internalMetric;
+    }
+
+    public InternalMetric getOptimizationMetric() {
+        return optimizationMetric;
+    }
+
+    /**
+     * Builds up a follower and an ancestor array for the sequence position presets:
+     * follower[i] = j means that node j is follower of i, same for ancestor.
+     *
+     * @return {followers, ancestors} or {null, null} if no node is in a preset block
+     */
+    private static int[][] findFollowersAndAncestors(Node[] nodes) {
+        if (Arrays.stream(nodes).noneMatch(node -> node.getPresetBlockIdx() > BlockNameConverter.DEFAULT_BLOCK_IDX))
+            return new int[2][];
+
+        int[] followers = new int[nodes.length];
+        int[] ancestors = new int[nodes.length];
+        Arrays.fill(followers, -1);
+        Arrays.fill(ancestors, -1);
+
+        ListMap<Integer, Integer> blockIdxMap = ListMap.create();
+        for (int i = 0; i < nodes.length; i++) {
+            if (nodes[i].getSiteType() == SiteType.DEPOT ||
+                    nodes[i].getSiteType() == SiteType.REPLENISH)
+                continue;
+
+            blockIdxMap.put(nodes[i].getPresetBlockIdx(), i);
+        }
+
+        for (int blockIdx : blockIdxMap.keySet()) {
+            // For all nodes, which are allocated to this block
+            List<Integer> nodeList = blockIdxMap.get(blockIdx);
+            nodeList.sort((o1, o2) -> nodes[o1].getPresetBlockPos() - nodes[o2].getPresetBlockPos());
+
+            for (int i = 0; i < nodeList.size(); i++) {
+                final Node node = nodes[nodeList.get(i)];
+                if (node.getPresetBlockPos() == BlockPositionConverter.UNDEF_POSITION)
+                    continue;
+
+                if (i + 1 < nodeList.size()) {
+                    followers[node.getIdx()] = nodes[nodeList.get(i + 1)].getIdx();
+                    ancestors[nodes[nodeList.get(i + 1)].getIdx()] = node.getIdx();
+                }
+            }
+        }
+
+        return new int[][]{followers, ancestors};
+    }
+}
@@ -0,0 +1,92 @@
+package xf.xfvrp.base.metric.internal;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Selection of the k nearest nodes from a row of distances by a bounded max-heap.
+ * Ties are broken by the node index, so the lists are deterministic.
+ *
+ * @author hschneid
+ */
+final class NearestNeighbors {
+
+    private NearestNeighbors() {
+    }
+
+    /**
+     * @param rowDist   rowDist[j] = distance from the node to node j
+     * @param self      Index of the node itself, which is never selected
+     * @param k         Max number of selected nodes
+     * @param isAllowed isAllowed[j] = node j may be selected (null = all nodes)
+     * @return indexes of the nearest nodes in ascending order of distance
+     */
+    static int[] select(float[] rowDist, int self, int k, boolean[] isAllowed) {
+        float[] heapDist = new float[k];
+        int[] heapIdx = new int[k];
+        int heapSize = 0;
+
+        for (int j = 0; j < rowDist.length; j++) {
+            if (j == self || (isAllowed != null && !isAllowed[j]))
+                continue;
+
+            float d = rowDist[j];
+            if (heapSize < k) {
+                siftUp(heapDist, heapIdx, heapSize++, d, j);
+            } else if (isBefore(d, j, heapDist[0], heapIdx[0])) {
+                siftDown(heapDist, heapIdx, heapSize, d, j);
+            }
+        }
+
+        // Extract in descending order from the max-heap
+        int[] sorted = new int[heapSize];
+        for (int pos = heapSize - 1; pos >= 0; pos--) {
+            sorted[pos] = heapIdx[0];
+            siftDown(heapDist, heapIdx, pos, heapDist[pos], heapIdx[pos]);
+        }
+
+        return sorted;
+    }
+
+    private static boolean isBefore(float d1, int idx1, float d2, int idx2) {
+        return d1 < d2 || (d1 == d2 && idx1 < idx2);
+    }
+
+    private static void siftUp(float[] heapDist, int[] heapIdx, int pos, float d, int idx) {
+        while (pos > 0) {
+            int parent = (pos - 1) >> 1;
+            if (!isBefore(heapDist[parent], heapIdx[parent], d, idx))
+                break;
+            heapDist[pos] = heapDist[parent];
+            heapIdx[pos] = heapIdx[parent];
+            pos = parent;
+        }
+        heapDist[pos] = d;
+        heapIdx[pos] = idx;
+    }
+
+    /**
+     * Replaces the root of the heap with the given entry.
+     */
+    private static void siftDown(float[] heapDist, int[] heapIdx, int heapSize, float d, int idx) {
+        int pos = 0;
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && isBefore(heapDist[child], heapIdx[child], heapDist[child + 1], heapIdx[child + 1]))
+                child++;
+            if (!isBefore(d, idx, heapDist[child], heapIdx[child]))
+                break;
+            heapDist[pos] = heapDist[child];
+            heapIdx[pos] = heapIdx[child];
+            pos = child;
+        }
+        heapDist[pos] = d;
+        heapIdx[pos] = idx;
+    }
+}
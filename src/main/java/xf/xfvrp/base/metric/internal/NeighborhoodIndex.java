@@ -0,0 +1,87 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.metric.InternalMetric;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Candidate lists for granular neighborhood searches. For each customer the k
+ * nearest other customers are kept, measured by the optimization metric. Improvement
+ * operators then only generate moves, which place a node next to one of its candidates.
+ * <p>
+ * If the internal metric is a LazyCoordinateMetric with nearest neighbor lists, these
+ * lists are reused instead of reading all n x n distances.
+ *
+ * @author hschneid
+ */
+public class NeighborhoodIndex {
+
+    public static final int DEFAULT_NBR_OF_CANDIDATES = 20;
+
+    private static final int[] NO_CANDIDATES = new int[0];
+
+    private final int[][] candidates;
+
+    private NeighborhoodIndex(int[][] candidates) {
+        this.candidates = candidates;
+    }
+
+    /**
+     * @param nodes          Nodes of a model with set index
+     * @param internalMetric Internal metric of the model
+     * @param optMetric      Optimization metric of the model
+     * @param k              Number of candidates per node (0 = DEFAULT_NBR_OF_CANDIDATES)
+     */
+    public static NeighborhoodIndex build(Node[] nodes, InternalMetric internalMetric, InternalMetric optMetric, int k) {
+        int nbrOfCandidates = (k > 0) ? k : DEFAULT_NBR_OF_CANDIDATES;
+
+        boolean[] isCustomer = new boolean[nodes.length];
+        for (Node node : nodes)
+            isCustomer[node.getIdx()] = node.getSiteType() == SiteType.CUSTOMER;
+
+        int[][] candidates = new int[nodes.length][];
+        Arrays.fill(candidates, NO_CANDIDATES);
+
+        LazyCoordinateMetric lazyMetric = (internalMetric instanceof LazyCoordinateMetric) ? (LazyCoordinateMetric) internalMetric : null;
+        if (lazyMetric != null && nodes.length > 0 && lazyMetric.getNearestNeighbors(0) != null) {
+            for (Node node : nodes)
+                if (isCustomer[node.getIdx()])
+                    candidates[node.getIdx()] = Arrays.stream(lazyMetric.getNearestNeighbors(node.getIdx()))
+                            .filter(idx -> isCustomer[idx])
+                            .limit(nbrOfCandidates)
+                            .toArray();
+        } else {
+            IntStream.range(0, nodes.length).parallel().forEach(i -> {
+                Node src = nodes[i];
+                if (!isCustomer[src.getIdx()])
+                    return;
+
+                float[] rowDist = new float[nodes.length];
+                for (Node dst : nodes)
+                    rowDist[dst.getIdx()] = optMetric.getDistance(src, dst);
+
+                candidates[src.getIdx()] = NearestNeighbors.select(rowDist, src.getIdx(), nbrOfCandidates, isCustomer);
+            });
+        }
+
+        return new NeighborhoodIndex(candidates);
+    }
+
+    /**
+     * @return indexes of the nearest customers to the node with the given index in
+     * ascending order of distance (empty for non-customers)
+     */
+    public int[] getCandidates(int idx) {
+        return candidates[idx];
+    }
+}
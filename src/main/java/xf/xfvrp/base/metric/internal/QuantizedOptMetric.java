@@ -0,0 +1,170 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+import xf.xfvrp.base.metric.InternalMetric;
+import xf.xfvrp.base.metric.OptimizationMetricPrecision;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Optimization metric with fixed-point distances. A distance d is stored as
+ * round(d * scale) in a 32 bit or an unsigned 16 bit integer. The largest code
+ * stands for infinite distances (Float.MAX_VALUE), like forbidden edges of
+ * sequence position presets.
+ * <p>
+ * The matrix layout (full or symmetric) is taken from the quantized InternalOptMetric.
+ *
+ * @author hschneid
+ */
+public abstract class QuantizedOptMetric implements InternalMetric {
+
+    private final int size;
+    private final boolean symmetric;
+    private final float scale;
+    // Codes are decoded by multiplication in double, so 32 bit codes are not rounded before decoding
+    private final double inverseScale;
+    private final int infinity;
+
+    private QuantizedOptMetric(InternalOptMetric metric, float scale, int infinity) {
+        this.size = metric.getSize();
+        this.symmetric = metric.isSymmetric();
+        this.scale = scale;
+        this.inverseScale = 1.0 / scale;
+        this.infinity = infinity;
+    }
+
+    /**
+     * Quantizes the optimization metric with the given precision. If the scale is 0, the
+     * largest scale is chosen, where all finite distances fit into the value range.
+     *
+     * @return quantized metric or the given metric, if the precision is FLOAT or some distances
+     * are negative or do not fit into the value range.
+     */
+    public static InternalMetric quantize(InternalOptMetric metric, OptimizationMetricPrecision precision, float scale) throws XFVRPException {
+        if (precision == OptimizationMetricPrecision.FLOAT)
+            return metric;
+        if (scale < 0 || Float.isNaN(scale) || Float.isInfinite(scale))
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Scale of optimization metric must be a positive number (" + scale + ")");
+
+        int infinity = (precision == OptimizationMetricPrecision.INT16) ? Int16.INFINITY : Int32.INFINITY;
+
+        float[] matrix = metric.getMatrix();
+        float maxDistance = 0;
+        for (float distance : matrix) {
+            if (distance == Float.MAX_VALUE)
+                continue;
+            // Also catches NaN
+            if (!(distance >= 0))
+                return metric;
+            maxDistance = Math.max(maxDistance, distance);
+        }
+
+        if (scale == 0) {
+            scale = (maxDistance > 0) ? (float) ((infinity - 1) / (double) maxDistance) : 1;
+            while (Math.round((double) maxDistance * scale) >= infinity)
+                scale = Math.nextDown(scale);
+        }
+        if (Math.round((double) maxDistance * scale) >= infinity)
+            return metric;
+
+        return (precision == OptimizationMetricPrecision.INT16) ? new Int16(metric, scale) : new Int32(metric, scale);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see de.fhg.iml.vlog.xfvrp.base.metric.InternalMetric#getDistance(de.fhg.iml.vlog.xfvrp.base.Node, de.fhg.iml.vlog.xfvrp.base.Node)
+     */
+    @Override
+    public float getDistance(Node src, Node dst) {
+        int code = code(index(src.getIdx(), dst.getIdx()));
+        return (code == infinity) ? Float.MAX_VALUE : (float) (code * inverseScale);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see de.fhg.iml.vlog.xfvrp.base.metric.InternalMetric#getTime(de.fhg.iml.vlog.xfvrp.base.Node, de.fhg.iml.vlog.xfvrp.base.Node)
+     */
+    @Override
+    public float getTime(Node src, Node dst) {
+        throw new UnsupportedOperationException("Method cannot be used.");
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see de.fhg.iml.vlog.xfvrp.base.metric.InternalMetric#getDistanceAndTime(de.fhg.iml.vlog.xfvrp.base.Node, de.fhg.iml.vlog.xfvrp.base.Node)
+     */
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst) {
+        throw new UnsupportedOperationException("Method cannot be used.");
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    protected abstract int code(int index);
+
+    private int index(int srcIdx, int dstIdx) {
+        if (symmetric)
+            return TriangleIndex.index(srcIdx, dstIdx);
+
+        return srcIdx * size + dstIdx;
+    }
+
+    private static long encode(float distance, float scale, int infinity) {
+        return (distance == Float.MAX_VALUE) ? infinity : Math.round((double) distance * scale);
+    }
+
+    /**
+     * Unsigned 16 bit codes
+     */
+    static final class Int16 extends QuantizedOptMetric {
+
+        static final int INFINITY = Character.MAX_VALUE;
+
+        private final char[] codes;
+
+        private Int16(InternalOptMetric metric, float scale) {
+            super(metric, scale, INFINITY);
+            float[] matrix = metric.getMatrix();
+            codes = new char[matrix.length];
+            for (int i = 0; i < matrix.length; i++)
+                codes[i] = (char) encode(matrix[i], scale, INFINITY);
+        }
+
+        @Override
+        protected int code(int index) {
+            return codes[index];
+        }
+    }
+
+    /**
+     * Signed 32 bit codes
+     */
+    static final class Int32 extends QuantizedOptMetric {
+
+        static final int INFINITY = Integer.MAX_VALUE;
+
+        private final int[] codes;
+
+        private Int32(InternalOptMetric metric, float scale) {
+            super(metric, scale, INFINITY);
+            float[] matrix = metric.getMatrix();
+            codes = new int[matrix.length];
+            for (int i = 0; i < matrix.length; i++)
+                codes[i] = (int) encode(matrix[i], scale, INFINITY);
+        }
+
+        @Override
+        protected int code(int index) {
+            return codes[index];
+        }
+    }
+}
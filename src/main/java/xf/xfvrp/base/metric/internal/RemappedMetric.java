@@ -0,0 +1,54 @@
+package xf.xfvrp.base.metric.internal;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.metric.InternalMetric;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * View on a sub-matrix of a bigger accelerated metric. The index of a node
+ * in the current model is mapped to its position in the bigger matrix.
+ *
+ * @author hschneid
+ */
+class RemappedMetric implements InternalMetric {
+
+    private final AcceleratedMetric base;
+    private final int[] positions;
+
+    /**
+     * @param base      Matrix of all nodes
+     * @param positions positions[idx of node] = position of node in base
+     */
+    RemappedMetric(AcceleratedMetric base, int[] positions) {
+        this.base = base;
+        this.positions = positions;
+    }
+
+    @Override
+    public float getDistance(Node src, Node dst) {
+        return base.getDistance(positions[src.getIdx()], positions[dst.getIdx()]);
+    }
+
+    @Override
+    public float getTime(Node src, Node dst) {
+        return base.getTime(positions[src.getIdx()], positions[dst.getIdx()]);
+    }
+
+    @Override
+    public float[] getDistanceAndTime(Node src, Node dst) {
+        float[] out = new float[2];
+        getDistanceAndTime(src, dst, out);
+        return out;
+    }
+
+    @Override
+    public void getDistanceAndTime(Node src, Node dst, float[] out) {
+        base.getDistanceAndTime(positions[src.getIdx()], positions[dst.getIdx()], out);
+    }
+}
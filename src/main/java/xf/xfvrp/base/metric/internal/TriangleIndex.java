@@ -0,0 +1,37 @@
+package xf.xfvrp.base.metric.internal;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Index arithmetic for symmetric matrices, where only the lower triangle
+ * (including the diagonal) is stored row by row in a flat array.
+ *
+ * @author hschneid
+ */
+final class TriangleIndex {
+
+    private TriangleIndex() {
+    }
+
+    /**
+     * Position of (a, b) and (b, a). Math.min/max are compiled to conditional moves,
+     * so there is no branch in the lookup.
+     */
+    static int index(int a, int b) {
+        int hi = Math.max(a, b);
+        int lo = Math.min(a, b);
+        return ((hi * (hi + 1)) >>> 1) + lo;
+    }
+
+    /**
+     * @return number of entries of a symmetric matrix with the given size
+     */
+    static int length(int size) {
+        return (int) (((long) size * (size + 1)) >>> 1);
+    }
+}
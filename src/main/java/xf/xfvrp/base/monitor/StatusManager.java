@@ -1,5 +1,7 @@
 package xf.xfvrp.base.monitor;
 
+import xf.xfvrp.base.quality.PenaltyStatistics;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +24,9 @@ public class StatusManager {
 	private final List<StatusMonitor> observerList = new ArrayList<>();
 	
 	private long startTime = 0;
+
+	/* Counted penalties of the evaluations of the current planning run */
+	private final PenaltyStatistics penaltyStatistics = new PenaltyStatistics();
 	
 	public void addObserver(StatusMonitor mon) {
 		observerList.add(mon);
@@ -47,6 +52,10 @@ public class StatusManager {
 		return (long)((System.currentTimeMillis() - startTime) / 1000f);
 	}
 
+	public PenaltyStatistics getPenaltyStatistics() {
+		return penaltyStatistics;
+	}
+
 	/**
 	 * Removes all accounted observers
 	 */
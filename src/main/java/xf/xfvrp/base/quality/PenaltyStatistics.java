@@ -0,0 +1,121 @@
+package xf.xfvrp.base.quality;
+
+import xf.xfvrp.base.Quality;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ *
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ *
+ * Counts the penalties of the evaluated routes per penalty reason (see Quality.PENALTY_REASON_*)
+ * over a planning run. For each reason the number of penalties and the sum of the penalty
+ * values are counted. This shows, which restriction rejects the most solutions.
+ *
+ * The statistics can be filled by several threads at the same time.
+ *
+ * @author hschneid
+ *
+ */
+public class PenaltyStatistics {
+
+	private static final float DECIMAL_CORRECTOR = 1000;
+
+	private static final String[] REASON_NAMES = reasonNames();
+
+	private final LongAdder[] counts = new LongAdder[Quality.NBR_OF_PENALTY_REASONS];
+	// Sum of penalties in the same fixed point precision as in Quality
+	private final LongAdder[] sums = new LongAdder[Quality.NBR_OF_PENALTY_REASONS];
+
+	public PenaltyStatistics() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+			sums[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @return copy of the current counts, which is not changed by further penalties
+	 */
+	public PenaltyStatistics copy() {
+		PenaltyStatistics copy = new PenaltyStatistics();
+		for (int i = 0; i < counts.length; i++) {
+			copy.counts[i].add(counts[i].sum());
+			copy.sums[i].add(sums[i].sum());
+		}
+
+		return copy;
+	}
+
+	/**
+	 * Counts a penalty, if it is not zero.
+	 */
+	public void add(float penalty, int reason) {
+		if(penalty == 0)
+			return;
+
+		counts[reason].increment();
+		sums[reason].add((int)(penalty * DECIMAL_CORRECTOR));
+	}
+
+	/**
+	 * @return number of penalties with the given reason
+	 */
+	public long getCount(int reason) {
+		return counts[reason].sum();
+	}
+
+	/**
+	 * @return sum of all penalties with the given reason
+	 */
+	public float getPenalty(int reason) {
+		return sums[reason].sum() / DECIMAL_CORRECTOR;
+	}
+
+	/**
+	 * Removes all counted penalties for a new planning run
+	 */
+	public void clear() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i].reset();
+			sums[i].reset();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < counts.length; i++) {
+			long count = getCount(i);
+			if(count == 0)
+				continue;
+
+			if(sb.length() > 0)
+				sb.append(", ");
+			sb.append(REASON_NAMES[i]).append("=").append(count).append(" (").append(getPenalty(i)).append(")");
+		}
+
+		return sb.toString();
+	}
+
+	private static String[] reasonNames() {
+		String[] names = new String[Quality.NBR_OF_PENALTY_REASONS];
+		Arrays.fill(names, "unused");
+		names[Quality.PENALTY_REASON_CAPACITY] = "capacity";
+		names[Quality.PENALTY_REASON_PRESETTING] = "presetting";
+		names[Quality.PENALTY_REASON_DURATION] = "duration";
+		names[Quality.PENALTY_REASON_BLACKLIST] = "blacklist";
+		names[Quality.PENALTY_REASON_DELAY] = "delay";
+		names[Quality.PENALTY_REASON_STOPCOUNT] = "stopcount";
+
+		return names;
+	}
+}
@@ -0,0 +1,188 @@
+package xf.xfvrp.opt;
+
+import xf.xfvrp.base.Node;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Logs the changes of the routes of a solution, so that a tried change can be reverted
+ * without keeping copies of the whole routes.
+ * <p>
+ * A route can be changed in place in a logged range of positions. On revert only the
+ * logged ranges are restored. Routes with a new length get an array of the pool, which
+ * holds the arrays of reverted changes per length.
+ * <p>
+ * Route arrays may be shared with other solutions (i.e. blocks of the splitter), so only
+ * arrays, which are created for this solution, are changed in place. Any other route is
+ * copied on its first change.
+ *
+ * @author hschneid
+ */
+class RouteUndoLog {
+
+    private static final int RANGE = 0;
+    private static final int ARRAY = 1;
+
+    // Arrays, which are created for this solution and not shared with others
+    private final Set<Node[]> ownedRoutes = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Pool of unused route arrays per length
+    private final List<ArrayDeque<Node[]>> pool = new ArrayList<>();
+
+    private int[] entryType = new int[8];
+    private int[] entryRouteIdx = new int[8];
+    private int[] entryStart = new int[8];
+    private int[] entryLength = new int[8];
+    private int[] entryOffset = new int[8];
+    private Node[][] entryRoute = new Node[8][];
+    private int nbrOfEntries = 0;
+
+    private Node[] savedNodes = new Node[64];
+    private int nbrOfSavedNodes = 0;
+
+    /**
+     * Logs the range from startPos to endPos (both inclusive) of a route and returns
+     * the route array, which can be changed in place in this range.
+     */
+    Node[] edit(Node[][] routes, int routeIdx, int startPos, int endPos) {
+        if (!ownedRoutes.contains(routes[routeIdx])) {
+            Node[] copy = take(routes[routeIdx].length);
+            System.arraycopy(routes[routeIdx], 0, copy, 0, copy.length);
+            replace(routes, routeIdx, copy);
+        }
+
+        Node[] route = routes[routeIdx];
+        int length = endPos - startPos + 1;
+        if (nbrOfSavedNodes + length > savedNodes.length)
+            savedNodes = Arrays.copyOf(savedNodes, Math.max(savedNodes.length * 2, nbrOfSavedNodes + length));
+        System.arraycopy(route, startPos, savedNodes, nbrOfSavedNodes, length);
+
+        int entry = addEntry(RANGE, routeIdx, null);
+        entryStart[entry] = startPos;
+        entryLength[entry] = length;
+        entryOffset[entry] = nbrOfSavedNodes;
+        nbrOfSavedNodes += length;
+
+        return route;
+    }
+
+    /**
+     * Replaces a route with an unused array of the given length, which must be filled completely
+     * by the caller. The replaced route is logged.
+     */
+    Node[] resize(Node[][] routes, int routeIdx, int length) {
+        Node[] route = take(length);
+        replace(routes, routeIdx, route);
+
+        return route;
+    }
+
+    /**
+     * Logs the current array of a route, which is replaced afterwards by the caller.
+     */
+    void log(Node[][] routes, int routeIdx) {
+        addEntry(ARRAY, routeIdx, routes[routeIdx]);
+    }
+
+    /**
+     * Marks the arrays of a copied solution as owned by this log.
+     */
+    void own(Node[][] routes) {
+        ownedRoutes.addAll(Arrays.asList(routes));
+    }
+
+    /**
+     * Keeps all logged changes. The indices of the routes, which are changed in place, are
+     * given to the consumer.
+     */
+    void commit(Node[][] routes, IntConsumer changedInPlace) {
+        for (int i = 0; i < nbrOfEntries; i++) {
+            if (entryType[i] == RANGE)
+                changedInPlace.accept(entryRouteIdx[i]);
+            else if (entryRoute[i] != routes[entryRouteIdx[i]])
+                // Replaced arrays may be still known by caches of the solution, so they are not reused
+                ownedRoutes.remove(entryRoute[i]);
+        }
+
+        clear();
+    }
+
+    /**
+     * Reverts all logged changes in reverse order.
+     */
+    void revert(Node[][] routes) {
+        for (int i = nbrOfEntries - 1; i >= 0; i--) {
+            int routeIdx = entryRouteIdx[i];
+            if (entryType[i] == RANGE) {
+                System.arraycopy(savedNodes, entryOffset[i], routes[routeIdx], entryStart[i], entryLength[i]);
+                continue;
+            }
+
+            Node[] route = routes[routeIdx];
+            if (route != entryRoute[i] && ownedRoutes.remove(route))
+                pool(route);
+            routes[routeIdx] = entryRoute[i];
+        }
+
+        clear();
+    }
+
+    private void replace(Node[][] routes, int routeIdx, Node[] route) {
+        log(routes, routeIdx);
+        routes[routeIdx] = route;
+        ownedRoutes.add(route);
+    }
+
+    private Node[] take(int length) {
+        if (length < pool.size() && !pool.get(length).isEmpty())
+            return pool.get(length).pop();
+
+        return new Node[length];
+    }
+
+    private void pool(Node[] route) {
+        while (pool.size() <= route.length)
+            pool.add(new ArrayDeque<>());
+
+        pool.get(route.length).push(route);
+    }
+
+    private int addEntry(int type, int routeIdx, Node[] route) {
+        if (nbrOfEntries == entryType.length) {
+            int capacity = entryType.length * 2;
+            entryType = Arrays.copyOf(entryType, capacity);
+            entryRouteIdx = Arrays.copyOf(entryRouteIdx, capacity);
+            entryStart = Arrays.copyOf(entryStart, capacity);
+            entryLength = Arrays.copyOf(entryLength, capacity);
+            entryOffset = Arrays.copyOf(entryOffset, capacity);
+            entryRoute = Arrays.copyOf(entryRoute, capacity);
+        }
+
+        int entry = nbrOfEntries++;
+        entryType[entry] = type;
+        entryRouteIdx[entry] = routeIdx;
+        entryRoute[entry] = route;
+
+        return entry;
+    }
+
+    private void clear() {
+        Arrays.fill(entryRoute, 0, nbrOfEntries, null);
+        Arrays.fill(savedNodes, 0, nbrOfSavedNodes, null);
+        nbrOfEntries = 0;
+        nbrOfSavedNodes = 0;
+    }
+}
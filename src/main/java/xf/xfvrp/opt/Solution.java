@@ -5,6 +5,7 @@ import xf.xfvrp.base.Quality;
 import xf.xfvrp.base.SiteType;
 import xf.xfvrp.base.XFVRPModel;
 import xf.xfvrp.base.quality.RouteQuality;
+import xf.xfvrp.opt.evaluation.RouteSegmentSummaries;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,6 +33,11 @@ public class Solution implements Iterable<Node[]> {
     private int[] nbrRoutesOfDepot = new int[0];
     // Route -> is more then allowed number of routes for this depot
     private boolean[] isOverhang = new boolean[1];
+    // Load and time slack of route segments, which are updated for replaced routes
+    private RouteSegmentSummaries segmentSummaries;
+    private boolean isSegmentSummariesChecked = false;
+    // Changes of routes, which can be reverted
+    private final RouteUndoLog undoLog = new RouteUndoLog();
 
     public Solution(XFVRPModel model) {
         this.model = model;
@@ -65,6 +71,19 @@ public class Solution implements Iterable<Node[]> {
         return isOverhang;
     }
 
+    /**
+     * @return summaries of the route segments or null, if they are not applicable for the model
+     */
+    public RouteSegmentSummaries getSegmentSummaries() {
+        if (!isSegmentSummariesChecked) {
+            isSegmentSummariesChecked = true;
+            if (model != null && RouteSegmentSummaries.isApplicable(model))
+                segmentSummaries = new RouteSegmentSummaries(model);
+        }
+
+        return segmentSummaries;
+    }
+
     public void deleteRoute(int routeIndex) {
         // Reduce number of routes per depot
         nbrRoutesOfDepot[routes[routeIndex][0].getIdx()]--;
@@ -111,6 +130,48 @@ public class Solution implements Iterable<Node[]> {
         routes[routeIndex] = route;
     }
 
+    /**
+     * Returns the array of a route, which can be changed in place from startPos to endPos (both inclusive).
+     * The nodes in this range are logged and restored by undoRouteChanges.
+     */
+    public Node[] editRoute(int routeIndex, int startPos, int endPos) {
+        return undoLog.edit(routes, routeIndex, startPos, endPos);
+    }
+
+    /**
+     * Replaces a route with an array of the given length, which must be filled completely.
+     * The replaced route is logged and restored by undoRouteChanges.
+     */
+    public Node[] resizeRoute(int routeIndex, int length) {
+        return undoLog.resize(routes, routeIndex, length);
+    }
+
+    /**
+     * Logs the current array of a route, before it is replaced with setRoute. The logged
+     * array is restored by undoRouteChanges.
+     */
+    public void logRoute(int routeIndex) {
+        undoLog.log(routes, routeIndex);
+    }
+
+    /**
+     * Keeps all logged changes of routes.
+     */
+    public void commitRouteChanges() {
+        undoLog.commit(routes, routeIdx -> {
+            // Summaries are only updated for replaced arrays
+            if (segmentSummaries != null)
+                segmentSummaries.invalidate(routeIdx);
+        });
+    }
+
+    /**
+     * Reverts all logged changes of routes since the last commit.
+     */
+    public void undoRouteChanges() {
+        undoLog.revert(routes);
+    }
+
     /**
      * Updates the quality of a certain route.
      * <p>
@@ -141,6 +202,7 @@ public class Solution implements Iterable<Node[]> {
         for (int i = 0; i < routes.length; i++)
             copyRoutes[i] = Arrays.copyOf(routes[i], routes[i].length);
         solution.routes = copyRoutes;
+        solution.undoLog.own(copyRoutes);
 
         solution.routeQualities = new RouteQuality[routeQualities.length];
         for (int i = 0; i < routeQualities.length; i++)
@@ -8,6 +8,7 @@ import xf.xfvrp.opt.construct.savings.XFVRPSavings;
 import xf.xfvrp.opt.improve.XFVRPNoOpt;
 import xf.xfvrp.opt.improve.ils.XFPDPILS;
 import xf.xfvrp.opt.improve.ils.XFVRPILS;
+import xf.xfvrp.opt.improve.intraroute.XFVRPIntraRouteOpt;
 import xf.xfvrp.opt.improve.routebased.move.XFPDPSingleMove;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPSegmentMove;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPSingleMove;
@@ -46,6 +47,9 @@ public class XFVRPOptTypes {
     public static XFVRPOptType PATH_EXCHANGE = new XFVRPOptType(XFVRPSegmentExchange.class);
     public static XFVRPOptType BORDER_PATH_EXCHANGE = new XFVRPOptType(XFVRPBorderSegmentExchange.class);
 
+    // Improvement heuristics - Sequence of nodes in each route
+    public static XFVRPOptType INTRA_ROUTE = new XFVRPOptType(XFVRPIntraRouteOpt.class);
+
     // Iterated local search
     public static XFVRPOptType ILS = new XFVRPOptType(XFVRPILS.class);
 
@@ -22,7 +22,14 @@ public class ActiveNodeAnalyzer {
      * @return list of active (true) or disabled (false) nodes in giant route
      */
     public static Node[] getActiveNodes(Node[] route) {
-        boolean[] activeFlags = new boolean[route.length];
+        return getActiveNodes(route, new boolean[route.length]);
+    }
+
+    /**
+     * Same as getActiveNodes(route), where the flags are written into the given array, which
+     * must not be shorter than the route. If all nodes are active, the route itself is returned.
+     */
+    public static Node[] getActiveNodes(Node[] route, boolean[] activeFlags) {
         if (route.length == 0)
             return new Node[0];
         if (route.length == 2 && route[0].getSiteType() == DEPOT && route[1].getSiteType() == DEPOT)
@@ -32,7 +39,7 @@ public class ActiveNodeAnalyzer {
         Node lastNode = route[lastNodeIdx];
         activeFlags[0] = true;
         int nbrOfInactiveNodes = 0;
-        for (int i = 1; i < activeFlags.length; i++) {
+        for (int i = 1; i < route.length; i++) {
             activeFlags[i] = true;
 
             Node currNode = route[i];
@@ -65,6 +72,9 @@ public class ActiveNodeAnalyzer {
         activeFlags[0] = true;
 
 
+        if (nbrOfInactiveNodes == 0)
+            return route;
+
         return extract(route, activeFlags, nbrOfInactiveNodes);
     }
 
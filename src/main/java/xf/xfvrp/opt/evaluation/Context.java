@@ -7,7 +7,6 @@ import xf.xfvrp.base.exception.XFVRPExceptionType;
 import xf.xfvrp.base.preset.BlockNameConverter;
 
 import java.util.Arrays;
-import java.util.Map;
 
 /**
  * Copyright (c) 2012-2026 Holger Schneider
@@ -36,14 +35,19 @@ public class Context {
     private int[] availablePresetCountArr;
     private int[] foundPresetCountArr;
     private int[] lastPresetSequenceRankArr;
-    private boolean[] presetRoutingBlackList;
-    private boolean[] presetRoutingNodeList;
+    // Global node index -> stamp of the route, where the node is black listed or visited. Null, if no node has a black list.
+    private int[] presetRoutingBlackList;
+    private int[] presetRoutingNodeList;
+    private int presetRoutingStamp = 0;
+    private boolean isPresetRoutingViolated = false;
     // Pre-evaluated infos of a route (service times and amounts)
-    private Map<Node, RouteInfo[]> routeInfos;
+    private RouteInfoTable routeInfos;
     private Node currentDepot;
     private Node currentNode;
     private Node lastNode;
-    private float[] lastDrivenDistance;
+    private final float[] lastDrivenDistance = new float[2];
+    // Delivery amounts of the current route, which are preloaded at depot
+    private float[] deliveryOfRoute = new float[0];
 
     public Context(XFVRPModel model) {
         this.model = model;
@@ -51,6 +55,29 @@ public class Context {
         routeVar[ROUTE_IDX] = -1;
     }
 
+    /**
+     * Resets all variables to the state after building, so that the context
+     * can be reused for the next evaluation of the same model.
+     */
+    public void reset() {
+        Arrays.fill(routeVar, 0);
+        routeVar[ROUTE_IDX] = -1;
+
+        for (int i = amountsOfRoute.length - 1; i >= 0; i--)
+            amountsOfRoute[i].clear();
+        Arrays.fill(blockPresetArr, -1);
+        Arrays.fill(foundPresetCountArr, 0);
+        Arrays.fill(lastPresetSequenceRankArr, 0);
+        resetPresetRouting();
+
+        routeInfos = null;
+        currentDepot = null;
+        currentNode = null;
+        lastNode = null;
+        lastDrivenDistance[0] = 0;
+        lastDrivenDistance[1] = 0;
+    }
+
     public void setNextNode(Node newCurrentNode) {
         this.lastNode = this.currentNode;
         this.currentNode = newCurrentNode;
@@ -60,8 +87,18 @@ public class Context {
         return this.currentNode.getTimeWindow(routeVar[TIME]);
     }
 
+    /**
+     * Drives from last node to current node. Distance and time are read
+     * into a reusable record, so no array is allocated per driven edge.
+     */
+    public void drive() {
+        model.getDistanceAndTime(lastNode, currentNode, lastDrivenDistance);
+        drive(lastDrivenDistance);
+    }
+
     public void drive(float[] distance) {
-        this.lastDrivenDistance = distance;
+        lastDrivenDistance[0] = distance[0];
+        lastDrivenDistance[1] = distance[1];
 
         routeVar[LENGTH] += distance[0];
         routeVar[TIME] += distance[1];
@@ -98,8 +135,23 @@ public class Context {
         routeVar[DELAY] = 0;
 
         lastPresetSequenceRankArr[BlockNameConverter.DEFAULT_BLOCK_IDX] = Integer.MIN_VALUE;
-        Arrays.fill(presetRoutingBlackList, false);
-        Arrays.fill(presetRoutingNodeList, false);
+        resetPresetRouting();
+    }
+
+    /**
+     * Forgets all black listed and visited nodes by a new stamp.
+     */
+    private void resetPresetRouting() {
+        isPresetRoutingViolated = false;
+        if (presetRoutingBlackList == null)
+            return;
+
+        presetRoutingStamp++;
+        if (presetRoutingStamp == Integer.MAX_VALUE) {
+            Arrays.fill(presetRoutingBlackList, 0);
+            Arrays.fill(presetRoutingNodeList, 0);
+            presetRoutingStamp = 1;
+        }
     }
 
     public void setDepartureTimeAtDepot(float earliestDepartureTime, float loadingTimeAtDepot) {
@@ -127,15 +179,27 @@ public class Context {
             }
 
             // Init delivery amount on the route
-            if (!routeInfos.containsKey(currentNode))
+            if (!routeInfos.contains(currentNode))
                 throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Could not find route infos for depot id " + currentNode.getDepotId());
 
-            // The Compartment object searches itself for correct value from deliveryOfRoute.getAmounts()
-            Amount deliveryOfRoute = Amount.ofDelivery(routeInfos.get(currentNode));
-            amountsOfRoute[compartmentIdx].addAmount(deliveryOfRoute.getAmounts(), LoadType.PRELOAD_AT_DEPOT);
+            // The Compartment object searches itself for correct value from deliveryOfRoute
+            amountsOfRoute[compartmentIdx].addAmount(getDeliveryOfRoute(routeInfos.get(currentNode)), LoadType.PRELOAD_AT_DEPOT);
         }
     }
 
+    /**
+     * Same as Amount.ofDelivery, where the amounts are written into a reused array.
+     */
+    private float[] getDeliveryOfRoute(RouteInfo[] infos) {
+        if (deliveryOfRoute.length != infos.length)
+            deliveryOfRoute = new float[infos.length];
+
+        for (int i = 0; i < infos.length; i++)
+            deliveryOfRoute[i] = (infos[i] != null) ? infos[i].getDeliveryAmount() : 0;
+
+        return deliveryOfRoute;
+    }
+
     public float getLoadingServiceTimeAtDepot() {
         float maxServiceTime = 0;
         for (int compartmentIdx = 0; compartmentIdx < amountsOfRoute.length; compartmentIdx++) {
@@ -200,16 +264,17 @@ public class Context {
         this.lastPresetSequenceRankArr = lastPresetSequenceRankArr;
     }
 
-    public void setPresetRoutingBlackList(boolean[] presetRoutingBlackList) {
+    /**
+     * Sets the arrays for the black list check with one entry per global node index. If no node
+     * of the model has a black list, the arrays are null and the check is skipped.
+     */
+    public void setPresetRoutingArr(int[] presetRoutingBlackList, int[] presetRoutingNodeList) {
         this.presetRoutingBlackList = presetRoutingBlackList;
-    }
-
-    public void setPresetRoutingNodeList(boolean[] presetRoutingNodeList) {
         this.presetRoutingNodeList = presetRoutingNodeList;
     }
 
-    public void setRouteInfos(Map<Node, RouteInfo[]> routeDepotServiceMap) {
-        this.routeInfos = routeDepotServiceMap;
+    public void setRouteInfos(RouteInfoTable routeInfos) {
+        this.routeInfos = routeInfos;
     }
 
     public void setCurrentDepot(Node newDepot) {
@@ -273,14 +338,21 @@ public class Context {
         return penalty;
     }
 
+    /**
+     * Marks the black listed nodes of the current customer and the customer itself. A violation
+     * is found, if a marked node was marked in the other way before on this route.
+     */
     public void setPresetRouting() {
-        if (currentNode.getSiteType() == SiteType.CUSTOMER) {
-            int[] routingBlackList = currentNode.getPresetRoutingBlackList();
-            for (int i = routingBlackList.length - 1; i >= 0; i--) {
-                presetRoutingBlackList[routingBlackList[i]] = true;
-            }
-            presetRoutingNodeList[currentNode.getGlobalIdx()] = true;
+        if (presetRoutingBlackList == null || currentNode.getSiteType() != SiteType.CUSTOMER)
+            return;
+
+        int[] routingBlackList = currentNode.getPresetRoutingBlackList();
+        for (int i = routingBlackList.length - 1; i >= 0; i--) {
+            presetRoutingBlackList[routingBlackList[i]] = presetRoutingStamp;
+            isPresetRoutingViolated |= presetRoutingNodeList[routingBlackList[i]] == presetRoutingStamp;
         }
+        presetRoutingNodeList[currentNode.getGlobalIdx()] = presetRoutingStamp;
+        isPresetRoutingViolated |= presetRoutingBlackList[currentNode.getGlobalIdx()] == presetRoutingStamp;
     }
 
     public int checkPresetPosition() {
@@ -323,13 +395,7 @@ public class Context {
     }
 
     public int checkPresetBlackList() {
-        for (int j = 0; j < presetRoutingBlackList.length; j++) {
-            if (presetRoutingBlackList[j] & presetRoutingNodeList[j]) {
-                return 1;
-            }
-        }
-
-        return 0;
+        return isPresetRoutingViolated ? 1 : 0;
     }
 
     public int checkPresetBlockCount() {
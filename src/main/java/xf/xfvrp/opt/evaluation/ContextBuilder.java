@@ -1,5 +1,6 @@
 package xf.xfvrp.opt.evaluation;
 
+import xf.xfvrp.base.Node;
 import xf.xfvrp.base.XFVRPModel;
 import xf.xfvrp.base.compartment.CompartmentLoadBuilder;
 
@@ -30,11 +31,20 @@ public class ContextBuilder {
         context.setAvailablePresetCountArr(model.getBlockPresetCountList());
         context.setFoundPresetCountArr(new int[model.getNbrOfBlocks()]);
         context.setLastPresetSequenceRankArr(new int[model.getNbrOfBlocks()]);
-        context.setPresetRoutingBlackList(new boolean[context.getMaxGlobalNodeIdx()]);
-        context.setPresetRoutingNodeList(new boolean[context.getMaxGlobalNodeIdx()]);
+        if (hasPresetRoutingBlackList(model))
+            context.setPresetRoutingArr(new int[context.getMaxGlobalNodeIdx()], new int[context.getMaxGlobalNodeIdx()]);
 
         return context;
     }
 
+    private boolean hasPresetRoutingBlackList(XFVRPModel model) {
+        for (Node node : model.getNodes()) {
+            if (node.getPresetRoutingBlackList().length > 0)
+                return true;
+        }
+
+        return false;
+    }
+
 
 }
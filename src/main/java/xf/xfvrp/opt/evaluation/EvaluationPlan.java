@@ -0,0 +1,102 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.preset.BlockNameConverter;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Selects the checks of the route evaluation, which can lead to a penalty or a cost
+ * for the data of a model. The plan is built once per model, so that the evaluation
+ * of a route skips all checks, which can not change the quality.
+ * <p>
+ * Times are tracked, if a time window, the waiting time or the route duration is
+ * restricted. A time window is not restricted, if it ends at the default end of
+ * Integer.MAX_VALUE or later, so routes are assumed to last not longer than this.
+ * The capacities are checked in any case.
+ *
+ * @author hschneid
+ */
+class EvaluationPlan {
+
+    private final boolean isStopCounted;
+    private final boolean isTimeChecked;
+    private final boolean isDriverShiftChecked;
+    private final boolean isPresetBlockChecked;
+    private final boolean isPresetSequenceChecked;
+    private final boolean isPresetPositionChecked;
+    private final boolean isPresetDepotChecked;
+    private final boolean isPresetBlackListChecked;
+
+    EvaluationPlan(XFVRPModel model) {
+        Vehicle vehicle = model.getVehicle();
+
+        boolean hasTimeWindow = false;
+        boolean hasPresetBlock = false;
+        boolean hasPresetSequence = false;
+        boolean hasPresetPosition = false;
+        boolean hasPresetDepot = false;
+        boolean hasPresetBlackList = false;
+        for (Node node : model.getNodes()) {
+            hasTimeWindow |= node.getNbrOfTimeWindows() > 1 || node.getTimeWindow(0)[1] < Integer.MAX_VALUE;
+            hasPresetBlock |= node.getPresetBlockIdx() > BlockNameConverter.DEFAULT_BLOCK_IDX;
+            // The last rank of a block starts at 0 or lower, so ranks of 0 are never in wrong order
+            hasPresetSequence |= node.getPresetBlockIdx() >= BlockNameConverter.DEFAULT_BLOCK_IDX && node.getPresetBlockRank() != 0;
+            hasPresetPosition |= node.getPresetBlockIdx() > BlockNameConverter.DEFAULT_BLOCK_IDX && node.getPresetBlockPos() > 1;
+            hasPresetDepot |= node.getPresetDepotList().size() > 0;
+            hasPresetBlackList |= node.getPresetRoutingBlackList().length > 0;
+        }
+
+        isStopCounted = vehicle.getMaxStopCount() < Integer.MAX_VALUE || vehicle.getFixCost() != 0;
+        isTimeChecked = hasTimeWindow || vehicle.getMaxWaitingTime() < Float.MAX_VALUE || vehicle.getMaxRouteDuration() < Float.MAX_VALUE;
+        isDriverShiftChecked = isTimeChecked && vehicle.getMaxDrivingTimePerShift() < Integer.MAX_VALUE;
+        isPresetBlockChecked = hasPresetBlock;
+        isPresetSequenceChecked = hasPresetSequence;
+        isPresetPositionChecked = hasPresetPosition;
+        isPresetDepotChecked = hasPresetDepot;
+        isPresetBlackListChecked = hasPresetBlackList;
+    }
+
+    boolean isStopCounted() {
+        return isStopCounted;
+    }
+
+    boolean isTimeChecked() {
+        return isTimeChecked;
+    }
+
+    boolean isDriverShiftChecked() {
+        return isDriverShiftChecked;
+    }
+
+    boolean isPresetBlockChecked() {
+        return isPresetBlockChecked;
+    }
+
+    boolean isPresetSequenceChecked() {
+        return isPresetSequenceChecked;
+    }
+
+    boolean isPresetPositionChecked() {
+        return isPresetPositionChecked;
+    }
+
+    boolean isPresetDepotChecked() {
+        return isPresetDepotChecked;
+    }
+
+    boolean isPresetBlackListChecked() {
+        return isPresetBlackListChecked;
+    }
+
+    boolean isPresetChecked() {
+        return isPresetBlockChecked || isPresetSequenceChecked || isPresetPositionChecked || isPresetDepotChecked || isPresetBlackListChecked;
+    }
+}
@@ -7,6 +7,11 @@ import xf.xfvrp.base.preset.BlockNameConverter;
 import xf.xfvrp.base.quality.RouteQuality;
 import xf.xfvrp.opt.Solution;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -18,6 +23,14 @@ import xf.xfvrp.opt.Solution;
  */
 public class EvaluationService {
 
+    // Workspace references of all threads, so that the workspaces of a finished model can be released.
+    // References of ended threads are removed by the garbage collector.
+    private static final Set<AtomicReference<EvaluationWorkspace>> WORKSPACE_REFS =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    // Workspace per thread for all services, which is built again, if another model is evaluated
+    private static final ThreadLocal<AtomicReference<EvaluationWorkspace>> WORKSPACES =
+            ThreadLocal.withInitial(EvaluationService::createWorkspaceRef);
+
     private final ContextBuilder contextBuilder = new ContextBuilder();
 
     /**
@@ -31,9 +44,9 @@ public class EvaluationService {
      * starting depot of a route stands also for the ending depot, in any case.
      */
     public Quality check(Solution solution) throws XFVRPException {
-        Context context = contextBuilder.build(solution.getModel());
+        EvaluationWorkspace workspace = getWorkspace(solution.getModel());
 
-        checkRoutes(solution, context);
+        checkRoutes(solution, workspace);
 
         return new Quality(solution.getQuality());
     }
@@ -44,27 +57,64 @@ public class EvaluationService {
      * Here only 2 routes are checked, which are changed by neighborhood search.
      */
     public Quality check(Solution solution, int routeIdxA, int routeIdxB) throws XFVRPException {
-        Context context = contextBuilder.build(solution.getModel());
+        EvaluationWorkspace workspace = getWorkspace(solution.getModel());
 
         solution.invalidateRouteQuality(routeIdxA);
-        checkAndUpdateRoutes(routeIdxA, solution, context);
+        checkAndUpdateRoutes(routeIdxA, solution, workspace);
         if (routeIdxA != routeIdxB) {
             solution.invalidateRouteQuality(routeIdxB);
-            checkAndUpdateRoutes(routeIdxB, solution, context);
+            checkAndUpdateRoutes(routeIdxB, solution, workspace);
         }
 
         return new Quality(solution.getQuality());
     }
 
-    private void checkRoutes(Solution solution, Context context) throws XFVRPException {
+    /**
+     * @return workspace of the current thread for the model, which is reset for a new evaluation
+     */
+    private EvaluationWorkspace getWorkspace(XFVRPModel model) {
+        AtomicReference<EvaluationWorkspace> workspaceRef = WORKSPACES.get();
+        EvaluationWorkspace workspace = workspaceRef.get();
+        if (workspace == null || workspace.getModel() != model) {
+            workspace = new EvaluationWorkspace(model, contextBuilder);
+            workspaceRef.set(workspace);
+        }
+
+        workspace.reset();
+        return workspace;
+    }
+
+    /**
+     * Releases the workspaces of all threads for the model, when the optimization
+     * of the model is finished. So threads, which live on, do not keep the model.
+     * A following evaluation of the model builds a new workspace.
+     */
+    public static void releaseWorkspaces(XFVRPModel model) {
+        synchronized (WORKSPACE_REFS) {
+            for (AtomicReference<EvaluationWorkspace> workspaceRef : WORKSPACE_REFS) {
+                EvaluationWorkspace workspace = workspaceRef.get();
+                if (workspace != null && workspace.getModel() == model)
+                    workspaceRef.compareAndSet(workspace, null);
+            }
+        }
+        WORKSPACES.remove();
+    }
+
+    private static AtomicReference<EvaluationWorkspace> createWorkspaceRef() {
+        AtomicReference<EvaluationWorkspace> workspaceRef = new AtomicReference<>();
+        WORKSPACE_REFS.add(workspaceRef);
+        return workspaceRef;
+    }
+
+    private void checkRoutes(Solution solution, EvaluationWorkspace workspace) throws XFVRPException {
         Node[][] routes = solution.getRoutes();
 
         for (int i = 0, routesLength = routes.length; i < routesLength; i++) {
-            checkAndUpdateRoutes(i, solution, context);
+            checkAndUpdateRoutes(i, solution, workspace);
         }
     }
 
-    private void checkAndUpdateRoutes(int routeIdx, Solution solution, Context context) throws XFVRPException {
+    private void checkAndUpdateRoutes(int routeIdx, Solution solution, EvaluationWorkspace workspace) throws XFVRPException {
         Node[] route = solution.getRoutes()[routeIdx];
         if (route.length == 0) {
             solution.setRouteQuality(routeIdx, new RouteQuality(-1, null));
@@ -74,16 +124,18 @@ public class EvaluationService {
         // Feasibility check
         FeasibilityAnalzer.checkFeasibility(route);
 
-        Quality routeQuality = checkRoute(routeIdx, route, context);
+        Quality routeQuality = checkRoute(routeIdx, route, workspace);
 
         solution.setRouteQuality(routeIdx, routeQuality);
     }
 
-    private Quality checkRoute(int routeIdx, Node[] route, Context context) throws XFVRPException {
+    private Quality checkRoute(int routeIdx, Node[] route, EvaluationWorkspace workspace) throws XFVRPException {
         RouteQuality q = new RouteQuality(routeIdx, null);
+        Context context = workspace.getContext();
+        EvaluationPlan plan = workspace.getPlan();
 
-        route = ActiveNodeAnalyzer.getActiveNodes(route);
-        context.setRouteInfos(RouteInfoBuilder.build(route, context));
+        route = workspace.getActiveNodes(route);
+        workspace.setRouteInfos(route);
 
         context.setCurrentNode(route[0]);
         beginRoute(route[0], findNextCustomer(route), context);
@@ -96,19 +148,23 @@ public class EvaluationService {
             drive(context);
 
             // Count each stop at different locations (distance between two locations is greater 0)
-            checkStop(context);
+            if (plan.isStopCounted())
+                checkStop(context);
 
             // Driver time restrictions for european drivers!
-            checkDriverRestrictions(context);
+            if (plan.isDriverShiftChecked())
+                checkDriverRestrictions(context);
 
             // Time window constraint for VRPTW
-            checkTimeWindow(q, context);
+            if (plan.isTimeChecked())
+                checkTimeWindow(q, context);
 
             // load or unloaded or replenish volume at vehicle
             loadAmounts(context);
 
             // Presets
-            checkPreset(q, context);
+            if (plan.isPresetChecked())
+                checkPreset(q, context, plan);
 
             // Reset of route, if next depot is reached
             if (context.getCurrentNode().getSiteType() == SiteType.DEPOT) {
@@ -117,8 +173,10 @@ public class EvaluationService {
         }
 
         // Check of block preset penalty after last node
-        int penalty = context.checkPresetBlockCount();
-        q.addPenalty(penalty, Quality.PENALTY_REASON_PRESETTING);
+        if (plan.isPresetBlockChecked()) {
+            int penalty = context.checkPresetBlockCount();
+            addPenalty(q, penalty, Quality.PENALTY_REASON_PRESETTING, context);
+        }
 
         return q;
     }
@@ -175,7 +233,7 @@ public class EvaluationService {
 
         // Check maxWaiting penalty
         if (waiting > model.getVehicle().getMaxWaitingTime())
-            q.addPenalty(1, Quality.PENALTY_REASON_DURATION);
+            addPenalty(q, 1, Quality.PENALTY_REASON_DURATION, context);
 
         float serviceTime = (context.getLastDrivenDistance()[0] == 0) ? currentNode.getServiceTime() : currentNode.getServiceTime() + currentNode.getServiceTimeForSite();
 
@@ -186,37 +244,43 @@ public class EvaluationService {
 
     /**
      * Checks for a lot of preset restrictions or prepare
-     * for later preset restriction checks.
+     * for later preset restriction checks. Only the restrictions
+     * of the plan are checked.
      */
-    private void checkPreset(Quality q, Context context) {
+    private void checkPreset(Quality q, Context context, EvaluationPlan plan) {
         Node currNode = context.getCurrentNode();
 
         int blockIndex = currNode.getPresetBlockIdx();
 
         // Only for non default blocks
-        if (blockIndex > BlockNameConverter.DEFAULT_BLOCK_IDX) {
+        if (plan.isPresetBlockChecked() && blockIndex > BlockNameConverter.DEFAULT_BLOCK_IDX) {
             int penalty = context.setAndCheckPresetBlock(blockIndex);
-            q.addPenalty(penalty, Quality.PENALTY_REASON_PRESETTING);
+            addPenalty(q, penalty, Quality.PENALTY_REASON_PRESETTING, context);
         }
 
         // Sequence rank of current node must be greater or equal than last node
-        if (blockIndex >= BlockNameConverter.DEFAULT_BLOCK_IDX) {
+        if (plan.isPresetSequenceChecked() && blockIndex >= BlockNameConverter.DEFAULT_BLOCK_IDX) {
             int penalty = context.setAndCheckPresetSequence(blockIndex);
-            q.addPenalty(penalty, Quality.PENALTY_REASON_PRESETTING);
+            addPenalty(q, penalty, Quality.PENALTY_REASON_PRESETTING, context);
         }
 
         // Set information for black listed nodes restriction (currently only for customer)
-        context.setPresetRouting();
+        if (plan.isPresetBlackListChecked())
+            context.setPresetRouting();
 
         // Check PresetPosition restriction
         // If last and current node have blocks and blocks are same then a non-default position must be in right order
-        int penalty = context.checkPresetPosition();
-        q.addPenalty(penalty, Quality.PENALTY_REASON_PRESETTING);
+        if (plan.isPresetPositionChecked()) {
+            int penalty = context.checkPresetPosition();
+            addPenalty(q, penalty, Quality.PENALTY_REASON_PRESETTING, context);
+        }
 
         // Check Preset Depot
         // If current depot is not in the preset depot list of customer
-        penalty = context.checkPresetDepot();
-        q.addPenalty(penalty, Quality.PENALTY_REASON_PRESETTING);
+        if (plan.isPresetDepotChecked()) {
+            int penalty = context.checkPresetDepot();
+            addPenalty(q, penalty, Quality.PENALTY_REASON_PRESETTING, context);
+        }
     }
 
     private void checkDriverRestrictions(Context context) {
@@ -227,9 +291,7 @@ public class EvaluationService {
     }
 
     private void drive(Context context) {
-        float[] dist = context.getModel().getDistanceAndTime(context.getLastNode(), context.getCurrentNode());
-
-        context.drive(dist);
+        context.drive();
     }
 
     private void finishRoute(Quality q, Context context) {
@@ -240,10 +302,10 @@ public class EvaluationService {
         float durationPenalty = Math.max(0, context.getDuration() - v.getMaxRouteDuration());
         float delayPenalty = context.getDelay();
 
-        q.addPenalty(capacityPenalty, Quality.PENALTY_REASON_CAPACITY);
-        q.addPenalty(stopCountPenalty, Quality.PENALTY_REASON_STOPCOUNT);
-        q.addPenalty(delayPenalty, Quality.PENALTY_REASON_DELAY);
-        q.addPenalty(durationPenalty, Quality.PENALTY_REASON_DURATION);
+        addPenalty(q, capacityPenalty, Quality.PENALTY_REASON_CAPACITY, context);
+        addPenalty(q, stopCountPenalty, Quality.PENALTY_REASON_STOPCOUNT, context);
+        addPenalty(q, delayPenalty, Quality.PENALTY_REASON_DELAY, context);
+        addPenalty(q, durationPenalty, Quality.PENALTY_REASON_DURATION, context);
 
         // Add var cost (distance)
         q.addCost(context.getLength());
@@ -255,7 +317,7 @@ public class EvaluationService {
         // Check for black listed nodes on route
         // Afterwards reset the arrays for next route
         int penalty = context.checkPresetBlackList();
-        q.addPenalty(penalty, Quality.PENALTY_REASON_BLACKLIST);
+        addPenalty(q, penalty, Quality.PENALTY_REASON_BLACKLIST, context);
     }
 
     private void beginRoute(Node newDepot, Node nextNode, Context context) throws XFVRPException {
@@ -281,4 +343,12 @@ public class EvaluationService {
         }
         return null;
     }
+
+    /**
+     * Adds the penalty to the quality and counts it in the penalty statistics of the model.
+     */
+    private void addPenalty(Quality q, float penalty, int reason, Context context) {
+        q.addPenalty(penalty, reason);
+        context.getModel().getPenaltyStatistics().add(penalty, reason);
+    }
 }
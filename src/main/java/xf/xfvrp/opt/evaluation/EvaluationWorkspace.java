@@ -0,0 +1,74 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.exception.XFVRPException;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Holds the context, the plan and all buffers of the evaluation of routes for one model. The
+ * workspace is built once and is reset before each evaluation, so that the evaluation
+ * of a route needs no new arrays or maps.
+ * <p>
+ * A workspace must not be shared between threads.
+ *
+ * @author hschneid
+ */
+class EvaluationWorkspace {
+
+    private final XFVRPModel model;
+    private final Context context;
+    private final EvaluationPlan plan;
+
+    private final RouteInfoTable routeInfos;
+    private boolean[] activeFlags = new boolean[0];
+
+    EvaluationWorkspace(XFVRPModel model, ContextBuilder contextBuilder) {
+        this.model = model;
+        this.context = contextBuilder.build(model);
+        this.plan = new EvaluationPlan(model);
+        this.routeInfos = new RouteInfoTable(model.getCompartments().length);
+    }
+
+    XFVRPModel getModel() {
+        return model;
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    EvaluationPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Resets the context for a new evaluation.
+     */
+    void reset() {
+        context.reset();
+    }
+
+    /**
+     * Same as ActiveNodeAnalyzer.getActiveNodes(route), where the flags of the workspace are reused.
+     */
+    Node[] getActiveNodes(Node[] route) {
+        if (activeFlags.length < route.length)
+            activeFlags = new boolean[route.length];
+
+        return ActiveNodeAnalyzer.getActiveNodes(route, activeFlags);
+    }
+
+    /**
+     * Builds the route infos of the route into the table of the workspace and sets them to the context.
+     */
+    void setRouteInfos(Node[] route) throws XFVRPException {
+        context.setRouteInfos(RouteInfoBuilder.build(route, context, routeInfos));
+    }
+}
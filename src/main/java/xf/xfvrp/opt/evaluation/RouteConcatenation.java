@@ -0,0 +1,153 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.Vehicle;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.compartment.CompartmentType;
+import xf.xfvrp.opt.Solution;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Checks a changed route, which is concatenated from a prefix of a route, some nodes
+ * and a suffix of a route, with the segment summaries of the solution.
+ * <p>
+ * The check is a lower bound of the evaluation in EvaluationService: driver shifts,
+ * loading and unloading times at depots and service times for sites are ignored.
+ * So a route is only infeasible, if it is infeasible in the EvaluationService too. It is
+ * never feasible for sure, because presets, stop counts and waiting times are not checked.
+ * If a part of the route is not summarized, the route is always feasible.
+ * <p>
+ * A concatenation must not be shared between threads.
+ *
+ * @author hschneid
+ */
+public class RouteConcatenation {
+
+    private static final double TOLERANCE = 1e-4;
+
+    private final RouteSegmentSummaries summaries;
+    private final XFVRPModel model;
+
+    private final SegmentSummary nodeSummary;
+    private final SegmentSummary routeSummary;
+    private boolean isEmpty;
+    private boolean isUnknown;
+
+    public RouteConcatenation(RouteSegmentSummaries summaries) {
+        this.summaries = summaries;
+        this.model = summaries.getModel();
+        this.nodeSummary = new SegmentSummary(model.getCompartments().length);
+        this.routeSummary = new SegmentSummary(model.getCompartments().length);
+    }
+
+    /**
+     * Starts a new changed route. The route must begin with a prefix.
+     */
+    public void begin() {
+        isEmpty = true;
+        isUnknown = false;
+    }
+
+    /**
+     * Adds the nodes from the starting depot to endPos (inclusive) of a route.
+     */
+    public void addPrefix(Solution solution, int routeIdx, int endPos) {
+        if (!isUnknown)
+            add(summaries.getPrefix(solution, routeIdx, endPos));
+    }
+
+    /**
+     * Adds the nodes from startPos (inclusive) to the ending depot of a route.
+     */
+    public void addSuffix(Solution solution, int routeIdx, int startPos) {
+        if (!isUnknown)
+            add(summaries.getSuffix(solution, routeIdx, startPos));
+    }
+
+    /**
+     * Adds the customers from startPos to endPos (both inclusive) of a route. If the
+     * nodes are inverted, they are added from endPos to startPos.
+     */
+    public void addNodes(Solution solution, int routeIdx, int startPos, int endPos, boolean isInverted) {
+        if (isUnknown)
+            return;
+
+        Node[] route = solution.getRoutes()[routeIdx];
+        if (startPos < 0 || endPos >= route.length) {
+            isUnknown = true;
+            return;
+        }
+
+        for (int i = startPos; i <= endPos; i++) {
+            Node node = route[isInverted ? endPos - (i - startPos) : i];
+            if (node.getSiteType() != SiteType.CUSTOMER) {
+                isUnknown = true;
+                return;
+            }
+
+            nodeSummary.setNode(node, false);
+            add(nodeSummary);
+        }
+    }
+
+    /**
+     * @return false, if the changed route violates time windows, the capacity or the
+     * maximal route duration for sure, otherwise true
+     */
+    public boolean isFeasible() {
+        if (isUnknown || isEmpty)
+            return true;
+
+        double timeTolerance = TOLERANCE * (1 + Math.abs(routeSummary.getEarliest()) + routeSummary.getDuration());
+        if (routeSummary.getTimeWarp() > timeTolerance)
+            return false;
+
+        Vehicle vehicle = model.getVehicle();
+        if (routeSummary.getDuration() > vehicle.getMaxRouteDuration() + timeTolerance)
+            return false;
+
+        CompartmentType[] compartments = model.getCompartments();
+        float[] capacities = vehicle.getCapacity();
+        for (int i = 0; i < compartments.length; i++) {
+            if (getLoad(compartments[i], i) > capacities[i] + TOLERANCE * (1 + Math.abs(capacities[i])))
+                return false;
+        }
+
+        return true;
+    }
+
+    private double getLoad(CompartmentType compartmentType, int compartmentIdx) {
+        switch (compartmentType) {
+            case DELIVERY:
+            case DELIVERY_NO_REPLENISH:
+                return routeSummary.getDelivery(compartmentIdx);
+            case PICKUP:
+            case PICKUP_NO_REPLENISH:
+                return routeSummary.getPickup(compartmentIdx);
+            default:
+                return routeSummary.getPeak(compartmentIdx);
+        }
+    }
+
+    private void add(SegmentSummary summary) {
+        if (summary == null) {
+            isUnknown = true;
+            return;
+        }
+
+        if (isEmpty) {
+            routeSummary.set(summary);
+            isEmpty = false;
+            return;
+        }
+
+        routeSummary.append(summary, model.getTime(routeSummary.getLastNode(), summary.getFirstNode()));
+    }
+}
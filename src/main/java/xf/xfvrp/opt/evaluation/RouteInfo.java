@@ -14,7 +14,7 @@ import java.util.Objects;
 public class RouteInfo {
 
     private final int compartmentIdx;
-    private final Node depot;
+    private Node depot;
 
     private float loadingServiceTime = 0;
     private float unLoadingServiceTime = 0;
@@ -27,6 +27,28 @@ public class RouteInfo {
         this.compartmentIdx = compartmentIdx;
     }
 
+    /**
+     * Starts the route info again at the given depot or replenish site.
+     */
+    void reset(Node depot) {
+        this.depot = depot;
+        loadingServiceTime = 0;
+        unLoadingServiceTime = 0;
+        deliveryAmount = 0;
+        pickupAmount = 0;
+    }
+
+    /**
+     * Copies all values of the other route info of the same compartment.
+     */
+    void set(RouteInfo other) {
+        this.depot = other.depot;
+        loadingServiceTime = other.loadingServiceTime;
+        unLoadingServiceTime = other.unLoadingServiceTime;
+        deliveryAmount = other.deliveryAmount;
+        pickupAmount = other.pickupAmount;
+    }
+
     public void addLoadingServiceTime(float time) {
         loadingServiceTime += time;
     }
@@ -51,6 +73,10 @@ public class RouteInfo {
         return unLoadingServiceTime;
     }
 
+    public int getCompartmentIdx() {
+        return compartmentIdx;
+    }
+
     public Node getDepot() {
         return depot;
     }
@@ -6,9 +6,6 @@ import xf.xfvrp.base.SiteType;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.base.exception.XFVRPExceptionType;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -18,26 +15,32 @@ import java.util.Map;
  **/
 public class RouteInfoBuilder {
 
-    public static Map<Node, RouteInfo[]> build(Node[] route, Context context) throws XFVRPException {
-        Map<Node, RouteInfo[]> routeInfos = new HashMap<>();
-        RouteInfo[] routeInfoPerCompartment = new RouteInfo[context.getModel().getCompartments().length];
+    public static RouteInfoTable build(Node[] route, Context context) throws XFVRPException {
+        return build(route, context, new RouteInfoTable(context.getModel().getCompartments().length));
+    }
+
+    /**
+     * Same as build(route, context), where the given table is cleared and reused.
+     */
+    public static RouteInfoTable build(Node[] route, Context context, RouteInfoTable routeInfos) throws XFVRPException {
+        routeInfos.clear();
 
         // Go over all nodes in solution (or single route)
         for (int idx = 0; idx < route.length; idx++) {
-            createRouteInfo(route[idx], routeInfoPerCompartment, routeInfos, context);
+            createRouteInfo(route[idx], routeInfos, context);
         }
 
         return routeInfos;
     }
 
-    private static void createRouteInfo(Node node, RouteInfo[] routeInfoPerCompartment, Map<Node, RouteInfo[]> routeInfos, Context context) throws XFVRPException {
+    private static void createRouteInfo(Node node, RouteInfoTable routeInfos, Context context) throws XFVRPException {
         switch (node.getSiteType()) {
             case DEPOT:
             case REPLENISH:
-                beginNewInfo(node, routeInfoPerCompartment, routeInfos, context);
+                beginNewInfo(node, routeInfos, context);
                 break;
             case CUSTOMER: {
-                updateInfo(node, routeInfoPerCompartment);
+                updateInfo(node, routeInfos);
                 break;
             }
             default: {
@@ -46,7 +49,7 @@ public class RouteInfoBuilder {
         }
     }
 
-    private static void beginNewInfo(Node node, RouteInfo[] routeInfoPerCompartment, Map<Node, RouteInfo[]> routeInfos, Context context) {
+    private static void beginNewInfo(Node node, RouteInfoTable routeInfos, Context context) {
         for (int compartmentIdx = node.getDemand().length - 1; compartmentIdx >= 0; compartmentIdx--) {
             // Compartments without replenishment
             if (node.getSiteType() == SiteType.REPLENISH && !context.getModel().getCompartments()[compartmentIdx].isReplenished()) {
@@ -54,27 +57,24 @@ public class RouteInfoBuilder {
             }
 
             // Finish old route info
-            if (routeInfoPerCompartment[compartmentIdx] != null) {
-                routeInfos.get(routeInfoPerCompartment[compartmentIdx].getDepot())[compartmentIdx] = routeInfoPerCompartment[compartmentIdx];
-            }
+            routeInfos.finish(compartmentIdx);
 
             // Start new route info
-            if (!routeInfos.containsKey(node)) {
-                routeInfos.put(node, new RouteInfo[context.getModel().getCompartments().length]);
-            }
-            routeInfoPerCompartment[compartmentIdx] = new RouteInfo(node, compartmentIdx);
+            routeInfos.add(node);
+            routeInfos.open(node, compartmentIdx);
         }
     }
 
-    private static void updateInfo(Node node, RouteInfo[] routeInfoPerCompartment) throws XFVRPException {
+    private static void updateInfo(Node node, RouteInfoTable routeInfos) throws XFVRPException {
         LoadType loadType = node.getLoadType();
         for (int compartmentIdx = node.getDemand().length - 1; compartmentIdx >= 0; compartmentIdx--) {
+            RouteInfo routeInfo = routeInfos.getOpen(compartmentIdx);
             if (loadType == LoadType.PICKUP) {
-                routeInfoPerCompartment[compartmentIdx].addPickUpAmount(node.getDemand()[compartmentIdx]);
-                routeInfoPerCompartment[compartmentIdx].addUnLoadingServiceTime(node.getServiceTime());
+                routeInfo.addPickUpAmount(node.getDemand()[compartmentIdx]);
+                routeInfo.addUnLoadingServiceTime(node.getServiceTime());
             } else if (loadType == LoadType.DELIVERY) {
-                routeInfoPerCompartment[compartmentIdx].addDeliveryAmount(node.getDemand()[compartmentIdx]);
-                routeInfoPerCompartment[compartmentIdx].addLoadingServiceTime(node.getServiceTime());
+                routeInfo.addDeliveryAmount(node.getDemand()[compartmentIdx]);
+                routeInfo.addLoadingServiceTime(node.getServiceTime());
             } else
                 throw new XFVRPException(XFVRPExceptionType.ILLEGAL_STATE, "Found unexpected load type (" + loadType.toString() + ")");
         }
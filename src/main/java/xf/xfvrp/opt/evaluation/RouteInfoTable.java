@@ -0,0 +1,136 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.Node;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Route infos of the depots and replenish sites of a route per compartment. The infos
+ * are stored by the index of the node, so no hashing is needed for a lookup.
+ * <p>
+ * While the route is read, there is one open route info per compartment, which is
+ * set to its depot or replenish site, when the next one is reached.
+ * <p>
+ * The table can be cleared and filled again for the next route. Cleared
+ * entries are recognized by an older stamp, so clearing needs no loop over
+ * all nodes and the route info objects are reused.
+ *
+ * @author hschneid
+ */
+public class RouteInfoTable {
+
+    private final int nbrOfCompartments;
+
+    // Node index -> route infos per compartment, where missing infos are null
+    private RouteInfo[][] infos = new RouteInfo[0][];
+    // Node index -> reused route info objects per compartment
+    private RouteInfo[][] storage = new RouteInfo[0][];
+    // Node index -> stamp of the filling, where the node was added
+    private int[] stamps = new int[0];
+    private int stamp = 1;
+
+    // Open route infos per compartment
+    private final RouteInfo[] openInfos;
+    private final boolean[] isOpen;
+
+    public RouteInfoTable(int nbrOfCompartments) {
+        this.nbrOfCompartments = nbrOfCompartments;
+        this.openInfos = new RouteInfo[nbrOfCompartments];
+        this.isOpen = new boolean[nbrOfCompartments];
+    }
+
+    /**
+     * Removes all route infos.
+     */
+    public void clear() {
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        Arrays.fill(isOpen, false);
+    }
+
+    public boolean contains(Node node) {
+        int idx = node.getIdx();
+        return idx < stamps.length && stamps[idx] == stamp;
+    }
+
+    /**
+     * @return route infos per compartment of the node or null, if the node was not added
+     */
+    public RouteInfo[] get(Node node) {
+        return contains(node) ? infos[node.getIdx()] : null;
+    }
+
+    /**
+     * Adds the node without any route infos, if it is not contained.
+     */
+    void add(Node node) {
+        if (contains(node))
+            return;
+
+        int idx = node.getIdx();
+        if (idx >= stamps.length)
+            grow(idx + 1);
+        if (infos[idx] == null) {
+            infos[idx] = new RouteInfo[nbrOfCompartments];
+            storage[idx] = new RouteInfo[nbrOfCompartments];
+        }
+
+        Arrays.fill(infos[idx], null);
+        stamps[idx] = stamp;
+    }
+
+    /**
+     * Starts a new open route info of the compartment at the depot or replenish site.
+     */
+    void open(Node node, int compartmentIdx) {
+        if (openInfos[compartmentIdx] == null)
+            openInfos[compartmentIdx] = new RouteInfo(node, compartmentIdx);
+        else
+            openInfos[compartmentIdx].reset(node);
+        isOpen[compartmentIdx] = true;
+    }
+
+    /**
+     * @return open route info of the compartment or null, if no route info is opened
+     */
+    RouteInfo getOpen(int compartmentIdx) {
+        return isOpen[compartmentIdx] ? openInfos[compartmentIdx] : null;
+    }
+
+    /**
+     * Sets a copy of the open route info of the compartment to its depot or replenish site,
+     * which must be contained.
+     */
+    void finish(int compartmentIdx) {
+        if (!isOpen[compartmentIdx])
+            return;
+
+        RouteInfo routeInfo = openInfos[compartmentIdx];
+        int idx = routeInfo.getDepot().getIdx();
+
+        RouteInfo copy = storage[idx][compartmentIdx];
+        if (copy == null) {
+            copy = new RouteInfo(routeInfo.getDepot(), compartmentIdx);
+            storage[idx][compartmentIdx] = copy;
+        }
+        copy.set(routeInfo);
+        infos[idx][compartmentIdx] = copy;
+    }
+
+    private void grow(int size) {
+        size = Math.max(size, stamps.length * 2);
+        infos = Arrays.copyOf(infos, size);
+        storage = Arrays.copyOf(storage, size);
+        stamps = Arrays.copyOf(stamps, size);
+    }
+}
@@ -0,0 +1,192 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.opt.Solution;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Keeps the forward (prefix) and backward (suffix) segment summaries of all routes
+ * of a solution, which hold the load and the time slack of the route segments. A changed
+ * route, which consists of a prefix of a route, some nodes and a suffix of a route, can
+ * then be checked without simulating the whole route (see RouteConcatenation).
+ * <p>
+ * The summaries are only valid for models without replenishments, where all nodes have
+ * a single time window (see isApplicable). Routes with other than customer nodes between
+ * the depots are not summarized.
+ * <p>
+ * The summaries of a route are updated, if the route array of the solution is replaced.
+ * Routes, which are changed in place, must be invalidated. Before the summaries are read by several threads,
+ * they must be updated for all routes.
+ *
+ * @author hschneid
+ */
+public class RouteSegmentSummaries {
+
+    private final XFVRPModel model;
+    private final int nbrOfCompartments;
+
+    private Node[][] summarizedRoutes = new Node[0][];
+    private boolean[] isSummarized = new boolean[0];
+    private SegmentSummary[][] forward = new SegmentSummary[0][];
+    private SegmentSummary[][] backward = new SegmentSummary[0][];
+
+    private final SegmentSummary nodeSummary;
+
+    public RouteSegmentSummaries(XFVRPModel model) {
+        this.model = model;
+        this.nbrOfCompartments = model.getCompartments().length;
+        this.nodeSummary = new SegmentSummary(nbrOfCompartments);
+    }
+
+    /**
+     * @return true, if the segment summaries are a lower bound of the evaluation for this model
+     */
+    public static boolean isApplicable(XFVRPModel model) {
+        if (model.getNbrOfReplenish() > 0)
+            return false;
+        if (model.getVehicle().getCapacity().length < model.getCompartments().length)
+            return false;
+
+        for (Node node : model.getNodes()) {
+            if (node.getNbrOfTimeWindows() != 1)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Summarizes all routes, which were replaced since the last call.
+     */
+    public void update(Solution solution) {
+        for (int routeIdx = solution.getRoutes().length - 1; routeIdx >= 0; routeIdx--)
+            update(solution, routeIdx);
+    }
+
+    /**
+     * Marks a route as changed, if it was changed in place. The route is summarized again
+     * on the next access.
+     */
+    public void invalidate(int routeIdx) {
+        if (routeIdx < summarizedRoutes.length)
+            summarizedRoutes[routeIdx] = null;
+    }
+
+    /**
+     * @return summary of the nodes from the starting depot to endPos (inclusive) of a route or
+     * null, if the route is not summarized
+     */
+    public SegmentSummary getPrefix(Solution solution, int routeIdx, int endPos) {
+        if (!update(solution, routeIdx) || endPos < 0 || endPos >= summarizedRoutes[routeIdx].length)
+            return null;
+
+        return forward[routeIdx][endPos];
+    }
+
+    /**
+     * @return summary of the nodes from startPos (inclusive) to the ending depot of a route or
+     * null, if the route is not summarized
+     */
+    public SegmentSummary getSuffix(Solution solution, int routeIdx, int startPos) {
+        if (!update(solution, routeIdx) || startPos < 0 || startPos >= summarizedRoutes[routeIdx].length)
+            return null;
+
+        return backward[routeIdx][startPos];
+    }
+
+    public XFVRPModel getModel() {
+        return model;
+    }
+
+    /**
+     * Summarizes the route, if it was replaced since the last call.
+     *
+     * @return false, if the route can not be summarized
+     */
+    private boolean update(Solution solution, int routeIdx) {
+        Node[][] routes = solution.getRoutes();
+        if (routeIdx >= summarizedRoutes.length)
+            grow(routes.length);
+
+        Node[] route = routes[routeIdx];
+        if (summarizedRoutes[routeIdx] != route) {
+            isSummarized[routeIdx] = isSummarizable(route);
+            if (isSummarized[routeIdx])
+                summarize(routeIdx, route);
+            summarizedRoutes[routeIdx] = route;
+        }
+
+        return isSummarized[routeIdx];
+    }
+
+    private void summarize(int routeIdx, Node[] route) {
+        SegmentSummary[] prefixes = ensureCapacity(forward[routeIdx], route.length);
+        SegmentSummary[] suffixes = ensureCapacity(backward[routeIdx], route.length);
+        forward[routeIdx] = prefixes;
+        backward[routeIdx] = suffixes;
+
+        prefixes[0].setNode(route[0], true);
+        for (int i = 1; i < route.length; i++) {
+            nodeSummary.setNode(route[i], false);
+            prefixes[i].set(prefixes[i - 1]);
+            prefixes[i].append(nodeSummary, model.getTime(route[i - 1], route[i]));
+        }
+
+        int last = route.length - 1;
+        suffixes[last].setNode(route[last], false);
+        for (int i = last - 1; i >= 0; i--) {
+            suffixes[i].setNode(route[i], i == 0);
+            suffixes[i].append(suffixes[i + 1], model.getTime(route[i], route[i + 1]));
+        }
+    }
+
+    private SegmentSummary[] ensureCapacity(SegmentSummary[] summaries, int length) {
+        if (summaries != null && summaries.length >= length)
+            return summaries;
+
+        SegmentSummary[] newSummaries = new SegmentSummary[length];
+        for (int i = 0; i < length; i++)
+            newSummaries[i] = (summaries != null && i < summaries.length) ? summaries[i] : new SegmentSummary(nbrOfCompartments);
+
+        return newSummaries;
+    }
+
+    private void grow(int nbrOfRoutes) {
+        Node[][] newSummarizedRoutes = new Node[nbrOfRoutes][];
+        boolean[] newIsSummarized = new boolean[nbrOfRoutes];
+        SegmentSummary[][] newForward = new SegmentSummary[nbrOfRoutes][];
+        SegmentSummary[][] newBackward = new SegmentSummary[nbrOfRoutes][];
+
+        System.arraycopy(summarizedRoutes, 0, newSummarizedRoutes, 0, summarizedRoutes.length);
+        System.arraycopy(isSummarized, 0, newIsSummarized, 0, isSummarized.length);
+        System.arraycopy(forward, 0, newForward, 0, forward.length);
+        System.arraycopy(backward, 0, newBackward, 0, backward.length);
+
+        summarizedRoutes = newSummarizedRoutes;
+        isSummarized = newIsSummarized;
+        forward = newForward;
+        backward = newBackward;
+    }
+
+    private static boolean isSummarizable(Node[] route) {
+        if (route.length < 2 ||
+                route[0].getSiteType() != SiteType.DEPOT ||
+                route[route.length - 1].getSiteType() != SiteType.DEPOT)
+            return false;
+
+        for (int i = route.length - 2; i > 0; i--) {
+            if (route[i].getSiteType() != SiteType.CUSTOMER)
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,142 @@
+package xf.xfvrp.opt.evaluation;
+
+import xf.xfvrp.base.LoadType;
+import xf.xfvrp.base.Node;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Summary of a sequence of nodes, which allows to evaluate the concatenation of two
+ * sequences in constant time (concatenation of segments by Vidal et al.).
+ * <p>
+ * The time part holds the minimal duration (travel, service and waiting time), the
+ * minimal time warp (sum of the times, where a time window must be violated), and the
+ * earliest and latest start of the service at the first node, where the duration and
+ * the time warp are reached.
+ * <p>
+ * The load part holds per compartment the sum of delivered and picked up amounts and
+ * the peak load, if the deliveries are loaded at the begin of the sequence.
+ *
+ * @author hschneid
+ */
+public class SegmentSummary {
+
+    private double duration;
+    private double timeWarp;
+    private double earliest;
+    private double latest;
+
+    private Node firstNode;
+    private Node lastNode;
+
+    private final double[] delivery;
+    private final double[] pickup;
+    private final double[] peak;
+
+    public SegmentSummary(int nbrOfCompartments) {
+        delivery = new double[nbrOfCompartments];
+        pickup = new double[nbrOfCompartments];
+        peak = new double[nbrOfCompartments];
+    }
+
+    /**
+     * Sets the summary of a single node. The latest departure at a starting depot
+     * is not restricted, because the end of its time window is not checked.
+     */
+    public void setNode(Node node, boolean isStartingDepot) {
+        float[] timeWindow = node.getTimeWindow(0);
+
+        duration = isStartingDepot ? 0 : node.getServiceTime();
+        timeWarp = 0;
+        earliest = timeWindow[0];
+        latest = isStartingDepot ? Double.POSITIVE_INFINITY : timeWindow[1];
+        firstNode = node;
+        lastNode = node;
+
+        float[] demand = node.getDemand();
+        LoadType loadType = node.getLoadType();
+        for (int i = 0; i < peak.length; i++) {
+            float amount = (i < demand.length) ? demand[i] : 0;
+            delivery[i] = (loadType == LoadType.DELIVERY) ? amount : 0;
+            pickup[i] = (loadType == LoadType.PICKUP) ? amount : 0;
+            peak[i] = Math.max(delivery[i], pickup[i]);
+        }
+    }
+
+    public void set(SegmentSummary other) {
+        duration = other.duration;
+        timeWarp = other.timeWarp;
+        earliest = other.earliest;
+        latest = other.latest;
+        firstNode = other.firstNode;
+        lastNode = other.lastNode;
+
+        System.arraycopy(other.delivery, 0, delivery, 0, delivery.length);
+        System.arraycopy(other.pickup, 0, pickup, 0, pickup.length);
+        System.arraycopy(other.peak, 0, peak, 0, peak.length);
+    }
+
+    /**
+     * Concatenates the other summary after this summary, where the travel time
+     * from the last node of this summary to the first node of the other summary
+     * is given.
+     */
+    public void append(SegmentSummary other, double travelTime) {
+        double delta = duration - timeWarp + travelTime;
+        double deltaWaiting = Math.max(other.earliest - delta - latest, 0);
+        double deltaTimeWarp = Math.max(earliest + delta - other.latest, 0);
+
+        earliest = Math.max(other.earliest - delta, earliest) - deltaWaiting;
+        latest = Math.min(other.latest - delta, latest) + deltaTimeWarp;
+        duration += other.duration + travelTime + deltaWaiting;
+        timeWarp += other.timeWarp + deltaTimeWarp;
+        lastNode = other.lastNode;
+
+        for (int i = 0; i < peak.length; i++) {
+            peak[i] = Math.max(peak[i] + other.delivery[i], pickup[i] + other.peak[i]);
+            delivery[i] += other.delivery[i];
+            pickup[i] += other.pickup[i];
+        }
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public double getTimeWarp() {
+        return timeWarp;
+    }
+
+    public double getEarliest() {
+        return earliest;
+    }
+
+    public double getLatest() {
+        return latest;
+    }
+
+    public Node getFirstNode() {
+        return firstNode;
+    }
+
+    public Node getLastNode() {
+        return lastNode;
+    }
+
+    public double getDelivery(int compartmentIdx) {
+        return delivery[compartmentIdx];
+    }
+
+    public double getPickup(int compartmentIdx) {
+        return pickup[compartmentIdx];
+    }
+
+    public double getPeak(int compartmentIdx) {
+        return peak[compartmentIdx];
+    }
+}
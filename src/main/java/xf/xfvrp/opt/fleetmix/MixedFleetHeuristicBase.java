@@ -129,8 +129,10 @@ public abstract class MixedFleetHeuristicBase {
                 compartmentTypes,
                 internalMetric,
                 internalMetric,
+                null,
                 invalidVehicle,
-                parameter
+                parameter,
+                statusManager.getPenaltyStatistics()
         );
 
         return buildSolutionForInvalidNodes(unplannedCustomers, nodes[0], model, statusManager);
@@ -0,0 +1,301 @@
+package xf.xfvrp.opt.improve.intraroute;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.Quality;
+import xf.xfvrp.base.SiteType;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.EvaluationService;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.evaluation.RouteSegmentSummaries;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Local search on the node sequence of a single route. The route is improved by
+ * <p>
+ * - 2-opt moves, which invert a part of the route
+ * - Or-opt moves, which move a segment of up to 3 nodes with or without inversion
+ * - 3-opt moves, which move longer segments with or without inversion (segment insertion)
+ * <p>
+ * Only moves, where a node is placed next to one of its nearest neighbors in the route,
+ * are searched. The first move, which improves the distance and is valid and better in
+ * the evaluation of the route, is applied. The search stops, if no move improves the route.
+ * <p>
+ * A search holds the state of the current route, so routes can be searched in parallel,
+ * where each thread uses its own search. A search can be reused for the next route.
+ *
+ * @author hschneid
+ */
+public class IntraRouteSearch {
+
+    private static final float EPSILON = 0.001f;
+    private static final int DEFAULT_NBR_OF_NEIGHBORS = 10;
+
+    private final XFVRPModel model;
+    private final EvaluationService evaluationService;
+
+    private Solution solution;
+    private Quality bestQuality;
+    private RouteConcatenation concatenation;
+
+    // Nearest neighbors in the route per node (local index) and positions of the nodes in the route
+    private int[][] neighbors;
+    private int[] positions;
+    private Map<Node, Integer> localIndex;
+    // Position, where the search continues after an applied move
+    private int startPos;
+
+    public IntraRouteSearch(XFVRPModel model) {
+        this(model, new EvaluationService());
+    }
+
+    public IntraRouteSearch(XFVRPModel model, EvaluationService evaluationService) {
+        this.model = model;
+        this.evaluationService = evaluationService;
+    }
+
+    /**
+     * @return improved route or the given route, if it can not be improved
+     */
+    public Node[] optimize(Node[] route) throws XFVRPException {
+        if (!isOptimizable(route))
+            return route;
+
+        init(route);
+
+        long startTime = System.currentTimeMillis();
+        while ((System.currentTimeMillis() - startTime) / 1000.0 < model.getParameter().getMaxRunningTimeInSec()) {
+            if (!improve())
+                break;
+        }
+
+        return solution.getRoutes()[0];
+    }
+
+    private void init(Node[] route) throws XFVRPException {
+        solution = new Solution(model);
+        solution.addRoute(route);
+        bestQuality = evaluationService.check(solution);
+
+        RouteSegmentSummaries summaries = solution.getSegmentSummaries();
+        concatenation = (summaries != null) ? new RouteConcatenation(summaries) : null;
+
+        int nbrOfCustomers = route.length - 2;
+        int nbrOfNeighbors = Math.min(getNbrOfNeighbors(), nbrOfCustomers - 1);
+        localIndex = new IdentityHashMap<>();
+        for (int i = 0; i < nbrOfCustomers; i++)
+            localIndex.put(route[i + 1], i);
+
+        neighbors = new int[nbrOfCustomers][];
+        float[] distances = new float[nbrOfCustomers];
+        for (int i = 0; i < nbrOfCustomers; i++) {
+            for (int j = 0; j < nbrOfCustomers; j++)
+                distances[j] = getDistance(route[i + 1], route[j + 1]);
+            neighbors[i] = selectNearest(distances, i, nbrOfNeighbors);
+        }
+
+        positions = new int[nbrOfCustomers];
+        updatePositions();
+        startPos = 1;
+    }
+
+    /**
+     * Searches and applies the first improving move. The search starts at the position
+     * of the last applied move and continues cyclically over all nodes.
+     *
+     * @return true, if a move was applied
+     */
+    private boolean improve() throws XFVRPException {
+        Node[] route = solution.getRoutes()[0];
+        int n = route.length;
+
+        for (int i = 0; i < n - 2; i++) {
+            int x = 1 + (startPos - 1 + i) % (n - 2);
+            startPos = x;
+            for (int neighbor : neighbors[localIndex.get(route[x])]) {
+                int y = positions[neighbor];
+
+                // 2-opt: new edge from x to y
+                if (y > x + 1 && tryTwoOpt(route, x, y))
+                    return true;
+                if (x > y + 1 && tryTwoOpt(route, y - 1, x - 1))
+                    return true;
+
+                // Or-opt and 3-opt: Segments with y at first or last position are moved next to x
+                for (int q = y; q < n - 1; q++) {
+                    if (tryInsertion(route, x, y, q, false) || tryInsertion(route, x - 1, y, q, true))
+                        return true;
+                }
+                for (int p = y - 1; p > 0; p--) {
+                    if (tryInsertion(route, x, p, y, true) || tryInsertion(route, x - 1, p, y, false))
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Inverts the nodes from i + 1 to j (both inclusive)
+     */
+    private boolean tryTwoOpt(Node[] route, int i, int j) throws XFVRPException {
+        float delta = getDistance(route[i], route[j]) + getDistance(route[i + 1], route[j + 1]) -
+                getDistance(route[i], route[i + 1]) - getDistance(route[j], route[j + 1]);
+        if (delta > -EPSILON)
+            return false;
+
+        if (concatenation != null) {
+            concatenation.begin();
+            concatenation.addPrefix(solution, 0, i);
+            concatenation.addNodes(solution, 0, i + 1, j, true);
+            concatenation.addSuffix(solution, 0, j + 1);
+            if (!concatenation.isFeasible())
+                return false;
+        }
+
+        Node[] newRoute = Arrays.copyOf(route, route.length);
+        for (int k = i + 1; k <= j; k++)
+            newRoute[k] = route[j - (k - i - 1)];
+
+        return accept(newRoute);
+    }
+
+    /**
+     * Moves the nodes from p to q (both inclusive) between the nodes at g and g + 1
+     */
+    private boolean tryInsertion(Node[] route, int g, int p, int q, boolean isInverted) throws XFVRPException {
+        if (g >= p - 1 && g <= q)
+            return false;
+
+        Node first = isInverted ? route[q] : route[p];
+        Node last = isInverted ? route[p] : route[q];
+        float delta = getDistance(route[g], first) + getDistance(last, route[g + 1]) - getDistance(route[g], route[g + 1]) +
+                getDistance(route[p - 1], route[q + 1]) - getDistance(route[p - 1], route[p]) - getDistance(route[q], route[q + 1]);
+        if (delta > -EPSILON)
+            return false;
+
+        if (concatenation != null) {
+            concatenation.begin();
+            if (g < p) {
+                concatenation.addPrefix(solution, 0, g);
+                concatenation.addNodes(solution, 0, p, q, isInverted);
+                concatenation.addNodes(solution, 0, g + 1, p - 1, false);
+                concatenation.addSuffix(solution, 0, q + 1);
+            } else {
+                concatenation.addPrefix(solution, 0, p - 1);
+                concatenation.addNodes(solution, 0, q + 1, g, false);
+                concatenation.addNodes(solution, 0, p, q, isInverted);
+                concatenation.addSuffix(solution, 0, g + 1);
+            }
+            if (!concatenation.isFeasible())
+                return false;
+        }
+
+        Node[] newRoute = Arrays.copyOf(route, route.length);
+        int segmentLength = q - p + 1;
+        if (g < p) {
+            System.arraycopy(route, g + 1, newRoute, g + 1 + segmentLength, p - g - 1);
+            copySegment(route, p, q, isInverted, newRoute, g + 1);
+        } else {
+            System.arraycopy(route, q + 1, newRoute, p, g - q);
+            copySegment(route, p, q, isInverted, newRoute, g - segmentLength + 1);
+        }
+
+        return accept(newRoute);
+    }
+
+    private void copySegment(Node[] route, int p, int q, boolean isInverted, Node[] newRoute, int pos) {
+        for (int k = 0; k <= q - p; k++)
+            newRoute[pos + k] = route[isInverted ? q - k : p + k];
+    }
+
+    /**
+     * Evaluates the new route and keeps it, if it is valid and better than the current route.
+     */
+    private boolean accept(Node[] newRoute) throws XFVRPException {
+        Node[] route = solution.getRoutes()[0];
+
+        solution.setRoute(0, newRoute);
+        Quality quality = evaluationService.check(solution, 0, 0);
+        if (quality.getPenalty() == 0 && quality.getFitness() < bestQuality.getFitness()) {
+            solution.fixateQualities();
+            bestQuality = quality;
+            updatePositions();
+            return true;
+        }
+
+        solution.setRoute(0, route);
+        solution.resetQualities();
+        return false;
+    }
+
+    private void updatePositions() {
+        Node[] route = solution.getRoutes()[0];
+        for (int i = route.length - 2; i > 0; i--)
+            positions[localIndex.get(route[i])] = i;
+    }
+
+    /**
+     * @return indexes of the k nearest nodes in ascending order of distance, where ties are broken by the index
+     */
+    private static int[] selectNearest(float[] distances, int self, int k) {
+        int[] nearest = new int[k];
+        int nbrOfNearest = 0;
+        for (int j = 0; j < distances.length; j++) {
+            if (j == self)
+                continue;
+
+            // Insertion into the sorted list of the nearest nodes
+            int pos = nbrOfNearest;
+            while (pos > 0 && distances[nearest[pos - 1]] > distances[j])
+                pos--;
+            if (pos >= k)
+                continue;
+
+            int last = Math.min(nbrOfNearest, k - 1);
+            System.arraycopy(nearest, pos, nearest, pos + 1, last - pos);
+            nearest[pos] = j;
+            nbrOfNearest = Math.min(nbrOfNearest + 1, k);
+        }
+
+        return nearest;
+    }
+
+    private int getNbrOfNeighbors() {
+        int nbrOfNeighbors = model.getParameter().getNbrOfNearestNeighbors();
+        return (nbrOfNeighbors > 0) ? nbrOfNeighbors : DEFAULT_NBR_OF_NEIGHBORS;
+    }
+
+    private float getDistance(Node a, Node b) {
+        return model.getDistanceForOptimization(a, b);
+    }
+
+    /**
+     * Only routes with one depot at start and end and at least 3 customers in between are searched.
+     */
+    private static boolean isOptimizable(Node[] route) {
+        if (route.length < 5 ||
+                route[0].getSiteType() != SiteType.DEPOT ||
+                route[route.length - 1].getSiteType() != SiteType.DEPOT)
+            return false;
+
+        for (int i = route.length - 2; i > 0; i--) {
+            if (route[i].getSiteType() != SiteType.CUSTOMER)
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package xf.xfvrp.opt.improve.intraroute;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.XFVRPOptBase;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Improves the node sequence of each route independently with 2-opt, Or-opt and
+ * 3-opt moves (see IntraRouteSearch). No node changes its route.
+ * <p>
+ * Routes are independent from each other, so all routes are searched in parallel. The
+ * routes are split into chunks of consecutive routes, where each chunk reuses one search.
+ * The search only considers neighbors in the same route, so it is cheap enough to
+ * be used between the perturbations of an iterated local search.
+ *
+ * @author hschneid
+ */
+public class XFVRPIntraRouteOpt extends XFVRPOptBase {
+
+    private static final int NBR_OF_CHUNKS_PER_THREAD = 4;
+
+    @Override
+    public Solution execute(Solution solution) throws XFVRPException {
+        Node[][] routes = solution.getRoutes();
+
+        Node[][] optimizedRoutes = new Node[routes.length][];
+        int nbrOfChunks = Math.max(1, Math.min(routes.length, ForkJoinPool.getCommonPoolParallelism() * NBR_OF_CHUNKS_PER_THREAD));
+        IntStream.range(0, nbrOfChunks).parallel().forEach(chunk -> {
+            IntraRouteSearch search = new IntraRouteSearch(model, evaluationService);
+            int toIdx = (int) ((long) (chunk + 1) * routes.length / nbrOfChunks);
+            for (int i = (int) ((long) chunk * routes.length / nbrOfChunks); i < toIdx; i++)
+                optimizedRoutes[i] = search.optimize(routes[i]);
+        });
+
+        for (int i = 0; i < routes.length; i++) {
+            if (optimizedRoutes[i] != routes[i])
+                solution.setRoute(i, optimizedRoutes[i]);
+        }
+
+        check(solution);
+
+        return solution;
+    }
+}
@@ -0,0 +1,26 @@
+package xf.xfvrp.opt.improve.routebased;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Acceptance of improving steps in the route based improvement operators.
+ * <p>
+ * BEST_IMPROVEMENT searches the whole neighborhood and applies the best valid step.
+ * FIRST_IMPROVEMENT stops the search after the source route, where the first improving
+ * step was found. BEST_OF_FIRST_N stops the search after the source route, where the
+ * N-th improving step was found. In both cases the found steps are tried from best to worst
+ * and if none of them is valid, the whole neighborhood is searched again.
+ *
+ * @author hschneid
+ */
+public enum AcceptanceStrategy {
+
+    BEST_IMPROVEMENT,
+    FIRST_IMPROVEMENT,
+    BEST_OF_FIRST_N
+}
@@ -0,0 +1,408 @@
+package xf.xfvrp.opt.improve.routebased;
+
+import xf.xfvrp.base.exception.XFVRPException;
+import xf.xfvrp.base.exception.XFVRPExceptionType;
+
+import java.util.Arrays;
+import java.util.Queue;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Reusable buffer of improving steps, which replaces a queue of float arrays. A step
+ * consists of its improvement value and the integer parameters of the step descriptor
+ * (route indices, positions, segment lengths, flags). The parameters are stored in
+ * parallel primitive arrays, so that the search does not allocate an object per step.
+ * <p>
+ * A step is identified by its slot in the buffer and parameter k of a step has the same
+ * meaning as index k in the float array descriptor (index 0 is the value).
+ * <p>
+ * The steps are polled with the highest value first. The heap works like a priority queue
+ * with the same sequence of adds, so steps with equal values are polled in the same order.
+ * The heap is built at the first poll, so a buffer, which is only filled and copied, has no
+ * heap costs.
+ * <p>
+ * Optionally the buffer keeps only the best steps up to a maximal size. Then
+ * isTruncated tells, whether steps were dropped.
+ * <p>
+ * A search limit tells the search, that enough improving steps are found. The search
+ * checks the limit after each source route and marks the buffer as stopped, if it
+ * stops before the end. If none of the found steps is valid, continueSearch lets the
+ * next search start with the first source route, which was not searched yet. A search
+ * with limit starts at the first route, which is kept over clear, so that a local search
+ * does not search the same routes first in each iteration.
+ *
+ * @author hschneid
+ */
+public class MoveBuffer {
+
+    private static final int MAX_NBR_OF_PARAMETERS = 8;
+
+    private final int maxSize;
+
+    private float[] values;
+    private int[] parameters;
+    private int[] lengths;
+    private int size = 0;
+
+    // Max-heap of slots for polling
+    private int[] heap;
+    private int heapSize = 0;
+    private int nbrOfHeapedSlots = 0;
+
+    // Min-heap of slots for the bounded buffer (worst step on top)
+    private int[] worstHeap;
+    private boolean isTruncated = false;
+
+    private int searchLimit = 0;
+    private int nbrOfFoundSteps = 0;
+    private boolean isStopped = false;
+    private int nbrOfVisitedRoutes = 0;
+    private int nbrOfSearchedRoutes = 0;
+    private int firstRoute = 0;
+
+    public MoveBuffer() {
+        this(0);
+    }
+
+    /**
+     * @param maxSize Maximal number of kept steps or 0, if all steps are kept
+     */
+    public MoveBuffer(int maxSize) {
+        this.maxSize = maxSize;
+
+        int capacity = (maxSize > 0) ? maxSize : 64;
+        values = new float[capacity];
+        parameters = new int[capacity * MAX_NBR_OF_PARAMETERS];
+        lengths = new int[capacity];
+        heap = new int[capacity];
+        worstHeap = (maxSize > 0) ? new int[capacity] : null;
+    }
+
+    /**
+     * Adds a step with 7 parameters (e.g. a move)
+     */
+    public void add(float value, int p1, int p2, int p3, int p4, int p5, int p6, int p7) {
+        int slot = nextSlot(value);
+        if (slot == -1)
+            return;
+
+        int offset = slot * MAX_NBR_OF_PARAMETERS;
+        parameters[offset] = p1;
+        parameters[offset + 1] = p2;
+        parameters[offset + 2] = p3;
+        parameters[offset + 3] = p4;
+        parameters[offset + 4] = p5;
+        parameters[offset + 5] = p6;
+        parameters[offset + 6] = p7;
+        lengths[slot] = 8;
+    }
+
+    /**
+     * Adds a step with 8 parameters (e.g. a swap)
+     */
+    public void add(float value, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8) {
+        int slot = nextSlot(value);
+        if (slot == -1)
+            return;
+
+        int offset = slot * MAX_NBR_OF_PARAMETERS;
+        parameters[offset] = p1;
+        parameters[offset + 1] = p2;
+        parameters[offset + 2] = p3;
+        parameters[offset + 3] = p4;
+        parameters[offset + 4] = p5;
+        parameters[offset + 5] = p6;
+        parameters[offset + 6] = p7;
+        parameters[offset + 7] = p8;
+        lengths[slot] = 9;
+    }
+
+    /**
+     * Adds a step from its float array descriptor with 7 or 8 parameters
+     */
+    public void add(float[] step) {
+        if (step.length == 8)
+            add(step[0], (int) step[1], (int) step[2], (int) step[3], (int) step[4], (int) step[5], (int) step[6], (int) step[7]);
+        else if (step.length == 9)
+            add(step[0], (int) step[1], (int) step[2], (int) step[3], (int) step[4], (int) step[5], (int) step[6], (int) step[7], (int) step[8]);
+        else
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Step descriptor must have 8 or 9 entries, but has " + step.length);
+    }
+
+    /**
+     * Adds all steps of the other buffer in the order, in which they were added there.
+     */
+    public void addAll(MoveBuffer other) {
+        for (int i = 0; i < other.size; i++) {
+            int slot = nextSlot(other.values[i]);
+            if (slot == -1)
+                continue;
+
+            System.arraycopy(other.parameters, i * MAX_NBR_OF_PARAMETERS, parameters, slot * MAX_NBR_OF_PARAMETERS, MAX_NBR_OF_PARAMETERS);
+            lengths[slot] = other.lengths[i];
+        }
+    }
+
+    /**
+     * Adds all steps as float array descriptors in the order, in which they were added.
+     */
+    public void addTo(Queue<float[]> improvingSteps) {
+        for (int i = 0; i < size; i++)
+            improvingSteps.add(toArray(i));
+    }
+
+    /**
+     * @return slot of the step with the highest value, which is removed from the polling order.
+     * The parameters of the step stay available until the buffer is cleared.
+     */
+    public int poll() {
+        while (nbrOfHeapedSlots < size)
+            siftUp(nbrOfHeapedSlots++);
+
+        int result = heap[0];
+        int last = heap[--heapSize];
+        if (heapSize > 0)
+            siftDown(last);
+
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return heapSize == 0 && nbrOfHeapedSlots == size;
+    }
+
+    /**
+     * @return number of steps in the buffer, including already polled steps
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true, if steps were dropped, because the buffer was full
+     */
+    public boolean isTruncated() {
+        return isTruncated;
+    }
+
+    /**
+     * Marks, that the search stopped before the whole neighborhood was searched.
+     */
+    public void markStopped() {
+        isStopped = true;
+    }
+
+    /**
+     * @return true, if the search stopped before the whole neighborhood was searched
+     */
+    public boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * @param firstRoute Index of the source route, where a search with limit starts
+     */
+    public void setFirstRoute(int firstRoute) {
+        this.firstRoute = firstRoute;
+    }
+
+    public int getFirstRoute() {
+        return firstRoute;
+    }
+
+    /**
+     * Is called by the search for each source route in the same order.
+     *
+     * @return true, if the source route was not searched before continueSearch was called
+     */
+    public boolean nextRoute() {
+        return nbrOfVisitedRoutes++ >= nbrOfSearchedRoutes;
+    }
+
+    /**
+     * Removes all steps, but the next search skips the source routes, which
+     * were searched since the last clear. Dropped steps stay marked as truncated.
+     */
+    public void continueSearch() {
+        nbrOfSearchedRoutes = nbrOfVisitedRoutes;
+        nbrOfVisitedRoutes = 0;
+        nbrOfFoundSteps = 0;
+        isStopped = false;
+        size = 0;
+        heapSize = 0;
+        nbrOfHeapedSlots = 0;
+    }
+
+    /**
+     * @param searchLimit Number of improving steps, after which the search may stop (0 = no limit)
+     */
+    public void setSearchLimit(int searchLimit) {
+        this.searchLimit = searchLimit;
+    }
+
+    public int getSearchLimit() {
+        return searchLimit;
+    }
+
+    /**
+     * @return true, if the search found at least as many improving steps as the search limit
+     */
+    public boolean isSearchLimitReached() {
+        return searchLimit > 0 && nbrOfFoundSteps >= searchLimit;
+    }
+
+    public void clear() {
+        size = 0;
+        heapSize = 0;
+        nbrOfHeapedSlots = 0;
+        isTruncated = false;
+        nbrOfFoundSteps = 0;
+        isStopped = false;
+        nbrOfVisitedRoutes = 0;
+        nbrOfSearchedRoutes = 0;
+    }
+
+    public float getValue(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * @param k Index of the parameter like in the float array descriptor (1 to length - 1)
+     */
+    public int getParameter(int slot, int k) {
+        return parameters[slot * MAX_NBR_OF_PARAMETERS + k - 1];
+    }
+
+    /**
+     * @return length of the float array descriptor of the step
+     */
+    public int getLength(int slot) {
+        return lengths[slot];
+    }
+
+    /**
+     * @return float array descriptor of the step
+     */
+    public float[] toArray(int slot) {
+        float[] step = new float[lengths[slot]];
+        step[0] = values[slot];
+        for (int k = 1; k < step.length; k++)
+            step[k] = getParameter(slot, k);
+
+        return step;
+    }
+
+    /**
+     * @return slot for the new step or -1, if the step is not kept
+     */
+    private int nextSlot(float value) {
+        nbrOfFoundSteps++;
+        if (maxSize > 0 && nbrOfHeapedSlots == 0)
+            return nextBoundedSlot(value);
+
+        if (size == values.length)
+            grow();
+
+        values[size] = value;
+        return size++;
+    }
+
+    /**
+     * The bounded buffer replaces its worst step, if the new step is better.
+     */
+    private int nextBoundedSlot(float value) {
+        if (size < maxSize) {
+            values[size] = value;
+            siftUpWorst(size);
+            return size++;
+        }
+
+        isTruncated = true;
+        int worst = worstHeap[0];
+        if (value <= values[worst])
+            return -1;
+
+        values[worst] = value;
+        siftDownWorst();
+        return worst;
+    }
+
+    private void grow() {
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        parameters = Arrays.copyOf(parameters, capacity * MAX_NBR_OF_PARAMETERS);
+        lengths = Arrays.copyOf(lengths, capacity);
+        heap = Arrays.copyOf(heap, capacity);
+    }
+
+    private void siftUp(int slot) {
+        int k = heapSize++;
+        float value = values[slot];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int e = heap[parent];
+            if (value <= values[e])
+                break;
+            heap[k] = e;
+            k = parent;
+        }
+        heap[k] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int k = 0;
+        int half = heapSize >>> 1;
+        float value = values[slot];
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < heapSize && values[c] < values[heap[right]])
+                c = heap[child = right];
+            if (value >= values[c])
+                break;
+            heap[k] = c;
+            k = child;
+        }
+        heap[k] = slot;
+    }
+
+    private void siftUpWorst(int slot) {
+        int k = slot;
+        float value = values[slot];
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int e = worstHeap[parent];
+            if (value >= values[e])
+                break;
+            worstHeap[k] = e;
+            k = parent;
+        }
+        worstHeap[k] = slot;
+    }
+
+    private void siftDownWorst() {
+        int slot = worstHeap[0];
+        int k = 0;
+        int half = size >>> 1;
+        float value = values[slot];
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int c = worstHeap[child];
+            int right = child + 1;
+            if (right < size && values[c] > values[worstHeap[right]])
+                c = worstHeap[child = right];
+            if (value <= values[c])
+                break;
+            worstHeap[k] = c;
+            k = child;
+        }
+        worstHeap[k] = slot;
+    }
+}
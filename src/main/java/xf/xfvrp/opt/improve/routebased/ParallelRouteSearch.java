@@ -0,0 +1,96 @@
+package xf.xfvrp.opt.improve.routebased;
+
+import xf.xfvrp.opt.Solution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Splits the source route loop of a route based search into chunks of consecutive
+ * source routes. If parallel neighborhood search is active, the chunks are searched
+ * in the fork-join pool, where each chunk collects its improving steps in its own buffer.
+ * <p>
+ * The search only reads the solution and the model. The chunk buffers are merged in
+ * the order of the source routes, so the improving steps are added in the same order
+ * as with a sequential search and the polling order is the same.
+ * <p>
+ * If the buffer has a search limit, the source routes are searched one after another
+ * and the search stops, when the limit is reached. Source routes, which were searched
+ * before the buffer was continued, are skipped. The search starts with the first route
+ * of the buffer and continues cyclically.
+ *
+ * @author hschneid
+ */
+public class ParallelRouteSearch {
+
+    private static final int NBR_OF_CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Search of the source routes from fromRtIdx (inclusive) to toRtIdx (exclusive)
+     */
+    @FunctionalInterface
+    public interface RouteRangeSearch {
+        void search(int fromRtIdx, int toRtIdx, MoveBuffer improvingSteps);
+    }
+
+    /**
+     * Searches all source routes of the solution and adds the improving steps to the buffer.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps, RouteRangeSearch search) {
+        int nbrOfRoutes = solution.getRoutes().length;
+        if (improvingSteps.getSearchLimit() > 0) {
+            searchWithLimit(nbrOfRoutes, improvingSteps, search);
+            return;
+        }
+
+        int nbrOfChunks = getNbrOfChunks(solution, nbrOfRoutes);
+        if (nbrOfChunks <= 1) {
+            search.search(0, nbrOfRoutes, improvingSteps);
+            return;
+        }
+
+        MoveBuffer[] chunkSteps = new MoveBuffer[nbrOfChunks];
+        IntStream.range(0, nbrOfChunks).parallel().forEach(i -> {
+            chunkSteps[i] = new MoveBuffer();
+            search.search(
+                    (int) ((long) i * nbrOfRoutes / nbrOfChunks),
+                    (int) ((long) (i + 1) * nbrOfRoutes / nbrOfChunks),
+                    chunkSteps[i]
+            );
+        });
+
+        for (MoveBuffer steps : chunkSteps)
+            improvingSteps.addAll(steps);
+    }
+
+    private static void searchWithLimit(int nbrOfRoutes, MoveBuffer improvingSteps, RouteRangeSearch search) {
+        for (int i = 0; i < nbrOfRoutes; i++) {
+            int rtIdx = (improvingSteps.getFirstRoute() + i) % nbrOfRoutes;
+            if (improvingSteps.isSearchLimitReached()) {
+                improvingSteps.markStopped();
+                return;
+            }
+
+            if (improvingSteps.nextRoute())
+                search.search(rtIdx, rtIdx + 1, improvingSteps);
+        }
+    }
+
+    /**
+     * Routes with more work (first routes of symmetric searches) are balanced by
+     * using more chunks than threads.
+     */
+    private static int getNbrOfChunks(Solution solution, int nbrOfRoutes) {
+        if (!solution.getModel().getParameter().isParallelNeighborhoodSearch())
+            return 1;
+
+        return Math.min(nbrOfRoutes, ForkJoinPool.getCommonPoolParallelism() * NBR_OF_CHUNKS_PER_THREAD);
+    }
+}
@@ -0,0 +1,125 @@
+package xf.xfvrp.opt.improve.routebased;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.opt.Solution;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Memorizes the improving steps of a route based search per route pair. An applied
+ * change touches only one or two routes, so in the next search only the route pairs
+ * with a changed route must be searched again. The steps of all other pairs are
+ * taken from the previous search.
+ * <p>
+ * A route is changed, if its array or its overhang flag differs from the last search
+ * or if it was marked as changed. If the number of routes or the model changes, all
+ * routes are searched again.
+ * <p>
+ * The steps are handed out in the order of the route pairs (source route first), which
+ * is the order of a full search. So the polling order of the improving steps is the same as with a
+ * full search.
+ * <p>
+ * A cache belongs to one search util and one execution of an operator and is not thread safe.
+ *
+ * @author hschneid
+ */
+public class RoutePairCache {
+
+    private XFVRPModel model;
+    private Node[][] routes = new Node[0][];
+    private boolean[] isOverhang = new boolean[0];
+    private boolean[] isChanged = new boolean[0];
+    private MoveBuffer[] steps = new MoveBuffer[0];
+
+    /**
+     * Compares the routes of the solution with the routes of the last search
+     * and invalidates the steps of all route pairs with a changed route.
+     */
+    public void update(Solution solution) {
+        Node[][] currentRoutes = solution.getRoutes();
+        boolean[] currentOverhang = solution.getOverhangRoutes();
+
+        if (model != solution.getModel() || currentRoutes.length != routes.length) {
+            model = solution.getModel();
+            routes = new Node[currentRoutes.length][];
+            isOverhang = new boolean[currentRoutes.length];
+            isChanged = new boolean[currentRoutes.length];
+            steps = new MoveBuffer[currentRoutes.length * currentRoutes.length];
+            Arrays.fill(isChanged, true);
+        }
+
+        for (int i = 0; i < currentRoutes.length; i++) {
+            if (routes[i] != currentRoutes[i] || isOverhang[i] != currentOverhang[i])
+                isChanged[i] = true;
+
+            routes[i] = currentRoutes[i];
+            isOverhang[i] = currentOverhang[i];
+        }
+
+        // Steps of changed route pairs are invalid, even if a search util does not search them again
+        for (int i = 0; i < isChanged.length; i++) {
+            if (!isChanged[i])
+                continue;
+
+            for (int j = 0; j < isChanged.length; j++) {
+                clear(i * routes.length + j);
+                clear(j * routes.length + i);
+            }
+        }
+    }
+
+    /**
+     * Marks a route as changed, so that its route pairs are searched again in the next search.
+     * This is needed, if a route was changed without replacing its array.
+     */
+    public void markChanged(int routeIdx) {
+        if (routeIdx < isChanged.length)
+            isChanged[routeIdx] = true;
+    }
+
+    /**
+     * @return true, if at least one of both routes is changed since the last search
+     */
+    public boolean isChanged(int rtIdx1, int rtIdx2) {
+        return isChanged[rtIdx1] || isChanged[rtIdx2];
+    }
+
+    /**
+     * @return empty buffer, which takes the new improving steps of the route pair
+     */
+    public MoveBuffer getSteps(int rtIdx1, int rtIdx2) {
+        int pairIdx = rtIdx1 * routes.length + rtIdx2;
+        if (steps[pairIdx] == null)
+            steps[pairIdx] = new MoveBuffer();
+        else
+            steps[pairIdx].clear();
+
+        return steps[pairIdx];
+    }
+
+    /**
+     * Adds the improving steps of all route pairs to the given buffer and finishes
+     * the current search. All routes are unchanged afterwards.
+     */
+    public void addTo(MoveBuffer improvingSteps) {
+        for (MoveBuffer pairSteps : steps) {
+            if (pairSteps != null)
+                improvingSteps.addAll(pairSteps);
+        }
+
+        Arrays.fill(isChanged, false);
+    }
+
+    private void clear(int pairIdx) {
+        if (steps[pairIdx] != null)
+            steps[pairIdx].clear();
+    }
+}
@@ -0,0 +1,93 @@
+package xf.xfvrp.opt.improve.routebased;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.SiteType;
+
+import java.util.Arrays;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Route index and position of each customer in the routes of a solution
+ * for granular neighborhood searches. It is built once per search, because
+ * each applied change moves the nodes.
+ * <p>
+ * Additionally insertion positions can be marked, so that a position is
+ * evaluated only once per source segment, even if it is adjacent to several candidates.
+ *
+ * @author hschneid
+ */
+public class RoutePositions {
+
+    private final int[] routeIdx;
+    private final int[] pos;
+    private final int[] routeOffsets;
+    private final int[] marks;
+    private int mark = 0;
+
+    /**
+     * @param routes     Routes of a solution
+     * @param nbrOfNodes Number of nodes in the model
+     */
+    public RoutePositions(Node[][] routes, int nbrOfNodes) {
+        routeIdx = new int[nbrOfNodes];
+        pos = new int[nbrOfNodes];
+        Arrays.fill(routeIdx, -1);
+
+        routeOffsets = new int[routes.length];
+        int offset = 0;
+        for (int r = 0; r < routes.length; r++) {
+            routeOffsets[r] = offset;
+            offset += routes[r].length;
+
+            for (int p = 0; p < routes[r].length; p++) {
+                Node node = routes[r][p];
+                if (node.getSiteType() == SiteType.CUSTOMER) {
+                    routeIdx[node.getIdx()] = r;
+                    pos[node.getIdx()] = p;
+                }
+            }
+        }
+        marks = new int[offset];
+    }
+
+    /**
+     * @return index of the route with the given customer or -1, if it is not in any route
+     */
+    public int getRoute(int nodeIdx) {
+        return routeIdx[nodeIdx];
+    }
+
+    /**
+     * @return position of the given customer in its route
+     */
+    public int getPos(int nodeIdx) {
+        return pos[nodeIdx];
+    }
+
+    /**
+     * Starts a new round of marking. All positions are unmarked afterwards.
+     */
+    public void nextRound() {
+        mark++;
+    }
+
+    /**
+     * Marks a position in the current round.
+     *
+     * @return true, if the position was not marked before in the current round
+     */
+    public boolean mark(int rtIdx, int position) {
+        int i = routeOffsets[rtIdx] + position;
+        if (marks[i] == mark)
+            return false;
+
+        marks[i] = mark;
+        return true;
+    }
+}
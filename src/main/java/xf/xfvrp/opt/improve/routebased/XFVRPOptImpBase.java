@@ -3,11 +3,15 @@ package xf.xfvrp.opt.improve.routebased;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.NormalizeSolutionService;
 import xf.xfvrp.base.Quality;
+import xf.xfvrp.base.XFVRPParameter;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
 import xf.xfvrp.opt.XFVRPOptBase;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.evaluation.RouteSegmentSummaries;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
+import java.util.PriorityQueue;
 import java.util.Queue;
 
 /**
@@ -38,10 +42,81 @@ public abstract class XFVRPOptImpBase extends XFVRPOptBase {
         isSplittable = true;
     }
 
-    protected abstract Queue<float[]> search(Solution solution);
+    /**
+     * Searches all improving steps of this neighborhood and adds them to the buffer. The search utils
+     * may take the steps of route pairs, which are unchanged since the last search, from the given
+     * caches. There is one cache per search util (see getNbrOfRoutePairCaches).
+     */
+    protected abstract void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches);
+
+    /**
+     * Searches all improving steps of this neighborhood without caches.
+     *
+     * @return improving steps as float array descriptors, where the best step is first
+     */
+    protected Queue<float[]> search(Solution solution) {
+        MoveBuffer buffer = new MoveBuffer();
+        search(solution, buffer, createRoutePairCaches());
+
+        PriorityQueue<float[]> improvingSteps = new PriorityQueue<>(
+                (o1, o2) -> Float.compare(o2[0], o1[0])
+        );
+        buffer.addTo(improvingSteps);
+
+        return improvingSteps;
+    }
+
+    /**
+     * @return number of route pair caches, which are used in search(Solution, MoveBuffer, RoutePairCache[])
+     */
+    protected int getNbrOfRoutePairCaches() {
+        return 0;
+    }
+
+    /**
+     * @return new and empty route pair caches, where a search with them is a full search
+     */
+    protected RoutePairCache[] createRoutePairCaches() {
+        RoutePairCache[] caches = new RoutePairCache[getNbrOfRoutePairCaches()];
+        for (int i = 0; i < caches.length; i++)
+            caches[i] = new RoutePairCache();
+
+        return caches;
+    }
 
     protected abstract Node[][] change(Solution solution, float[] changeParameter) throws XFVRPException;
 
+    /**
+     * Applies the step in the given slot of the buffer. By default the step
+     * is converted into its float array descriptor.
+     */
+    protected Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        return change(solution, steps.toArray(step));
+    }
+
+    /**
+     * Applies the step in the given slot of the buffer, where all changed routes are logged
+     * in the solution. So a rejected step is reverted with Solution.undoRouteChanges. By default,
+     * the step is applied with change(Solution, MoveBuffer, int) and the replaced routes are logged.
+     */
+    protected void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        solution.logRoute(steps.getParameter(step, 1));
+        solution.logRoute(steps.getParameter(step, 2));
+        change(solution, steps, step);
+    }
+
+    /**
+     * Checks the step in the given slot of the buffer with the segment summaries of the
+     * routes before it is applied. Steps, which are infeasible for sure, are skipped without
+     * the full evaluation of the changed routes. By default, all steps are checked by the
+     * full evaluation.
+     *
+     * @return false, if a changed route of the step is infeasible for sure
+     */
+    protected boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        return true;
+    }
+
     /*
      * (non-Javadoc)
      * @see xf.xfvrp.base.XFVRPBase#execute(xf.xfvrp.opt.Solution)
@@ -51,10 +126,15 @@ public abstract class XFVRPOptImpBase extends XFVRPOptBase {
         // Evaluate current solution
         Quality bestResult = check(solution);
 
+        // Improving steps of unchanged route pairs are reused in the next search
+        RoutePairCache[] caches = createSearchCaches();
+        MoveBuffer improvingSteps = createImprovingSteps();
+        RouteConcatenation concatenation = createRouteConcatenation(solution);
+
         // Search for improvements and apply them as long as there are improvements or enough time left
         long startTime = System.currentTimeMillis();
         while ((System.currentTimeMillis() - startTime) / 1000.0 < model.getParameter().getMaxRunningTimeInSec()) {
-            Quality result = improve(solution, bestResult);
+            Quality result = improve(solution, bestResult, improvingSteps, caches, concatenation);
             if (result == null)
                 break;
 
@@ -77,24 +157,113 @@ public abstract class XFVRPOptImpBase extends XFVRPOptBase {
      * Currently it is only used by the PathExchange operator.
      */
     protected Quality improve(final Solution solution, Quality bestResult) throws XFVRPException {
+        return improve(
+                solution,
+                bestResult,
+                createImprovingSteps(),
+                createSearchCaches(),
+                createRouteConcatenation(solution)
+        );
+    }
+
+    /**
+     * @return empty buffer for the improving steps, which is bounded and limited like given by the parameters
+     */
+    private MoveBuffer createImprovingSteps() {
+        XFVRPParameter parameter = model.getParameter();
+        MoveBuffer improvingSteps = new MoveBuffer(parameter.getMaxNbrOfImprovingSteps());
+
+        switch (parameter.getAcceptanceStrategy()) {
+            case FIRST_IMPROVEMENT:
+                improvingSteps.setSearchLimit(1);
+                break;
+            case BEST_OF_FIRST_N:
+                improvingSteps.setSearchLimit(Math.max(1, parameter.getNbrOfFirstImprovingSteps()));
+                break;
+            default:
+                break;
+        }
+
+        return improvingSteps;
+    }
+
+    /**
+     * A stopped search does not find the steps of all changed route pairs, so route pair caches
+     * are only used, if the whole neighborhood is searched. Otherwise the caches are null.
+     */
+    private RoutePairCache[] createSearchCaches() {
+        if (model.getParameter().getAcceptanceStrategy() == AcceptanceStrategy.BEST_IMPROVEMENT)
+            return createRoutePairCaches();
+
+        return new RoutePairCache[getNbrOfRoutePairCaches()];
+    }
+
+    /**
+     * @return concatenation of changed routes with the segment summaries of the solution or null,
+     * if the summaries can not be used for this model
+     */
+    private RouteConcatenation createRouteConcatenation(Solution solution) {
+        RouteSegmentSummaries summaries = solution.getSegmentSummaries();
+        if (summaries != null)
+            return new RouteConcatenation(summaries);
+
+        return null;
+    }
+
+    private Quality improve(final Solution solution, Quality bestResult, MoveBuffer improvingSteps, RoutePairCache[] caches, RouteConcatenation concatenation) throws XFVRPException {
         check(solution);
 
-        Queue<float[]> improvingSteps = search(solution);
+        improvingSteps.clear();
+        search(solution, improvingSteps, caches);
+        Quality result = applyFirstImprovingStep(solution, bestResult, improvingSteps, caches, concatenation);
+
+        // All found steps are rejected, so the stopped search continues with the next source routes
+        while (result == null && improvingSteps.isStopped()) {
+            improvingSteps.continueSearch();
+            search(solution, improvingSteps, caches);
+            result = applyFirstImprovingStep(solution, bestResult, improvingSteps, caches, concatenation);
+        }
+
+        // All kept steps are rejected, so the dropped steps must be tried too
+        if (result == null && improvingSteps.isTruncated()) {
+            MoveBuffer allSteps = new MoveBuffer();
+            search(solution, allSteps, caches);
+            result = applyFirstImprovingStep(solution, bestResult, allSteps, caches, concatenation);
+        }
+
+        return result;
+    }
+
+    private Quality applyFirstImprovingStep(Solution solution, Quality bestResult, MoveBuffer improvingSteps, RoutePairCache[] caches, RouteConcatenation concatenation) throws XFVRPException {
         // Find first valid improving change
         while (!improvingSteps.isEmpty()) {
-            float[] val = improvingSteps.remove();
+            int step = improvingSteps.poll();
+            int rtIdx1 = improvingSteps.getParameter(step, 1);
+            int rtIdx2 = improvingSteps.getParameter(step, 2);
+
+            if (concatenation != null && !isFeasible(solution, improvingSteps, step, concatenation))
+                continue;
 
             // Variation
-            Node[][] oldRoutes = change(solution, val);
+            apply(solution, improvingSteps, step);
 
-            Quality result = check(solution, (int) val[1], (int) val[2]);
-            if (isImprovement(result, bestResult, (int) val[7])) {
+            Quality result = check(solution, rtIdx1, rtIdx2);
+            if (isImprovement(result, bestResult, improvingSteps.getParameter(step, 7))) {
+                solution.commitRouteChanges();
                 solution.fixateQualities();
+                improvingSteps.setFirstRoute(rtIdx1);
+                for (RoutePairCache cache : caches) {
+                    if (cache == null)
+                        continue;
+
+                    cache.markChanged(rtIdx1);
+                    cache.markChanged(rtIdx2);
+                }
                 return result;
             }
 
             // Reverse
-            reverseChange(solution, val, oldRoutes);
+            reverseChange(solution);
         }
 
         return null;
@@ -105,10 +274,8 @@ public abstract class XFVRPOptImpBase extends XFVRPOptBase {
 		return currentResult.getPenalty() == 0 &&
 				(currentResult.getFitness() < bestResult.getFitness() ||
 						overhangFlag == XFVRPMoveUtil.IS_OVERHANG);
-	}private void reverseChange(Solution solution, float[] val, Node[][] oldRoutes) {
-        solution.setRoute((int) val[1], oldRoutes[0]);
-        if (oldRoutes.length > 1)
-            solution.setRoute((int) val[2], oldRoutes[1]);
+	}private void reverseChange(Solution solution) {
+        solution.undoRouteChanges();
         solution.resetQualities();
     }
 
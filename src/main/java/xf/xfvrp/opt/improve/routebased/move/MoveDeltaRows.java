@@ -0,0 +1,165 @@
+package xf.xfvrp.opt.improve.routebased.move;
+
+import xf.xfvrp.base.Node;
+import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.metric.InternalMetric;
+import xf.xfvrp.base.metric.internal.InternalOptMetric;
+
+/**
+ * Copyright (c) 2012-2026 Holger Schneider
+ * All rights reserved.
+ * <p>
+ * This source code is licensed under the MIT License (MIT) found in the
+ * LICENSE file in the root directory of this source tree.
+ * <p>
+ * <p>
+ * Computes the change of distance of moving a segment of a source route into all
+ * positions of a destination route at once.
+ * <p>
+ * The indexes of the nodes of the destination route are gathered once per route, so that
+ * the distances of a row of positions are read in tight loops from the flat matrix of the
+ * optimization metric. For other optimization metrics the distances are read node by node.
+ * The values are equal to the values of a calculation for each single position.
+ * <p>
+ * Rows must not be shared between threads.
+ *
+ * @author hschneid
+ */
+class MoveDeltaRows {
+
+    private final XFVRPModel model;
+    // Flat matrix of optimization metric or null, if distances are read node by node
+    private final InternalOptMetric optMetric;
+
+    private Node[] dstRoute = new Node[0];
+    private int[] dstIdx = new int[0];
+    // Distance from position - 1 to position of the destination route
+    private float[] dstDistances = new float[0];
+
+    // Distances from each position of the destination route to first or last node of segment and back
+    private float[] toFirst = new float[0];
+    private float[] fromFirst = new float[0];
+    private float[] toLast = new float[0];
+    private float[] fromLast = new float[0];
+
+    // Change of distance per segment length and destination position
+    private float[][] values = new float[0][0];
+    private float[][] invertedValues = new float[0][0];
+    private int rowCapacity = 0;
+
+    MoveDeltaRows(XFVRPModel model) {
+        this.model = model;
+
+        InternalMetric metric = model.getOptMetric();
+        this.optMetric = (metric instanceof InternalOptMetric) ? (InternalOptMetric) metric : null;
+    }
+
+    /**
+     * Gathers the nodes of the destination route for all following rows.
+     */
+    void setDestination(Node[] route) {
+        int length = route.length;
+        if (dstIdx.length < length) {
+            dstIdx = new int[length];
+            dstDistances = new float[length];
+            toFirst = new float[length];
+            fromFirst = new float[length];
+            toLast = new float[length];
+            fromLast = new float[length];
+        }
+
+        dstRoute = route;
+        for (int i = 0; i < length; i++)
+            dstIdx[i] = route[i].getIdx();
+        for (int i = 1; i < length; i++)
+            dstDistances[i] = getDistance(route[i - 1], route[i]);
+    }
+
+    /**
+     * Computes the rows for all segments of the source route, which start at srcPos and have
+     * a length of less than maxSegmentLength. The segment is inserted before each position of
+     * the destination route.
+     */
+    void compute(Node[] srcRoute, int srcPos, int maxSegmentLength, boolean isInvertationActive) {
+        int length = dstRoute.length;
+        if (values.length < maxSegmentLength || rowCapacity < length) {
+            rowCapacity = Math.max(rowCapacity, length);
+            values = new float[Math.max(values.length, maxSegmentLength)][rowCapacity];
+            invertedValues = new float[values.length][rowCapacity];
+        }
+
+        Node prev = srcRoute[srcPos - 1];
+        Node first = srcRoute[srcPos];
+        gatherTo(first, toFirst);
+        if (isInvertationActive)
+            gatherFrom(first, fromFirst);
+
+        for (int segmentLength = 0; segmentLength < maxSegmentLength; segmentLength++) {
+            if ((srcPos + segmentLength) > srcRoute.length - 2)
+                break;
+
+            Node last = srcRoute[srcPos + segmentLength];
+            Node next = srcRoute[srcPos + segmentLength + 1];
+            float srcOld = getDistance(prev, first) + getDistance(last, next);
+            float srcNew = getDistance(prev, next);
+
+            gatherFrom(last, fromLast);
+            float[] row = values[segmentLength];
+            for (int dstPos = 1; dstPos < length; dstPos++)
+                row[dstPos] = (srcOld + dstDistances[dstPos]) - (srcNew + toFirst[dstPos - 1] + fromLast[dstPos]);
+
+            if (isInvertationActive && segmentLength > 0) {
+                gatherTo(last, toLast);
+                float[] invertedRow = invertedValues[segmentLength];
+                for (int dstPos = 1; dstPos < length; dstPos++)
+                    invertedRow[dstPos] = (srcOld + dstDistances[dstPos]) - (srcNew + toLast[dstPos - 1] + fromFirst[dstPos]);
+            }
+        }
+    }
+
+    /**
+     * @return saving of distance, if the segment is inserted before dstPos
+     */
+    float getValue(int segmentLength, int dstPos) {
+        return values[segmentLength][dstPos];
+    }
+
+    /**
+     * @return saving of distance, if the inverted segment is inserted before dstPos
+     */
+    float getInvertedValue(int segmentLength, int dstPos) {
+        return invertedValues[segmentLength][dstPos];
+    }
+
+    /**
+     * Distances from all nodes of the destination route to the node
+     */
+    private void gatherTo(Node node, float[] out) {
+        int length = dstRoute.length;
+        if (optMetric != null) {
+            optMetric.getDistancesTo(dstIdx, node.getIdx(), 0, length, out);
+            return;
+        }
+
+        for (int i = 0; i < length; i++)
+            out[i] = model.getDistanceForOptimization(dstRoute[i], node);
+    }
+
+    /**
+     * Distances from the node to all nodes of the destination route
+     */
+    private void gatherFrom(Node node, float[] out) {
+        int length = dstRoute.length;
+        if (optMetric != null) {
+            optMetric.getDistancesFrom(node.getIdx(), dstIdx, 0, length, out);
+            return;
+        }
+
+        for (int i = 0; i < length; i++)
+            out[i] = model.getDistanceForOptimization(node, dstRoute[i]);
+    }
+
+    private float getDistance(Node src, Node dst) {
+        return model.getDistanceForOptimization(src, dst);
+    }
+}
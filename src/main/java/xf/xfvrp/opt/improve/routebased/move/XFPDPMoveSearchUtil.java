@@ -4,7 +4,10 @@ import xf.xfvrp.base.Node;
 import xf.xfvrp.base.SiteType;
 import xf.xfvrp.base.XFVRPModel;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.ParallelRouteSearch;
 
+import java.util.ArrayDeque;
 import java.util.Queue;
 
 /**
@@ -18,6 +21,24 @@ public class XFPDPMoveSearchUtil {
 
     private static final float EPSILON = 0.001f;
 
+    /**
+     * Searches all improving steps like search(Solution, Queue) and adds
+     * them to the buffer in the same order.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps) {
+        Node[][] routes = solution.getRoutes();
+        int[][] shipmentPositions = getShipmentPositions(routes, solution.getModel());
+
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            Queue<float[]> routeSteps = new ArrayDeque<>();
+            for (int srcRtIdx = fromRtIdx; srcRtIdx < toRtIdx; srcRtIdx++)
+                searchSourceRoute(solution, routes, shipmentPositions, srcRtIdx, routeSteps);
+
+            for (float[] step : routeSteps)
+                steps.add(step);
+        });
+    }
+
     /**
      * Searches all improving steps in search space for a PDP.
      */
@@ -28,38 +49,45 @@ public class XFPDPMoveSearchUtil {
 
         int[][] shipmentPositions = getShipmentPositions(routes, solution.getModel());
 
-        for (int srcRtIdx = 0; srcRtIdx < nbrOfRoutes; srcRtIdx++) {
-            Node[] srcRoute = routes[srcRtIdx];
-            for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
-                Node[] dstRoute = routes[dstRtIdx];
-                for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
-                    // src node must not be a depot
-                    if (routes[srcRtIdx][srcPos].getSiteType() != SiteType.CUSTOMER)
-                        continue;
-
-                    // Source node must be pickup
-                    if (routes[srcRtIdx][srcPos].getDemand()[0] < 0)
-                        continue;
-
-                    // srcB is dependent delivery to pickup srcA
-                    int srcDeliveryPos = shipmentPositions[routes[srcRtIdx][srcPos].getShipmentIdx()][1];
-
-                    for (int dstPickupPos = 1; dstPickupPos < routes[dstRtIdx].length; dstPickupPos++) {
-                        for (int dstDeliveryPos = dstPickupPos; dstDeliveryPos < routes[dstRtIdx].length; dstDeliveryPos++) {
-                            // src and dst must be different positions
-                            if (srcRtIdx == dstRtIdx && (srcPos == dstPickupPos || dstPickupPos - srcPos == 1)) {
-                                continue;
-                            }
-
-                            // Destination pointer must not be at Source pointer
-                            if (srcRoute == dstRoute &&
-                                    dstPickupPos - srcPos != 0 && dstPickupPos - srcPos != 1 &&
-                                    dstDeliveryPos - srcDeliveryPos != 0 && dstDeliveryPos - srcDeliveryPos != 1) {
-                                continue;
-                            }
-
-                            search(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, srcDeliveryPos, dstPickupPos, dstDeliveryPos, improvingSteps);
+        for (int srcRtIdx = 0; srcRtIdx < nbrOfRoutes; srcRtIdx++)
+            searchSourceRoute(solution, routes, shipmentPositions, srcRtIdx, improvingSteps);
+    }
+
+    /**
+     * Searches all shipment moves from the source route into all routes.
+     */
+    private static void searchSourceRoute(Solution solution, Node[][] routes, int[][] shipmentPositions, int srcRtIdx, Queue<float[]> improvingSteps) {
+        int nbrOfRoutes = routes.length;
+        Node[] srcRoute = routes[srcRtIdx];
+        for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
+            Node[] dstRoute = routes[dstRtIdx];
+            for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
+                // src node must not be a depot
+                if (routes[srcRtIdx][srcPos].getSiteType() != SiteType.CUSTOMER)
+                    continue;
+
+                // Source node must be pickup
+                if (routes[srcRtIdx][srcPos].getDemand()[0] < 0)
+                    continue;
+
+                // srcB is dependent delivery to pickup srcA
+                int srcDeliveryPos = shipmentPositions[routes[srcRtIdx][srcPos].getShipmentIdx()][1];
+
+                for (int dstPickupPos = 1; dstPickupPos < routes[dstRtIdx].length; dstPickupPos++) {
+                    for (int dstDeliveryPos = dstPickupPos; dstDeliveryPos < routes[dstRtIdx].length; dstDeliveryPos++) {
+                        // src and dst must be different positions
+                        if (srcRtIdx == dstRtIdx && (srcPos == dstPickupPos || dstPickupPos - srcPos == 1)) {
+                            continue;
+                        }
+
+                        // Destination pointer must not be at Source pointer
+                        if (srcRoute == dstRoute &&
+                                dstPickupPos - srcPos != 0 && dstPickupPos - srcPos != 1 &&
+                                dstDeliveryPos - srcDeliveryPos != 0 && dstDeliveryPos - srcDeliveryPos != 1) {
+                            continue;
                         }
+
+                        search(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, srcDeliveryPos, dstPickupPos, dstDeliveryPos, improvingSteps);
                     }
                 }
             }
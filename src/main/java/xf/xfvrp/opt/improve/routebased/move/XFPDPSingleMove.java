@@ -3,11 +3,10 @@ package xf.xfvrp.opt.improve.routebased.move;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.XFVRPOptImpBase;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -24,13 +23,8 @@ import java.util.Queue;
 public class XFPDPSingleMove extends XFVRPOptImpBase {
 
     @Override
-    protected Queue<float[]> search(Solution solution) {
-        PriorityQueue<float[]> improvingSteps = new PriorityQueue<>(
-                (o1, o2) -> Float.compare(o2[0], o1[0])
-        );
+    protected void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches) {
         XFPDPMoveSearchUtil.search(solution, improvingSteps);
-
-        return improvingSteps;
     }
 
     @Override
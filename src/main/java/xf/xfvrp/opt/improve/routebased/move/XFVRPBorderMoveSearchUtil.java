@@ -4,6 +4,9 @@ import xf.xfvrp.base.Node;
 import xf.xfvrp.base.SiteType;
 import xf.xfvrp.base.XFVRPModel;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.ParallelRouteSearch;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 
 import java.util.Queue;
 
@@ -22,68 +25,95 @@ public class XFVRPBorderMoveSearchUtil {
      * Searches all improving steps in search space for a VRP.
      */
     public static void search(Solution solution, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+        MoveBuffer buffer = new MoveBuffer();
+        search(solution, buffer, null, isInvertationActive);
+        buffer.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all improving steps in search space for a VRP. Only route pairs with a changed
+     * route are searched, if a cache is given. The steps of the other pairs are taken from the cache.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache cache, boolean isInvertationActive) {
+        if (cache != null)
+            cache.update(solution);
+
         Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            for (int srcRtIdx = fromRtIdx; srcRtIdx < toRtIdx; srcRtIdx++)
+                searchSourceRoute(solution, routes, srcRtIdx, steps, cache, isInvertationActive);
+        });
 
+        if (cache != null)
+            cache.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all border moves from the source route into all routes.
+     */
+    private static void searchSourceRoute(Solution solution, Node[][] routes, int srcRtIdx, MoveBuffer improvingSteps, RoutePairCache cache, boolean isInvertationActive) {
         int nbrOfRoutes = routes.length;
-        for (int srcRtIdx = 0; srcRtIdx < nbrOfRoutes; srcRtIdx++) {
-            Node[] srcRoute = routes[srcRtIdx];
-            if(srcRoute.length == 0)
-                continue;
+        Node[] srcRoute = routes[srcRtIdx];
+        if(srcRoute.length == 0)
+            return;
 
-            for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
-                Node[] dstRoute = routes[dstRtIdx];
-                if(dstRoute.length == 0)
-                    continue;
+        for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
+            Node[] dstRoute = routes[dstRtIdx];
+            if(dstRoute.length == 0)
+                continue;
+            if (cache != null && !cache.isChanged(srcRtIdx, dstRtIdx))
+                continue;
 
-                var sameRoute = srcRtIdx == dstRtIdx;
+            MoveBuffer pairSteps = (cache != null) ? cache.getSteps(srcRtIdx, dstRtIdx) : improvingSteps;
 
-                for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
-                    if(srcRoute[srcPos].getSiteType() == SiteType.DEPOT)
-                        continue;
+            var sameRoute = srcRtIdx == dstRtIdx;
 
-                    // Move before SRC to start of DST
-                    if(!sameRoute)
-                        searchInRoutes(
-                                solution,
-                                srcRoute, dstRoute,
-                                srcRtIdx, dstRtIdx,
-                                1,
-                                1, srcPos - 1,
-                                improvingSteps, isInvertationActive);
+            for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
+                if(srcRoute[srcPos].getSiteType() == SiteType.DEPOT)
+                    continue;
 
-                    // Move before SRC to end of DST
+                // Move before SRC to start of DST
+                if(!sameRoute)
                     searchInRoutes(
                             solution,
                             srcRoute, dstRoute,
                             srcRtIdx, dstRtIdx,
                             1,
-                            dstRoute.length - 1, srcPos - 1,
-                            improvingSteps, isInvertationActive);
-
-                    // Move after SRC to start of DST
+                            1, srcPos - 1,
+                            pairSteps, isInvertationActive);
+
+                // Move before SRC to end of DST
+                searchInRoutes(
+                        solution,
+                        srcRoute, dstRoute,
+                        srcRtIdx, dstRtIdx,
+                        1,
+                        dstRoute.length - 1, srcPos - 1,
+                        pairSteps, isInvertationActive);
+
+                // Move after SRC to start of DST
+                searchInRoutes(
+                        solution,
+                        srcRoute, dstRoute,
+                        srcRtIdx, dstRtIdx,
+                        srcPos,
+                        1, srcRoute.length - srcPos - 2,
+                        pairSteps, isInvertationActive);
+
+                // Move after SRC to end of DST
+                if(!sameRoute)
                     searchInRoutes(
                             solution,
                             srcRoute, dstRoute,
                             srcRtIdx, dstRtIdx,
                             srcPos,
-                            1, srcRoute.length - srcPos - 2,
-                            improvingSteps, isInvertationActive);
-
-                    // Move after SRC to end of DST
-                    if(!sameRoute)
-                        searchInRoutes(
-                                solution,
-                                srcRoute, dstRoute,
-                                srcRtIdx, dstRtIdx,
-                                srcPos,
-                                dstRoute.length - 1, srcRoute.length - srcPos - 2,
-                                improvingSteps, isInvertationActive);
-                }
+                            dstRoute.length - 1, srcRoute.length - srcPos - 2,
+                            pairSteps, isInvertationActive);
             }
         }
     }
 
-    private static void searchInRoutes(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    private static void searchInRoutes(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, boolean isInvertationActive) {
         // Prevent Non-sense move
         if(srcRtIdx == dstRtIdx && dstPos - (srcPos + segmentLength) == 1)
             return;
@@ -99,7 +129,7 @@ public class XFVRPBorderMoveSearchUtil {
         }
     }
 
-    private static void searchNormal(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    private static void searchNormal(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, boolean isInvertationActive) {
         XFVRPModel model = solution.getModel();
         float old = model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos]) +
                 model.getDistanceForOptimization(srcRoute[srcPos + segmentLength], srcRoute[srcPos + segmentLength + 1]) +
@@ -111,7 +141,7 @@ public class XFVRPBorderMoveSearchUtil {
                         (model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos + segmentLength + 1]) +
                                 model.getDistanceForOptimization(dstRoute[dstPos - 1], srcRoute[srcPos]) +
                                 model.getDistanceForOptimization(srcRoute[srcPos + segmentLength], dstRoute[dstPos]));
-        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT);
 
         // with invert
         if (isInvertationActive && segmentLength > 0) {
@@ -120,11 +150,11 @@ public class XFVRPBorderMoveSearchUtil {
                             (model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos + segmentLength + 1]) +
                                     model.getDistanceForOptimization(dstRoute[dstPos - 1], srcRoute[srcPos + segmentLength]) +
                                     model.getDistanceForOptimization(srcRoute[srcPos], dstRoute[dstPos]));
-            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT);
         }
     }
 
-    private static void searchWithDstBefore(Solution solution, Node[] route, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    private static void searchWithDstBefore(Solution solution, Node[] route, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, boolean isInvertationActive) {
         XFVRPModel model = solution.getModel();
         float old =
                 model.getDistanceForOptimization(route[dstPos - 1], route[dstPos]) +
@@ -138,7 +168,7 @@ public class XFVRPBorderMoveSearchUtil {
                                 model.getDistanceForOptimization(route[srcPos + segmentLength], route[dstPos]) +
                                 model.getDistanceForOptimization(route[dstPos], route[srcPos + segmentLength + 1]));
 
-        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT);
 
         // with invert
         if (isInvertationActive && segmentLength > 0) {
@@ -147,47 +177,46 @@ public class XFVRPBorderMoveSearchUtil {
                             (model.getDistanceForOptimization(route[dstPos - 1], route[srcPos + segmentLength]) +
                                     model.getDistanceForOptimization(route[srcPos], route[dstPos]) +
                                     model.getDistanceForOptimization(route[dstPos], route[srcPos + segmentLength + 1]));
-            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT);
         }
     }
 
-    private static void addImprovingStep(Solution solution, Queue<float[]> improvingSteps, float... newStep) {
+    private static void addImprovingStep(Solution solution, MoveBuffer improvingSteps, float val, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, int invert) {
+        int overhang = XFVRPMoveUtil.NO_OVERHANG;
+
         // Check for nbr of routes
-        if (newStep[1] != newStep[2]) {
+        if (srcRtIdx != dstRtIdx) {
             // Is destination route an overhang route? --> Penalty (val gets negative)
-            if (isDestinationOverhangRoute(solution, newStep) && !isSourceOverhangRoute(solution, newStep)) {
-                newStep[0] = -1;
-                newStep[7] = XFVRPMoveUtil.IS_OVERHANG;
+            if (isDestinationOverhangRoute(solution, dstRtIdx) && !isSourceOverhangRoute(solution, srcRtIdx)) {
+                val = -1;
             }
             // Is source an overhang and destination is not overhang --> Bonus
-            else if (isReduceOfOverhang(solution, newStep)) {
-                if (newStep[0] <= 0) {
-                    newStep[0] = (EPSILON * 2) + (-newStep[0] / 10000f);
-                    newStep[7] = XFVRPMoveUtil.IS_OVERHANG;
+            else if (isReduceOfOverhang(solution, srcRtIdx, dstRtIdx)) {
+                if (val <= 0) {
+                    val = (EPSILON * 2) + (-val / 10000f);
+                    overhang = XFVRPMoveUtil.IS_OVERHANG;
                 }
             }
         }
 
         // Add only improving steps
-        if (newStep[0] > EPSILON) {
-            improvingSteps.add(newStep);
+        if (val > EPSILON) {
+            improvingSteps.add(val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, invert, overhang);
         }
     }
 
     /**
      * In any case, if source route is overhang route
      */
-    private static boolean isSourceOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]];
+    private static boolean isSourceOverhangRoute(Solution solution, int srcRtIdx) {
+        return solution.getOverhangRoutes()[srcRtIdx];
     }
 
     /**
      * In any case, if destination route is overhang route
      */
-    private static boolean isDestinationOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[2]];
+    private static boolean isDestinationOverhangRoute(Solution solution, int dstRtIdx) {
+        return solution.getOverhangRoutes()[dstRtIdx];
     }
 
     /**
@@ -195,8 +224,8 @@ public class XFVRPBorderMoveSearchUtil {
      * <p>
      * This counts for any move.
      */
-    private static boolean isReduceOfOverhang(Solution solution, float[] newStep) {
+    private static boolean isReduceOfOverhang(Solution solution, int srcRtIdx, int dstRtIdx) {
         boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]] && !isOverhang[(int) newStep[2]];
+        return isOverhang[srcRtIdx] && !isOverhang[dstRtIdx];
     }
 }
@@ -3,7 +3,14 @@ package xf.xfvrp.opt.improve.routebased.move;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.SiteType;
 import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.metric.internal.NeighborhoodIndex;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.evaluation.RouteSegmentSummaries;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.ParallelRouteSearch;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
+import xf.xfvrp.opt.improve.routebased.RoutePositions;
 
 import java.util.Queue;
 
@@ -22,35 +29,82 @@ public class XFVRPMoveSearchUtil {
      * Searches all improving steps in search space for a VRP.
      */
     public static void search(Solution solution, Queue<float[]> improvingSteps, int maxSegmentLength, boolean isInvertationActive) {
+        MoveBuffer buffer = new MoveBuffer();
+        search(solution, buffer, null, maxSegmentLength, isInvertationActive);
+        buffer.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all improving steps in search space for a VRP. Only route pairs with a changed
+     * route are searched, if a cache is given. The steps of the other pairs are taken from the cache.
+     * <p>
+     * The granular search does not use the cache.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache cache, int maxSegmentLength, boolean isInvertationActive) {
+        NeighborhoodIndex neighborhoodIndex = solution.getModel().getNeighborhoodIndex();
+        if (neighborhoodIndex != null) {
+            searchGranular(solution, neighborhoodIndex, improvingSteps, maxSegmentLength, isInvertationActive);
+            return;
+        }
+
+        if (cache != null)
+            cache.update(solution);
+
+        RouteSegmentSummaries summaries = updateSegmentSummaries(solution);
         Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            RouteConcatenation concatenation = (summaries != null) ? new RouteConcatenation(summaries) : null;
+            MoveDeltaRows rows = new MoveDeltaRows(solution.getModel());
+            for (int srcRtIdx = fromRtIdx; srcRtIdx < toRtIdx; srcRtIdx++)
+                searchSourceRoute(solution, routes, srcRtIdx, steps, concatenation, rows, cache, maxSegmentLength, isInvertationActive);
+        });
 
+        if (cache != null)
+            cache.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all moves from the source route into all routes. The savings of all destination
+     * positions are computed as rows per source position.
+     */
+    private static void searchSourceRoute(Solution solution, Node[][] routes, int srcRtIdx, MoveBuffer improvingSteps, RouteConcatenation concatenation, MoveDeltaRows rows, RoutePairCache cache, int maxSegmentLength, boolean isInvertationActive) {
         int nbrOfRoutes = routes.length;
-        for (int srcRtIdx = 0; srcRtIdx < nbrOfRoutes; srcRtIdx++) {
-            Node[] srcRoute = routes[srcRtIdx];
-            for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
-                Node[] dstRoute = routes[dstRtIdx];
-                for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
-                    // src node must not be a depot
-                    if (routes[srcRtIdx][srcPos].getSiteType() == SiteType.DEPOT)
+        Node[] srcRoute = routes[srcRtIdx];
+        for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
+            if (cache != null && !cache.isChanged(srcRtIdx, dstRtIdx))
+                continue;
+
+            Node[] dstRoute = routes[dstRtIdx];
+            MoveBuffer pairSteps = (cache != null) ? cache.getSteps(srcRtIdx, dstRtIdx) : improvingSteps;
+            rows.setDestination(dstRoute);
+            for (int srcPos = 1; srcPos < routes[srcRtIdx].length - 1; srcPos++) {
+                // src node must not be a depot
+                if (routes[srcRtIdx][srcPos].getSiteType() == SiteType.DEPOT)
+                    continue;
+
+                rows.compute(srcRoute, srcPos, maxSegmentLength, isInvertationActive);
+
+                for (int dstPos = 1; dstPos < routes[dstRtIdx].length; dstPos++) {
+                    // src and dst must be different positions
+                    if (srcRtIdx == dstRtIdx && (srcPos == dstPos || dstPos - srcPos == 1)) {
                         continue;
+                    }
 
-                    for (int dstPos = 1; dstPos < routes[dstRtIdx].length; dstPos++) {
-                        // src and dst must be different positions
-                        if (srcRtIdx == dstRtIdx && (srcPos == dstPos || dstPos - srcPos == 1)) {
-                            continue;
+                    for (int segmentLength = 0; segmentLength < maxSegmentLength; segmentLength++) {
+                        // src segment must not too big for src route
+                        if ((srcPos + segmentLength) > srcRoute.length - 2) {
+                            break;
+                        }
+                        // Dst must not lay in the segment or directly behind it (no-move)
+                        if (srcRoute == dstRoute && dstPos <= srcPos + segmentLength + 1 && dstPos >= srcPos) {
+                            break;
                         }
 
-                        for (int segmentLength = 0; segmentLength < maxSegmentLength; segmentLength++) {
-                            // src segment must not too big for src route
-                            if ((srcPos + segmentLength) > srcRoute.length - 2) {
-                                break;
-                            }
-                            // Dst must not lay in the segment or directly behind it (no-move)
-                            if (srcRoute == dstRoute && dstPos <= srcPos + segmentLength + 1 && dstPos >= srcPos) {
-                                break;
-                            }
-
-                            searchInRoutes(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, isInvertationActive);
+                        // dstPos is directly before src
+                        if (srcRtIdx == dstRtIdx && srcPos - dstPos == 1) {
+                            searchWithDstBefore(solution, srcRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, pairSteps, concatenation, isInvertationActive);
+                        } else {
+                            searchRow(solution, rows, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, pairSteps, concatenation, isInvertationActive);
                         }
                     }
                 }
@@ -58,16 +112,100 @@ public class XFVRPMoveSearchUtil {
         }
     }
 
-    private static void searchInRoutes(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    /**
+     * Same as searchNormal, where the savings are taken from the computed rows.
+     */
+    private static void searchRow(Solution solution, MoveDeltaRows rows, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
+        // No invert
+        addImprovingStep(solution, improvingSteps, concatenation, rows.getValue(segmentLength, dstPos), srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT);
+
+        // with invert
+        if (isInvertationActive && segmentLength > 0)
+            addImprovingStep(solution, improvingSteps, concatenation, rows.getInvertedValue(segmentLength, dstPos), srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT);
+    }
+
+    /**
+     * Searches only moves, where the segment is inserted next to a candidate of its first
+     * or last node, or at start or end of a route.
+     */
+    private static void searchGranular(Solution solution, NeighborhoodIndex neighborhoodIndex, MoveBuffer improvingSteps, int maxSegmentLength, boolean isInvertationActive) {
+        RouteSegmentSummaries summaries = updateSegmentSummaries(solution);
+        Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            RouteConcatenation concatenation = (summaries != null) ? new RouteConcatenation(summaries) : null;
+            RoutePositions positions = new RoutePositions(routes, solution.getModel().getNbrOfNodes());
+            for (int srcRtIdx = fromRtIdx; srcRtIdx < toRtIdx; srcRtIdx++)
+                searchGranularSourceRoute(solution, neighborhoodIndex, routes, positions, srcRtIdx, steps, concatenation, maxSegmentLength, isInvertationActive);
+        });
+    }
+
+    private static void searchGranularSourceRoute(Solution solution, NeighborhoodIndex neighborhoodIndex, Node[][] routes, RoutePositions positions, int srcRtIdx, MoveBuffer improvingSteps, RouteConcatenation concatenation, int maxSegmentLength, boolean isInvertationActive) {
+        int nbrOfRoutes = routes.length;
+        Node[] srcRoute = routes[srcRtIdx];
+        for (int srcPos = 1; srcPos < srcRoute.length - 1; srcPos++) {
+            // src node must not be a depot
+            if (srcRoute[srcPos].getSiteType() == SiteType.DEPOT)
+                continue;
+
+            for (int segmentLength = 0; segmentLength < maxSegmentLength; segmentLength++) {
+                // src segment must not too big for src route
+                if ((srcPos + segmentLength) > srcRoute.length - 2)
+                    break;
+
+                positions.nextRound();
+
+                // Start and end of all routes
+                for (int dstRtIdx = 0; dstRtIdx < nbrOfRoutes; dstRtIdx++) {
+                    searchGranularPosition(solution, routes, positions, srcRtIdx, dstRtIdx, srcPos, 1, segmentLength, improvingSteps, concatenation, isInvertationActive);
+                    searchGranularPosition(solution, routes, positions, srcRtIdx, dstRtIdx, srcPos, routes[dstRtIdx].length - 1, segmentLength, improvingSteps, concatenation, isInvertationActive);
+                }
+
+                // Before and behind the candidates of first and last node of segment
+                searchGranularCandidates(solution, routes, positions, neighborhoodIndex.getCandidates(srcRoute[srcPos].getIdx()), srcRtIdx, srcPos, segmentLength, improvingSteps, concatenation, isInvertationActive);
+                if (segmentLength > 0)
+                    searchGranularCandidates(solution, routes, positions, neighborhoodIndex.getCandidates(srcRoute[srcPos + segmentLength].getIdx()), srcRtIdx, srcPos, segmentLength, improvingSteps, concatenation, isInvertationActive);
+            }
+        }
+    }
+
+    private static void searchGranularCandidates(Solution solution, Node[][] routes, RoutePositions positions, int[] candidates, int srcRtIdx, int srcPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
+        for (int candidate : candidates) {
+            int dstRtIdx = positions.getRoute(candidate);
+            if (dstRtIdx == -1)
+                continue;
+
+            int candidatePos = positions.getPos(candidate);
+            searchGranularPosition(solution, routes, positions, srcRtIdx, dstRtIdx, srcPos, candidatePos, segmentLength, improvingSteps, concatenation, isInvertationActive);
+            searchGranularPosition(solution, routes, positions, srcRtIdx, dstRtIdx, srcPos, candidatePos + 1, segmentLength, improvingSteps, concatenation, isInvertationActive);
+        }
+    }
+
+    private static void searchGranularPosition(Solution solution, Node[][] routes, RoutePositions positions, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
+        Node[] srcRoute = routes[srcRtIdx];
+        Node[] dstRoute = routes[dstRtIdx];
+        if (dstPos < 1 || dstPos >= dstRoute.length || !positions.mark(dstRtIdx, dstPos))
+            return;
+
+        // src and dst must be different positions
+        if (srcRtIdx == dstRtIdx && (srcPos == dstPos || dstPos - srcPos == 1))
+            return;
+        // Dst must not lay in the segment or directly behind it (no-move)
+        if (srcRoute == dstRoute && dstPos <= srcPos + segmentLength + 1 && dstPos >= srcPos)
+            return;
+
+        searchInRoutes(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, concatenation, isInvertationActive);
+    }
+
+    private static void searchInRoutes(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
         // dstPos is directly before src
         if (srcRtIdx == dstRtIdx && srcPos - dstPos == 1) {
-            searchWithDstBefore(solution, srcRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, isInvertationActive);
+            searchWithDstBefore(solution, srcRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, concatenation, isInvertationActive);
         } else {
-            searchNormal(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, isInvertationActive);
+            searchNormal(solution, srcRoute, dstRoute, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, improvingSteps, concatenation, isInvertationActive);
         }
     }
 
-    private static void searchNormal(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    private static void searchNormal(Solution solution, Node[] srcRoute, Node[] dstRoute, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
         XFVRPModel model = solution.getModel();
         float old = model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos]) +
                 model.getDistanceForOptimization(srcRoute[srcPos + segmentLength], srcRoute[srcPos + segmentLength + 1]) +
@@ -79,7 +217,7 @@ public class XFVRPMoveSearchUtil {
                         (model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos + segmentLength + 1]) +
                                 model.getDistanceForOptimization(dstRoute[dstPos - 1], srcRoute[srcPos]) +
                                 model.getDistanceForOptimization(srcRoute[srcPos + segmentLength], dstRoute[dstPos]));
-        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, concatenation, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT);
 
         // with invert
         if (isInvertationActive && segmentLength > 0) {
@@ -88,11 +226,11 @@ public class XFVRPMoveSearchUtil {
                             (model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos + segmentLength + 1]) +
                                     model.getDistanceForOptimization(dstRoute[dstPos - 1], srcRoute[srcPos + segmentLength]) +
                                     model.getDistanceForOptimization(srcRoute[srcPos], dstRoute[dstPos]));
-            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT);
         }
     }
 
-    private static void searchWithDstBefore(Solution solution, Node[] route, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, Queue<float[]> improvingSteps, boolean isInvertationActive) {
+    private static void searchWithDstBefore(Solution solution, Node[] route, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertationActive) {
         XFVRPModel model = solution.getModel();
         float old =
                 model.getDistanceForOptimization(route[dstPos - 1], route[dstPos]) +
@@ -106,7 +244,7 @@ public class XFVRPMoveSearchUtil {
                                 model.getDistanceForOptimization(route[srcPos + segmentLength], route[dstPos]) +
                                 model.getDistanceForOptimization(route[dstPos], route[srcPos + segmentLength + 1]));
 
-        addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, concatenation, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.NO_INVERT);
 
         // with invert
         if (isInvertationActive && segmentLength > 0) {
@@ -115,47 +253,70 @@ public class XFVRPMoveSearchUtil {
                             (model.getDistanceForOptimization(route[dstPos - 1], route[srcPos + segmentLength]) +
                                     model.getDistanceForOptimization(route[srcPos], route[dstPos]) +
                                     model.getDistanceForOptimization(route[dstPos], route[srcPos + segmentLength + 1]));
-            addImprovingStep(solution, improvingSteps, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, XFVRPMoveUtil.INVERT);
         }
     }
 
-    private static void addImprovingStep(Solution solution, Queue<float[]> improvingSteps, float... newStep) {
+    private static void addImprovingStep(Solution solution, MoveBuffer improvingSteps, RouteConcatenation concatenation, float val, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, int invert) {
+        int overhang = XFVRPMoveUtil.NO_OVERHANG;
+
         // Check for nbr of routes
-        if (newStep[1] != newStep[2]) {
+        if (srcRtIdx != dstRtIdx) {
             // Is destination route an overhang route? --> Penalty (val gets negative)
-            if (isDestinationOverhangRoute(solution, newStep) && !isSourceOverhangRoute(solution, newStep)) {
-                newStep[0] = -1;
-                newStep[7] = XFVRPMoveUtil.IS_OVERHANG;
+            if (isDestinationOverhangRoute(solution, dstRtIdx) && !isSourceOverhangRoute(solution, srcRtIdx)) {
+                val = -1;
             }
             // Is source an overhang and destination is not overhang --> Bonus
-            else if (isReduceOfOverhang(solution, newStep)) {
-                if (newStep[0] <= 0) {
-                    newStep[0] = (EPSILON * 2) + (-newStep[0] / 10000f);
-                    newStep[7] = XFVRPMoveUtil.IS_OVERHANG;
+            else if (isReduceOfOverhang(solution, srcRtIdx, dstRtIdx)) {
+                if (val <= 0) {
+                    val = (EPSILON * 2) + (-val / 10000f);
+                    overhang = XFVRPMoveUtil.IS_OVERHANG;
                 }
             }
         }
 
-        // Add only improving steps
-        if (newStep[0] > EPSILON) {
-            improvingSteps.add(newStep);
+        // Add only improving steps, which are not infeasible for sure
+        if (val > EPSILON && isFeasible(solution, concatenation, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, invert)) {
+            improvingSteps.add(val, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, invert, overhang);
         }
     }
 
+    /**
+     * Moves between two routes are checked with the segment summaries, where the moved segment is
+     * concatenated with the prefix and suffix of the destination route. Moves inside a route
+     * would need all nodes between source and destination, so they are checked, when they are applied.
+     */
+    private static boolean isFeasible(Solution solution, RouteConcatenation concatenation, int srcRtIdx, int dstRtIdx, int srcPos, int dstPos, int segmentLength, int invert) {
+        if (concatenation == null || srcRtIdx == dstRtIdx)
+            return true;
+
+        return XFVRPMoveUtil.isFeasible(solution, concatenation, srcRtIdx, dstRtIdx, srcPos, dstPos, segmentLength, invert);
+    }
+
+    /**
+     * @return segment summaries, which are updated for all routes of the solution, or null,
+     * if the solution has no segment summaries
+     */
+    private static RouteSegmentSummaries updateSegmentSummaries(Solution solution) {
+        RouteSegmentSummaries summaries = solution.getSegmentSummaries();
+        if (summaries != null)
+            summaries.update(solution);
+
+        return summaries;
+    }
+
     /**
      * In any case, if source route is overhang route
      */
-    private static boolean isSourceOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]];
+    private static boolean isSourceOverhangRoute(Solution solution, int srcRtIdx) {
+        return solution.getOverhangRoutes()[srcRtIdx];
     }
 
     /**
      * In any case, if destination route is overhang route
      */
-    private static boolean isDestinationOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[2]];
+    private static boolean isDestinationOverhangRoute(Solution solution, int dstRtIdx) {
+        return solution.getOverhangRoutes()[dstRtIdx];
     }
 
     /**
@@ -163,8 +324,8 @@ public class XFVRPMoveSearchUtil {
      * <p>
      * This counts for any move.
      */
-    private static boolean isReduceOfOverhang(Solution solution, float[] newStep) {
+    private static boolean isReduceOfOverhang(Solution solution, int srcRtIdx, int dstRtIdx) {
         boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]] && !isOverhang[(int) newStep[2]];
+        return isOverhang[srcRtIdx] && !isOverhang[dstRtIdx];
     }
 }
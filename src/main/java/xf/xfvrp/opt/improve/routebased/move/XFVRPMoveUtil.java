@@ -4,6 +4,8 @@ import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.base.exception.XFVRPExceptionType;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
 
 /**
  * Copyright (c) 2012-2026 Holger Schneider
@@ -24,24 +26,102 @@ public class XFVRPMoveUtil {
      * before the position dstPos from one route to another route.
      */
     public static Node[][] change(Solution solution, float[] val) throws XFVRPException {
-        int srcRouteIdx = (int) val[1];
-        int dstRouteIdx = (int) val[2];
-        int srcStart = (int) val[3];
-        int dstPos = (int) val[4];
-        int segmentLength = (int) val[5];
-        int isInverted = (int) val[6];
+        return change(solution, (int) val[1], (int) val[2], (int) val[3], (int) val[4], (int) val[5], (int) val[6]);
+    }
+
+    /**
+     * Applies the move in the given slot of the buffer like change(Solution, float[])
+     */
+    public static Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        return change(
+                solution,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6)
+        );
+    }
+
+    /**
+     * Applies the move in the given slot of the buffer in place, where all changed
+     * routes are logged in the solution and can be reverted with Solution.undoRouteChanges.
+     */
+    public static void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        apply(
+                solution,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6)
+        );
+    }
+
+    /**
+     * Checks the changed routes of the move in the given slot of the buffer with
+     * the segment summaries, without changing the solution.
+     *
+     * @return false, if a changed route is infeasible for sure
+     */
+    public static boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        return isFeasible(
+                solution,
+                concatenation,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6)
+        );
+    }
+
+    /**
+     * Checks the changed routes of the move like isFeasible(Solution, MoveBuffer, int, RouteConcatenation)
+     */
+    public static boolean isFeasible(Solution solution, RouteConcatenation concatenation, int srcRouteIdx, int dstRouteIdx, int srcStart, int dstPos, int segmentLength, int isInverted) {
         int srcEnd = srcStart + segmentLength;
 
-        if (srcEnd < srcStart)
-            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT,
-                    String.format("Range is defined in wrong way (end is bigger than start) start=%d, end=%d", srcStart, srcEnd)
-            );
-        if (srcStart == 0 || dstPos == 0) {
-            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT,
-                    String.format("Cannot have src or dst on first node of route start=%d, end=%d, dst=%d", srcStart, srcEnd, dstPos)
-            );
+        if (srcRouteIdx != dstRouteIdx) {
+            concatenation.begin();
+            concatenation.addPrefix(solution, srcRouteIdx, srcStart - 1);
+            concatenation.addSuffix(solution, srcRouteIdx, srcEnd + 1);
+            if (!concatenation.isFeasible())
+                return false;
+
+            concatenation.begin();
+            concatenation.addPrefix(solution, dstRouteIdx, dstPos - 1);
+            concatenation.addNodes(solution, srcRouteIdx, srcStart, srcEnd, isInverted == INVERT);
+            concatenation.addSuffix(solution, dstRouteIdx, dstPos);
+            return concatenation.isFeasible();
+        }
+
+        concatenation.begin();
+        if (dstPos < srcStart) {
+            concatenation.addPrefix(solution, srcRouteIdx, dstPos - 1);
+            concatenation.addNodes(solution, srcRouteIdx, srcStart, srcEnd, isInverted == INVERT);
+            concatenation.addNodes(solution, srcRouteIdx, dstPos, srcStart - 1, false);
+            concatenation.addSuffix(solution, srcRouteIdx, srcEnd + 1);
+        } else if (dstPos > srcEnd) {
+            concatenation.addPrefix(solution, srcRouteIdx, srcStart - 1);
+            concatenation.addNodes(solution, srcRouteIdx, srcEnd + 1, dstPos - 1, false);
+            concatenation.addNodes(solution, srcRouteIdx, srcStart, srcEnd, isInverted == INVERT);
+            concatenation.addSuffix(solution, srcRouteIdx, dstPos);
+        } else {
+            // Destination lies in the segment
+            return true;
         }
 
+        return concatenation.isFeasible();
+    }
+
+    private static Node[][] change(Solution solution, int srcRouteIdx, int dstRouteIdx, int srcStart, int dstPos, int segmentLength, int isInverted) throws XFVRPException {
+        int srcEnd = srcStart + segmentLength;
+        checkRange(srcStart, srcEnd, dstPos);
+
         Node[] srcRoute = solution.getRoutes()[srcRouteIdx];
         Node[] dstRoute = solution.getRoutes()[dstRouteIdx];
 
@@ -61,6 +141,55 @@ public class XFVRPMoveUtil {
         }
     }
 
+    private static void apply(Solution solution, int srcRouteIdx, int dstRouteIdx, int srcStart, int dstPos, int segmentLength, int isInverted) throws XFVRPException {
+        int srcEnd = srcStart + segmentLength;
+        checkRange(srcStart, srcEnd, dstPos);
+
+        Node[] srcRoute = solution.getRoutes()[srcRouteIdx];
+        Node[] dstRoute = solution.getRoutes()[dstRouteIdx];
+        int nbrOfNodes = srcEnd - srcStart + 1;
+
+        if (srcRouteIdx != dstRouteIdx) {
+            Node[] newSrcRoute = solution.resizeRoute(srcRouteIdx, srcRoute.length - nbrOfNodes);
+            System.arraycopy(srcRoute, 0, newSrcRoute, 0, srcStart);
+            System.arraycopy(srcRoute, srcEnd + 1, newSrcRoute, srcStart, srcRoute.length - srcEnd - 1);
+
+            Node[] newDstRoute = solution.resizeRoute(dstRouteIdx, dstRoute.length + nbrOfNodes);
+            System.arraycopy(dstRoute, 0, newDstRoute, 0, dstPos);
+            System.arraycopy(srcRoute, srcStart, newDstRoute, dstPos, nbrOfNodes);
+            System.arraycopy(dstRoute, dstPos, newDstRoute, dstPos + nbrOfNodes, dstRoute.length - dstPos);
+            if (isInverted == INVERT) swap(newDstRoute, dstPos, dstPos + nbrOfNodes - 1);
+        } else if (dstPos > srcEnd + 1) {
+            // Rotate the segment behind the nodes up to dstPos
+            Node[] route = solution.editRoute(srcRouteIdx, srcStart, dstPos - 1);
+            swap(route, srcStart, dstPos - 1);
+            swap(route, srcStart, dstPos - 1 - nbrOfNodes);
+            if (isInverted != INVERT) swap(route, dstPos - nbrOfNodes, dstPos - 1);
+        } else if (dstPos < srcStart) {
+            // Rotate the segment before the nodes from dstPos
+            Node[] route = solution.editRoute(srcRouteIdx, dstPos, srcEnd);
+            swap(route, dstPos, srcEnd);
+            if (isInverted != INVERT) swap(route, dstPos, dstPos + nbrOfNodes - 1);
+            swap(route, dstPos + nbrOfNodes, srcEnd);
+        } else if (isInverted == INVERT) {
+            // Segment stays at its position
+            Node[] route = solution.editRoute(srcRouteIdx, srcStart, srcEnd);
+            swap(route, srcStart, srcEnd);
+        }
+    }
+
+    private static void checkRange(int srcStart, int srcEnd, int dstPos) throws XFVRPException {
+        if (srcEnd < srcStart)
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT,
+                    String.format("Range is defined in wrong way (end is bigger than start) start=%d, end=%d", srcStart, srcEnd)
+            );
+        if (srcStart == 0 || dstPos == 0) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT,
+                    String.format("Cannot have src or dst on first node of route start=%d, end=%d, dst=%d", srcStart, srcEnd, dstPos)
+            );
+        }
+    }
+
     private static Node[] moveIntraRoute(int srcStart, int srcEnd, int dstPos, Node[] srcRoute, Node[] nodes) {
         Node[] newRoute = new Node[srcRoute.length];
 
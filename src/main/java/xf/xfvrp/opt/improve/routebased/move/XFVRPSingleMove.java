@@ -3,11 +3,11 @@ package xf.xfvrp.opt.improve.routebased.move;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.XFVRPOptImpBase;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -28,17 +28,32 @@ public class XFVRPSingleMove extends XFVRPOptImpBase {
     private static final boolean IS_INVERT_ACTIVE = false;
 
     @Override
-    protected Queue<float[]> search(Solution solution) {
-        PriorityQueue<float[]> improvingSteps = new PriorityQueue<>(
-                (o1, o2) -> Float.compare(o2[0], o1[0])
-        );
-        XFVRPMoveSearchUtil.search(solution, improvingSteps, MAX_SEGMENT_LENGTH, IS_INVERT_ACTIVE);
+    protected void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches) {
+        XFVRPMoveSearchUtil.search(solution, improvingSteps, caches[0], MAX_SEGMENT_LENGTH, IS_INVERT_ACTIVE);
+    }
 
-        return improvingSteps;
+    @Override
+    protected int getNbrOfRoutePairCaches() {
+        return 1;
     }
 
     @Override
     protected Node[][] change(Solution solution, float[] changeParameter) throws XFVRPException {
         return XFVRPMoveUtil.change(solution, changeParameter);
     }
+
+    @Override
+    protected Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        return XFVRPMoveUtil.change(solution, steps, step);
+    }
+
+    @Override
+    protected void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        XFVRPMoveUtil.apply(solution, steps, step);
+    }
+
+    @Override
+    protected boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        return XFVRPMoveUtil.isFeasible(solution, steps, step, concatenation);
+    }
 }
@@ -3,13 +3,13 @@ package xf.xfvrp.opt.improve.routebased.swap;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.XFVRPOptImpBase;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPBorderMoveSearchUtil;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -31,14 +31,14 @@ public class XFVRPBorderSegmentExchange extends XFVRPOptImpBase {
     private final boolean isInvertationActive = true;
 
     @Override
-    protected Queue<float[]> search(Solution solution) {
-        var improvingSteps = new PriorityQueue<float[]>(
-                (o1, o2) -> Float.compare(o2[0], o1[0])
-        );
-        XFVRPBorderMoveSearchUtil.search(solution, improvingSteps, isInvertationActive);
-        XFVRPBorderSwapSearchUtil.search(solution, improvingSteps, isInvertationActive);
-
-        return improvingSteps;
+    protected void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches) {
+        XFVRPBorderMoveSearchUtil.search(solution, improvingSteps, caches[0], isInvertationActive);
+        XFVRPBorderSwapSearchUtil.search(solution, improvingSteps, caches[1], isInvertationActive);
+    }
+
+    @Override
+    protected int getNbrOfRoutePairCaches() {
+        return 2;
     }
 
     @Override
@@ -51,4 +51,31 @@ public class XFVRPBorderSegmentExchange extends XFVRPOptImpBase {
 
         return null;
     }
+
+    @Override
+    protected Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        if (steps.getLength(step) == 9) {
+            return XFVRPSwapUtil.change(solution, steps, step);
+        }
+
+        return XFVRPMoveUtil.change(solution, steps, step);
+    }
+
+    @Override
+    protected void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        if (steps.getLength(step) == 9) {
+            XFVRPSwapUtil.apply(solution, steps, step);
+            return;
+        }
+
+        XFVRPMoveUtil.apply(solution, steps, step);
+    }
+
+    @Override
+    protected boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        if (steps.getLength(step) == 9)
+            return XFVRPSwapUtil.isFeasible(solution, steps, step, concatenation);
+
+        return XFVRPMoveUtil.isFeasible(solution, steps, step, concatenation);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package xf.xfvrp.opt.improve.routebased.swap;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.XFVRPModel;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.ParallelRouteSearch;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
 import java.util.Queue;
@@ -22,70 +25,97 @@ public class XFVRPBorderSwapSearchUtil {
      * Searches all improving steps in search space for a VRP.
      */
     public static void search(Solution solution, Queue<float[]> improvingSteps, boolean isInvertActive) {
+        MoveBuffer buffer = new MoveBuffer();
+        search(solution, buffer, null, isInvertActive);
+        buffer.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all improving steps in search space for a VRP. Only route pairs with a changed
+     * route are searched, if a cache is given. The steps of the other pairs are taken from the cache.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache cache, boolean isInvertActive) {
+        if (cache != null)
+            cache.update(solution);
+
         Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            for (int aRtIdx = fromRtIdx; aRtIdx < toRtIdx; aRtIdx++)
+                searchRouteA(solution, routes, aRtIdx, steps, cache, isInvertActive);
+        });
 
+        if (cache != null)
+            cache.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all border swaps of the A-route with itself and all following routes.
+     */
+    private static void searchRouteA(Solution solution, Node[][] routes, int aRtIdx, MoveBuffer improvingSteps, RoutePairCache cache, boolean isInvertActive) {
         int nbrOfRoutes = routes.length;
-        for (int aRtIdx = 0; aRtIdx < nbrOfRoutes; aRtIdx++) {
-            Node[] aRoute = routes[aRtIdx];
-            for (int bRtIdx = aRtIdx; bRtIdx < nbrOfRoutes; bRtIdx++) {
-                Node[] bRoute = routes[bRtIdx];
-
-                for (int aPos = 1; aPos < aRoute.length - 1; aPos++) {
-
-                    for (int bPos = 1; bPos < bRoute.length - 1; bPos++) {
-                        // aPos must not be identical to bPos
-                        if (aRtIdx == bRtIdx && aPos >= bPos) {
-                            continue;
-                        }
-
-                        if(aRtIdx != bRtIdx) {
-                            // Both before the pointers
-                            searchInRoutes(
-                                    solution,
-                                    aRoute, bRoute,
-                                    aRtIdx, bRtIdx,
-                                    1, aPos - 1,
-                                    1, bPos - 1,
-                                    improvingSteps,
-                                    isInvertActive
-                            );
-
-                            // Both A after and B before the pointers
-                            searchInRoutes(
-                                    solution,
-                                    aRoute, bRoute,
-                                    aRtIdx, bRtIdx,
-                                    aPos, aRoute.length - aPos - 2,
-                                    1, bPos - 1,
-                                    improvingSteps,
-                                    isInvertActive
-                            );
-
-                            // Both after the pointers
-                            searchInRoutes(
-                                    solution,
-                                    aRoute, bRoute,
-                                    aRtIdx, bRtIdx,
-                                    aPos, aRoute.length - aPos - 2,
-                                    bPos, bRoute.length - bPos - 2,
-                                    improvingSteps,
-                                    isInvertActive
-                            );
-
-                        }
-
-                        // Both A before and B after the pointers
+        Node[] aRoute = routes[aRtIdx];
+        for (int bRtIdx = aRtIdx; bRtIdx < nbrOfRoutes; bRtIdx++) {
+            if (cache != null && !cache.isChanged(aRtIdx, bRtIdx))
+                continue;
+
+            Node[] bRoute = routes[bRtIdx];
+            MoveBuffer pairSteps = (cache != null) ? cache.getSteps(aRtIdx, bRtIdx) : improvingSteps;
+
+            for (int aPos = 1; aPos < aRoute.length - 1; aPos++) {
+
+                for (int bPos = 1; bPos < bRoute.length - 1; bPos++) {
+                    // aPos must not be identical to bPos
+                    if (aRtIdx == bRtIdx && aPos >= bPos) {
+                        continue;
+                    }
+
+                    if(aRtIdx != bRtIdx) {
+                        // Both before the pointers
                         searchInRoutes(
                                 solution,
                                 aRoute, bRoute,
                                 aRtIdx, bRtIdx,
                                 1, aPos - 1,
+                                1, bPos - 1,
+                                pairSteps,
+                                isInvertActive
+                        );
+
+                        // Both A after and B before the pointers
+                        searchInRoutes(
+                                solution,
+                                aRoute, bRoute,
+                                aRtIdx, bRtIdx,
+                                aPos, aRoute.length - aPos - 2,
+                                1, bPos - 1,
+                                pairSteps,
+                                isInvertActive
+                        );
+
+                        // Both after the pointers
+                        searchInRoutes(
+                                solution,
+                                aRoute, bRoute,
+                                aRtIdx, bRtIdx,
+                                aPos, aRoute.length - aPos - 2,
                                 bPos, bRoute.length - bPos - 2,
-                                improvingSteps,
+                                pairSteps,
                                 isInvertActive
                         );
 
                     }
+
+                    // Both A before and B after the pointers
+                    searchInRoutes(
+                            solution,
+                            aRoute, bRoute,
+                            aRtIdx, bRtIdx,
+                            1, aPos - 1,
+                            bPos, bRoute.length - bPos - 2,
+                            pairSteps,
+                            isInvertActive
+                    );
+
                 }
             }
         }
@@ -101,7 +131,7 @@ public class XFVRPBorderSwapSearchUtil {
             int aSegmentLength,
             int bPos,
             int bSegmentLength,
-            Queue<float[]> improvingSteps,
+            MoveBuffer improvingSteps,
             boolean isInvertActive
     ) {
         // B-segment is directly before A-segment
@@ -141,7 +171,7 @@ public class XFVRPBorderSwapSearchUtil {
         }
     }
 
-    private static void searchInRoutesNormal(Solution solution, Node[] aRoute, Node[] bRoute, int aRtIdx, int bRtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, Queue<float[]> improvingSteps, boolean isInvertActive) {
+    private static void searchInRoutesNormal(Solution solution, Node[] aRoute, Node[] bRoute, int aRtIdx, int bRtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, MoveBuffer improvingSteps, boolean isInvertActive) {
         XFVRPModel model = solution.getModel();
 
         int aa = aPos + aSegmentLength;
@@ -158,7 +188,7 @@ public class XFVRPBorderSwapSearchUtil {
                 model.getDistance(bRoute[bb], aRoute[aa + 1]) +
                 model.getDistance(bRoute[bPos - 1], aRoute[aPos]) +
                 model.getDistance(aRoute[aa], bRoute[bb + 1]));
-        addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT);
 
         // BOTH INVERT
         if (isInvertActive && aSegmentLength > 0 && bSegmentLength > 0) {
@@ -166,7 +196,7 @@ public class XFVRPBorderSwapSearchUtil {
                     model.getDistance(bRoute[bPos], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aa]) +
                     model.getDistance(aRoute[aPos], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT);
         }
         // A INVERT
         if (isInvertActive && aSegmentLength > 0) {
@@ -174,7 +204,7 @@ public class XFVRPBorderSwapSearchUtil {
                     model.getDistance(bRoute[bb], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aa]) +
                     model.getDistance(aRoute[aPos], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT);
         }
         // B INVERT
         if (isInvertActive && bSegmentLength > 0) {
@@ -182,11 +212,11 @@ public class XFVRPBorderSwapSearchUtil {
                     model.getDistance(bRoute[bPos], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aPos]) +
                     model.getDistance(aRoute[aa], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT);
         }
     }
 
-    private static void searchInRoutesBbeforeA(Solution solution, Node[] route, int rtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, Queue<float[]> improvingSteps, boolean isInvertActive) {
+    private static void searchInRoutesBbeforeA(Solution solution, Node[] route, int rtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, MoveBuffer improvingSteps, boolean isInvertActive) {
         XFVRPModel model = solution.getModel();
 
         int aa = aPos + aSegmentLength;
@@ -204,7 +234,7 @@ public class XFVRPBorderSwapSearchUtil {
                         model.getDistance(route[aa], route[bPos]) +
                         model.getDistance(route[bb], route[aa + 1])
         );
-        addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT);
 
         // BOTH INVERT
         if (isInvertActive && aSegmentLength > 0 && bSegmentLength > 0) {
@@ -213,7 +243,7 @@ public class XFVRPBorderSwapSearchUtil {
                             model.getDistance(route[aPos], route[bb]) +
                             model.getDistance(route[bPos], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT);
         }
         // A INVERT
         if (isInvertActive && aSegmentLength > 0) {
@@ -222,7 +252,7 @@ public class XFVRPBorderSwapSearchUtil {
                             model.getDistance(route[aPos], route[bPos]) +
                             model.getDistance(route[bb], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT);
         }
         // B INVERT
         if (isInvertActive && bSegmentLength > 0) {
@@ -231,7 +261,7 @@ public class XFVRPBorderSwapSearchUtil {
                             model.getDistance(route[aa], route[bb]) +
                             model.getDistance(route[bPos], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT);
         }
     }
 
@@ -239,33 +269,30 @@ public class XFVRPBorderSwapSearchUtil {
      * Swapping does not check for overhanging routes, because only customers are swapped, and this
      * is not changing the number of routes.
      */
-    private static void addImprovingStep(Solution solution, Queue<float[]> improvingSteps, float... newStep) {
+    private static void addImprovingStep(Solution solution, MoveBuffer improvingSteps, float val, int aRtIdx, int bRtIdx, int aPos, int bPos, int aSegmentLength, int bSegmentLength, int invertType) {
+        // Add only improving steps
+        if (val <= EPSILON)
+            return;
+
         // Prevent, that additional nodes are moved to overhanging routes
-        if ((isDestinationOverhangRoute(solution, newStep) && newStep[5] > newStep[6]) ||
-                (isSourceOverhangRoute(solution, newStep) && newStep[6] > newStep[5])) {
-            newStep[0] = -1;
-            newStep[8] = XFVRPMoveUtil.IS_OVERHANG;
-        }
+        if ((isDestinationOverhangRoute(solution, bRtIdx) && aSegmentLength > bSegmentLength) ||
+                (isSourceOverhangRoute(solution, aRtIdx) && bSegmentLength > aSegmentLength))
+            return;
 
-        // Add only improving steps
-        if (newStep[0] > EPSILON) {
-            improvingSteps.add(newStep);
-        }
+        improvingSteps.add(val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, invertType, XFVRPMoveUtil.NO_OVERHANG);
     }
 
     /**
      * In any case, if source route is overhang route
      */
-    private static boolean isSourceOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]];
+    private static boolean isSourceOverhangRoute(Solution solution, int aRtIdx) {
+        return solution.getOverhangRoutes()[aRtIdx];
     }
 
     /**
      * In any case, if destination route is overhang route
      */
-    private static boolean isDestinationOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[2]];
+    private static boolean isDestinationOverhangRoute(Solution solution, int bRtIdx) {
+        return solution.getOverhangRoutes()[bRtIdx];
     }
 }
@@ -3,13 +3,13 @@ package xf.xfvrp.opt.improve.routebased.swap;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.XFVRPOptImpBase;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveSearchUtil;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -33,14 +33,14 @@ public class XFVRPSegmentExchange extends XFVRPOptImpBase {
     private final int maxSegmentLength = 3;
 
     @Override
-    protected Queue<float[]> search(Solution solution) {
-        PriorityQueue<float[]> improvingSteps = new PriorityQueue<>(
-                (o1, o2) -> Float.compare(o2[0], o1[0])
-        );
-        XFVRPMoveSearchUtil.search(solution, improvingSteps, maxSegmentLength, isInvertationActive);
-        XFVRPSwapSearchUtil.search(solution, improvingSteps, maxSegmentLength, isSegmentLengthEqual, isInvertationActive);
-
-        return improvingSteps;
+    protected void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches) {
+        XFVRPMoveSearchUtil.search(solution, improvingSteps, caches[0], maxSegmentLength, isInvertationActive);
+        XFVRPSwapSearchUtil.search(solution, improvingSteps, caches[1], maxSegmentLength, isSegmentLengthEqual, isInvertationActive);
+    }
+
+    @Override
+    protected int getNbrOfRoutePairCaches() {
+        return 2;
     }
 
     @Override
@@ -53,4 +53,31 @@ public class XFVRPSegmentExchange extends XFVRPOptImpBase {
 
         return null;
     }
+
+    @Override
+    protected Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        if (steps.getLength(step) == 9) {
+            return XFVRPSwapUtil.change(solution, steps, step);
+        }
+
+        return XFVRPMoveUtil.change(solution, steps, step);
+    }
+
+    @Override
+    protected void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        if (steps.getLength(step) == 9) {
+            XFVRPSwapUtil.apply(solution, steps, step);
+            return;
+        }
+
+        XFVRPMoveUtil.apply(solution, steps, step);
+    }
+
+    @Override
+    protected boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        if (steps.getLength(step) == 9)
+            return XFVRPSwapUtil.isFeasible(solution, steps, step, concatenation);
+
+        return XFVRPMoveUtil.isFeasible(solution, steps, step, concatenation);
+    }
 }
\ No newline at end of file
@@ -3,11 +3,11 @@ package xf.xfvrp.opt.improve.routebased.swap;
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
 import xf.xfvrp.opt.improve.routebased.XFVRPOptImpBase;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
-
 /**
  * Copyright (c) 2012-2026 Holger Schneider
  * All rights reserved.
@@ -31,13 +31,13 @@ public class XFVRPSegmentSwap extends XFVRPOptImpBase {
     private final int maxSegmentLength = 3;
 
     @Override
-    protected Queue<float[]> search(Solution solution) {
-        PriorityQueue<float[]> improvingSteps = new PriorityQueue<>(
-                (o1, o2) -> Float.compare(o2[0], o1[0])
-        );
-        XFVRPSwapSearchUtil.search(solution, improvingSteps, maxSegmentLength, isSegmentLengthEqual, isInvertationActive);
+    protected void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache[] caches) {
+        XFVRPSwapSearchUtil.search(solution, improvingSteps, caches[0], maxSegmentLength, isSegmentLengthEqual, isInvertationActive);
+    }
 
-        return improvingSteps;
+    @Override
+    protected int getNbrOfRoutePairCaches() {
+        return 1;
     }
 
     @Override
@@ -45,6 +45,11 @@ public class XFVRPSegmentSwap extends XFVRPOptImpBase {
         return XFVRPSwapUtil.change(solution, changeParameter);
     }
 
+    @Override
+    protected Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        return XFVRPSwapUtil.change(solution, steps, step);
+    }
+
     public void setInvertationMode(boolean isInvertationActive) {
         this.isInvertationActive = isInvertationActive;
     }
@@ -53,4 +58,13 @@ public class XFVRPSegmentSwap extends XFVRPOptImpBase {
         this.isSegmentLengthEqual = isSegmentLengthEqual;
     }
 
+    @Override
+    protected void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        XFVRPSwapUtil.apply(solution, steps, step);
+    }
+
+    @Override
+    protected boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        return XFVRPSwapUtil.isFeasible(solution, steps, step, concatenation);
+    }
 }
\ No newline at end of file
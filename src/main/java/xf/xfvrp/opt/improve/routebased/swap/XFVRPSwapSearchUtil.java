@@ -2,7 +2,14 @@ package xf.xfvrp.opt.improve.routebased.swap;
 
 import xf.xfvrp.base.Node;
 import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.metric.internal.NeighborhoodIndex;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.evaluation.RouteSegmentSummaries;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
+import xf.xfvrp.opt.improve.routebased.ParallelRouteSearch;
+import xf.xfvrp.opt.improve.routebased.RoutePairCache;
+import xf.xfvrp.opt.improve.routebased.RoutePositions;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
 import java.util.Queue;
@@ -22,51 +29,89 @@ public class XFVRPSwapSearchUtil {
      * Searches all improving steps in search space for a VRP.
      */
     public static void search(Solution solution, Queue<float[]> improvingSteps, int maxSegmentLength, boolean isSegmentLengthEqual, boolean isInvertActive) {
+        MoveBuffer buffer = new MoveBuffer();
+        search(solution, buffer, null, maxSegmentLength, isSegmentLengthEqual, isInvertActive);
+        buffer.addTo(improvingSteps);
+    }
+
+    /**
+     * Searches all improving steps in search space for a VRP. Only route pairs with a changed
+     * route are searched, if a cache is given. The steps of the other pairs are taken from the cache.
+     * <p>
+     * The granular search does not use the cache.
+     */
+    public static void search(Solution solution, MoveBuffer improvingSteps, RoutePairCache cache, int maxSegmentLength, boolean isSegmentLengthEqual, boolean isInvertActive) {
+        NeighborhoodIndex neighborhoodIndex = solution.getModel().getNeighborhoodIndex();
+        if (neighborhoodIndex != null) {
+            searchGranular(solution, neighborhoodIndex, improvingSteps, maxSegmentLength, isSegmentLengthEqual, isInvertActive);
+            return;
+        }
+
+        if (cache != null)
+            cache.update(solution);
+
+        RouteSegmentSummaries summaries = updateSegmentSummaries(solution);
         Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            RouteConcatenation concatenation = (summaries != null) ? new RouteConcatenation(summaries) : null;
+            for (int aRtIdx = fromRtIdx; aRtIdx < toRtIdx; aRtIdx++)
+                searchRouteA(solution, routes, aRtIdx, steps, concatenation, cache, maxSegmentLength, isSegmentLengthEqual, isInvertActive);
+        });
+
+        if (cache != null)
+            cache.addTo(improvingSteps);
+    }
 
+    /**
+     * Searches all swaps of the A-route with itself and all following routes.
+     */
+    private static void searchRouteA(Solution solution, Node[][] routes, int aRtIdx, MoveBuffer improvingSteps, RouteConcatenation concatenation, RoutePairCache cache, int maxSegmentLength, boolean isSegmentLengthEqual, boolean isInvertActive) {
         int nbrOfRoutes = routes.length;
-        for (int aRtIdx = 0; aRtIdx < nbrOfRoutes; aRtIdx++) {
-            Node[] aRoute = routes[aRtIdx];
-            for (int bRtIdx = aRtIdx; bRtIdx < nbrOfRoutes; bRtIdx++) {
-                Node[] bRoute = routes[bRtIdx];
-                for (int aPos = 1; aPos < aRoute.length - 1; aPos++) {
-
-                    int aMaxSegmentLength = Math.min(maxSegmentLength, aRoute.length - aPos - 1);
-                    for (int aSegmentLength = 0; aSegmentLength < aMaxSegmentLength; aSegmentLength++) {
-
-                        for (int bPos = 1; bPos < bRoute.length - 1; bPos++) {
-                            // aPos must not be identical to bPos
-                            if (aRtIdx == bRtIdx && bPos == aPos) {
+        Node[] aRoute = routes[aRtIdx];
+        for (int bRtIdx = aRtIdx; bRtIdx < nbrOfRoutes; bRtIdx++) {
+            if (cache != null && !cache.isChanged(aRtIdx, bRtIdx))
+                continue;
+
+            Node[] bRoute = routes[bRtIdx];
+            MoveBuffer pairSteps = (cache != null) ? cache.getSteps(aRtIdx, bRtIdx) : improvingSteps;
+            for (int aPos = 1; aPos < aRoute.length - 1; aPos++) {
+
+                int aMaxSegmentLength = Math.min(maxSegmentLength, aRoute.length - aPos - 1);
+                for (int aSegmentLength = 0; aSegmentLength < aMaxSegmentLength; aSegmentLength++) {
+
+                    for (int bPos = 1; bPos < bRoute.length - 1; bPos++) {
+                        // aPos must not be identical to bPos
+                        if (aRtIdx == bRtIdx && bPos == aPos) {
+                            continue;
+                        }
+
+                        // Both segments must not overlap - Is bPos in A-segment
+                        if (aRtIdx == bRtIdx && bPos >= aPos && bPos <= aPos + aSegmentLength) {
+                            continue;
+                        }
+
+                        int bMaxSegmentLength = Math.min(maxSegmentLength, bRoute.length - bPos - 1);
+                        for (int bSegmentLength = 0; bSegmentLength < bMaxSegmentLength; bSegmentLength++) {
+                            // Both segments must not overlap - Is B-segment in A-segment
+                            if (aRtIdx == bRtIdx && bPos < aPos && bPos + bSegmentLength >= aPos) {
                                 continue;
                             }
 
-                            // Both segments must not overlap - Is bPos in A-segment
-                            if (aRtIdx == bRtIdx && bPos >= aPos && bPos <= aPos + aSegmentLength) {
+                            // If segment length should be equal
+                            if (isSegmentLengthEqual && aSegmentLength != bSegmentLength) {
                                 continue;
                             }
 
-                            int bMaxSegmentLength = Math.min(maxSegmentLength, bRoute.length - bPos - 1);
-                            for (int bSegmentLength = 0; bSegmentLength < bMaxSegmentLength; bSegmentLength++) {
-                                // Both segments must not overlap - Is B-segment in A-segment
-                                if (aRtIdx == bRtIdx && bPos < aPos && bPos + bSegmentLength >= aPos) {
-                                    continue;
-                                }
-
-                                // If segment length should be equal
-                                if (isSegmentLengthEqual && aSegmentLength != bSegmentLength) {
-                                    continue;
-                                }
-
-                                searchInRoutes(
-                                        solution,
-                                        aRoute, bRoute,
-                                        aRtIdx, bRtIdx,
-                                        aPos, aSegmentLength,
-                                        bPos, bSegmentLength,
-                                        improvingSteps,
-                                        isInvertActive
-                                );
-                            }
+                            searchInRoutes(
+                                    solution,
+                                    aRoute, bRoute,
+                                    aRtIdx, bRtIdx,
+                                    aPos, aSegmentLength,
+                                    bPos, bSegmentLength,
+                                    pairSteps,
+                                    concatenation,
+                                    isInvertActive
+                            );
                         }
                     }
                 }
@@ -74,6 +119,129 @@ public class XFVRPSwapSearchUtil {
         }
     }
 
+    /**
+     * Searches only swaps, where the A-segment is placed next to a candidate of its first
+     * or last node, or at start or end of a route.
+     * <p>
+     * Candidates are not symmetric, so the B-route may be before the A-route. Such swaps are
+     * stored like in the full search with the lower route as A, if the search from the
+     * B-segment does not find them by itself.
+     */
+    private static void searchGranular(Solution solution, NeighborhoodIndex neighborhoodIndex, MoveBuffer improvingSteps, int maxSegmentLength, boolean isSegmentLengthEqual, boolean isInvertActive) {
+        RouteSegmentSummaries summaries = updateSegmentSummaries(solution);
+        Node[][] routes = solution.getRoutes();
+        ParallelRouteSearch.search(solution, improvingSteps, (fromRtIdx, toRtIdx, steps) -> {
+            RouteConcatenation concatenation = (summaries != null) ? new RouteConcatenation(summaries) : null;
+            RoutePositions positions = new RoutePositions(routes, solution.getModel().getNbrOfNodes());
+            for (int aRtIdx = fromRtIdx; aRtIdx < toRtIdx; aRtIdx++)
+                searchGranularRouteA(solution, neighborhoodIndex, routes, positions, aRtIdx, steps, concatenation, maxSegmentLength, isSegmentLengthEqual, isInvertActive);
+        });
+    }
+
+    private static void searchGranularRouteA(Solution solution, NeighborhoodIndex neighborhoodIndex, Node[][] routes, RoutePositions positions, int aRtIdx, MoveBuffer improvingSteps, RouteConcatenation concatenation, int maxSegmentLength, boolean isSegmentLengthEqual, boolean isInvertActive) {
+        int nbrOfRoutes = routes.length;
+        Node[] aRoute = routes[aRtIdx];
+        for (int aPos = 1; aPos < aRoute.length - 1; aPos++) {
+
+            int aMaxSegmentLength = Math.min(maxSegmentLength, aRoute.length - aPos - 1);
+            for (int aSegmentLength = 0; aSegmentLength < aMaxSegmentLength; aSegmentLength++) {
+                positions.nextRound();
+
+                // Start and end of all routes
+                for (int bRtIdx = 0; bRtIdx < nbrOfRoutes; bRtIdx++) {
+                    searchGranularPosition(solution, neighborhoodIndex, routes, positions, aRtIdx, bRtIdx, aPos, aSegmentLength, 1, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+                    searchGranularPosition(solution, neighborhoodIndex, routes, positions, aRtIdx, bRtIdx, aPos, aSegmentLength, routes[bRtIdx].length - 2, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+                }
+
+                // Before and behind the candidates of first and last node of A-segment
+                searchGranularCandidates(solution, neighborhoodIndex, routes, positions, neighborhoodIndex.getCandidates(aRoute[aPos].getIdx()), aRtIdx, aPos, aSegmentLength, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+                if (aSegmentLength > 0)
+                    searchGranularCandidates(solution, neighborhoodIndex, routes, positions, neighborhoodIndex.getCandidates(aRoute[aPos + aSegmentLength].getIdx()), aRtIdx, aPos, aSegmentLength, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+            }
+        }
+    }
+
+    private static void searchGranularCandidates(Solution solution, NeighborhoodIndex neighborhoodIndex, Node[][] routes, RoutePositions positions, int[] candidates, int aRtIdx, int aPos, int aSegmentLength, int maxSegmentLength, boolean isSegmentLengthEqual, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertActive) {
+        for (int candidate : candidates) {
+            int bRtIdx = positions.getRoute(candidate);
+            if (bRtIdx == -1)
+                continue;
+
+            int candidatePos = positions.getPos(candidate);
+            searchGranularPosition(solution, neighborhoodIndex, routes, positions, aRtIdx, bRtIdx, aPos, aSegmentLength, candidatePos - 1, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+            searchGranularPosition(solution, neighborhoodIndex, routes, positions, aRtIdx, bRtIdx, aPos, aSegmentLength, candidatePos + 1, maxSegmentLength, isSegmentLengthEqual, improvingSteps, concatenation, isInvertActive);
+        }
+    }
+
+    private static void searchGranularPosition(Solution solution, NeighborhoodIndex neighborhoodIndex, Node[][] routes, RoutePositions positions, int aRtIdx, int bRtIdx, int aPos, int aSegmentLength, int bPos, int maxSegmentLength, boolean isSegmentLengthEqual, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertActive) {
+        Node[] aRoute = routes[aRtIdx];
+        Node[] bRoute = routes[bRtIdx];
+        if (bPos < 1 || bPos >= bRoute.length - 1 || !positions.mark(bRtIdx, bPos))
+            return;
+
+        // aPos must not be identical to bPos
+        if (aRtIdx == bRtIdx && bPos == aPos)
+            return;
+        // Both segments must not overlap - Is bPos in A-segment
+        if (aRtIdx == bRtIdx && bPos >= aPos && bPos <= aPos + aSegmentLength)
+            return;
+
+        int bMaxSegmentLength = Math.min(maxSegmentLength, bRoute.length - bPos - 1);
+        for (int bSegmentLength = 0; bSegmentLength < bMaxSegmentLength; bSegmentLength++) {
+            // Both segments must not overlap - Is B-segment in A-segment
+            if (aRtIdx == bRtIdx && bPos < aPos && bPos + bSegmentLength >= aPos)
+                continue;
+
+            // If segment length should be equal
+            if (isSegmentLengthEqual && aSegmentLength != bSegmentLength)
+                continue;
+
+            if (aRtIdx <= bRtIdx) {
+                searchInRoutes(
+                        solution,
+                        aRoute, bRoute,
+                        aRtIdx, bRtIdx,
+                        aPos, aSegmentLength,
+                        bPos, bSegmentLength,
+                        improvingSteps,
+                        concatenation,
+                        isInvertActive
+                );
+            } else if (!isGranularPosition(neighborhoodIndex, routes, positions, bRoute, bPos, bSegmentLength, aRtIdx, aPos)) {
+                // Switched A and B, so that the lower route is A
+                searchInRoutes(
+                        solution,
+                        bRoute, aRoute,
+                        bRtIdx, aRtIdx,
+                        bPos, bSegmentLength,
+                        aPos, aSegmentLength,
+                        improvingSteps,
+                        concatenation,
+                        isInvertActive
+                );
+            }
+        }
+    }
+
+    /**
+     * @return true, if the granular search from the given segment reaches the other position
+     */
+    private static boolean isGranularPosition(NeighborhoodIndex neighborhoodIndex, Node[][] routes, RoutePositions positions, Node[] route, int pos, int segmentLength, int otherRtIdx, int otherPos) {
+        if (otherPos == 1 || otherPos == routes[otherRtIdx].length - 2)
+            return true;
+
+        return isNextToCandidate(neighborhoodIndex.getCandidates(route[pos].getIdx()), positions, otherRtIdx, otherPos) ||
+                (segmentLength > 0 && isNextToCandidate(neighborhoodIndex.getCandidates(route[pos + segmentLength].getIdx()), positions, otherRtIdx, otherPos));
+    }
+
+    private static boolean isNextToCandidate(int[] candidates, RoutePositions positions, int rtIdx, int pos) {
+        for (int candidate : candidates)
+            if (positions.getRoute(candidate) == rtIdx && Math.abs(positions.getPos(candidate) - pos) == 1)
+                return true;
+
+        return false;
+    }
+
     private static void searchInRoutes(
             Solution solution,
             Node[] aRoute,
@@ -84,7 +252,8 @@ public class XFVRPSwapSearchUtil {
             int aSegmentLength,
             int bPos,
             int bSegmentLength,
-            Queue<float[]> improvingSteps,
+            MoveBuffer improvingSteps,
+            RouteConcatenation concatenation,
             boolean isInvertActive
     ) {
         // B-segment is directly before A-segment
@@ -96,6 +265,7 @@ public class XFVRPSwapSearchUtil {
                     aPos, aSegmentLength,
                     bPos, bSegmentLength,
                     improvingSteps,
+                    concatenation,
                     isInvertActive
             );
         }
@@ -109,6 +279,7 @@ public class XFVRPSwapSearchUtil {
                     bPos, bSegmentLength,
                     aPos, aSegmentLength,
                     improvingSteps,
+                    concatenation,
                     isInvertActive
             );
         } else {
@@ -119,12 +290,13 @@ public class XFVRPSwapSearchUtil {
                     aPos, aSegmentLength,
                     bPos, bSegmentLength,
                     improvingSteps,
+                    concatenation,
                     isInvertActive
             );
         }
     }
 
-    private static void searchInRoutesNormal(Solution solution, Node[] aRoute, Node[] bRoute, int aRtIdx, int bRtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, Queue<float[]> improvingSteps, boolean isInvertActive) {
+    private static void searchInRoutesNormal(Solution solution, Node[] aRoute, Node[] bRoute, int aRtIdx, int bRtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertActive) {
         XFVRPModel model = solution.getModel();
 
         int aa = aPos + aSegmentLength;
@@ -141,7 +313,7 @@ public class XFVRPSwapSearchUtil {
                 model.getDistance(bRoute[bb], aRoute[aa + 1]) +
                 model.getDistance(bRoute[bPos - 1], aRoute[aPos]) +
                 model.getDistance(aRoute[aa], bRoute[bb + 1]));
-        addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, concatenation, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT);
 
         // BOTH INVERT
         if (isInvertActive && aSegmentLength > 0 && bSegmentLength > 0) {
@@ -149,7 +321,7 @@ public class XFVRPSwapSearchUtil {
                     model.getDistance(bRoute[bPos], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aa]) +
                     model.getDistance(aRoute[aPos], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT);
         }
         // A INVERT
         if (isInvertActive && aSegmentLength > 0) {
@@ -157,7 +329,7 @@ public class XFVRPSwapSearchUtil {
                     model.getDistance(bRoute[bb], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aa]) +
                     model.getDistance(aRoute[aPos], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT);
         }
         // B INVERT
         if (isInvertActive && bSegmentLength > 0) {
@@ -165,11 +337,11 @@ public class XFVRPSwapSearchUtil {
                     model.getDistance(bRoute[bPos], aRoute[aa + 1]) +
                     model.getDistance(bRoute[bPos - 1], aRoute[aPos]) +
                     model.getDistance(aRoute[aa], bRoute[bb + 1]));
-            addImprovingStep(solution, improvingSteps, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT);
         }
     }
 
-    private static void searchInRoutesBbeforeA(Solution solution, Node[] route, int rtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, Queue<float[]> improvingSteps, boolean isInvertActive) {
+    private static void searchInRoutesBbeforeA(Solution solution, Node[] route, int rtIdx, int aPos, int aSegmentLength, int bPos, int bSegmentLength, MoveBuffer improvingSteps, RouteConcatenation concatenation, boolean isInvertActive) {
         XFVRPModel model = solution.getModel();
 
         int aa = aPos + aSegmentLength;
@@ -187,7 +359,7 @@ public class XFVRPSwapSearchUtil {
                         model.getDistance(route[aa], route[bPos]) +
                         model.getDistance(route[bb], route[aa + 1])
         );
-        addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+        addImprovingStep(solution, improvingSteps, concatenation, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.NO_INVERT);
 
         // BOTH INVERT
         if (isInvertActive && aSegmentLength > 0 && bSegmentLength > 0) {
@@ -196,7 +368,7 @@ public class XFVRPSwapSearchUtil {
                             model.getDistance(route[aPos], route[bb]) +
                             model.getDistance(route[bPos], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.BOTH_INVERT);
         }
         // A INVERT
         if (isInvertActive && aSegmentLength > 0) {
@@ -205,7 +377,7 @@ public class XFVRPSwapSearchUtil {
                             model.getDistance(route[aPos], route[bPos]) +
                             model.getDistance(route[bb], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.A_INVERT);
         }
         // B INVERT
         if (isInvertActive && bSegmentLength > 0) {
@@ -214,7 +386,7 @@ public class XFVRPSwapSearchUtil {
                             model.getDistance(route[aa], route[bb]) +
                             model.getDistance(route[bPos], route[aa + 1])
             );
-            addImprovingStep(solution, improvingSteps, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT, XFVRPMoveUtil.NO_OVERHANG);
+            addImprovingStep(solution, improvingSteps, concatenation, val, rtIdx, rtIdx, aPos, bPos, aSegmentLength, bSegmentLength, XFVRPSwapUtil.B_INVERT);
         }
     }
 
@@ -222,33 +394,47 @@ public class XFVRPSwapSearchUtil {
      * Swapping does not check for overhanging routes, because only customers are swapped, and this
      * is not changing the number of routes.
      */
-    private static void addImprovingStep(Solution solution, Queue<float[]> improvingSteps, float... newStep) {
+    private static void addImprovingStep(Solution solution, MoveBuffer improvingSteps, RouteConcatenation concatenation, float val, int aRtIdx, int bRtIdx, int aPos, int bPos, int aSegmentLength, int bSegmentLength, int invertType) {
+        // Add only improving steps
+        if (val <= EPSILON)
+            return;
+
         // Prevent, that additional nodes are moved to overhanging routes
-        if ((isDestinationOverhangRoute(solution, newStep) && newStep[5] > newStep[6]) ||
-                (isSourceOverhangRoute(solution, newStep) && newStep[6] > newStep[5])) {
-            newStep[0] = -1;
-            newStep[8] = XFVRPMoveUtil.IS_OVERHANG;
-        }
+        if ((isDestinationOverhangRoute(solution, bRtIdx) && aSegmentLength > bSegmentLength) ||
+                (isSourceOverhangRoute(solution, aRtIdx) && bSegmentLength > aSegmentLength))
+            return;
 
-        // Add only improving steps
-        if (newStep[0] > EPSILON) {
-            improvingSteps.add(newStep);
-        }
+        // Swaps between two routes, which are infeasible for sure, are skipped. Swaps inside a route are checked, when they are applied.
+        if (concatenation != null && aRtIdx != bRtIdx &&
+                !XFVRPSwapUtil.isFeasible(solution, concatenation, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, invertType))
+            return;
+
+        improvingSteps.add(val, aRtIdx, bRtIdx, aPos, bPos, aSegmentLength, bSegmentLength, invertType, XFVRPMoveUtil.NO_OVERHANG);
+    }
+
+    /**
+     * @return segment summaries, which are updated for all routes of the solution, or null,
+     * if the solution has no segment summaries
+     */
+    private static RouteSegmentSummaries updateSegmentSummaries(Solution solution) {
+        RouteSegmentSummaries summaries = solution.getSegmentSummaries();
+        if (summaries != null)
+            summaries.update(solution);
+
+        return summaries;
     }
 
     /**
      * In any case, if source route is overhang route
      */
-    private static boolean isSourceOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[1]];
+    private static boolean isSourceOverhangRoute(Solution solution, int aRtIdx) {
+        return solution.getOverhangRoutes()[aRtIdx];
     }
 
     /**
      * In any case, if destination route is overhang route
      */
-    private static boolean isDestinationOverhangRoute(Solution solution, float[] newStep) {
-        boolean[] isOverhang = solution.getOverhangRoutes();
-        return isOverhang[(int) newStep[2]];
+    private static boolean isDestinationOverhangRoute(Solution solution, int bRtIdx) {
+        return solution.getOverhangRoutes()[bRtIdx];
     }
 }
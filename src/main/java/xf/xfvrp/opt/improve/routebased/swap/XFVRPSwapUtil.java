@@ -4,6 +4,8 @@ import xf.xfvrp.base.Node;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.base.exception.XFVRPExceptionType;
 import xf.xfvrp.opt.Solution;
+import xf.xfvrp.opt.evaluation.RouteConcatenation;
+import xf.xfvrp.opt.improve.routebased.MoveBuffer;
 import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil;
 
 import java.util.Arrays;
@@ -31,13 +33,109 @@ public class XFVRPSwapUtil {
      * segments must not overlap each other.
      */
     public static Node[][] change(Solution solution, float[] val) throws XFVRPException {
-        int aRouteIndex = (int) val[1];
-        int bRouteIndex = (int) val[2];
-        int aPos = (int) val[3];
-        int bPos = (int) val[4];
-        int aSegmentLength = (int) val[5];
-        int bSegmentLength = (int) val[6];
-        int invertType = (int) val[7];
+        return change(solution, (int) val[1], (int) val[2], (int) val[3], (int) val[4], (int) val[5], (int) val[6], (int) val[7]);
+    }
+
+    /**
+     * Applies the swap in the given slot of the buffer like change(Solution, float[])
+     */
+    public static Node[][] change(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        return change(
+                solution,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6),
+                steps.getParameter(step, 7)
+        );
+    }
+
+    /**
+     * Applies the swap in the given slot of the buffer in place, where all changed
+     * routes are logged in the solution and can be reverted with Solution.undoRouteChanges.
+     */
+    public static void apply(Solution solution, MoveBuffer steps, int step) throws XFVRPException {
+        apply(
+                solution,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6),
+                steps.getParameter(step, 7)
+        );
+    }
+
+    /**
+     * Checks the changed routes of the swap in the given slot of the buffer with
+     * the segment summaries, without changing the solution.
+     *
+     * @return false, if a changed route is infeasible for sure
+     */
+    public static boolean isFeasible(Solution solution, MoveBuffer steps, int step, RouteConcatenation concatenation) {
+        return isFeasible(
+                solution,
+                concatenation,
+                steps.getParameter(step, 1),
+                steps.getParameter(step, 2),
+                steps.getParameter(step, 3),
+                steps.getParameter(step, 4),
+                steps.getParameter(step, 5),
+                steps.getParameter(step, 6),
+                steps.getParameter(step, 7)
+        );
+    }
+
+    /**
+     * Checks the changed routes of the swap like isFeasible(Solution, MoveBuffer, int, RouteConcatenation)
+     */
+    public static boolean isFeasible(Solution solution, RouteConcatenation concatenation, int aRouteIdx, int bRouteIdx, int aPos, int bPos, int aSegmentLength, int bSegmentLength, int invertType) {
+        int aEnd = aPos + aSegmentLength;
+        int bEnd = bPos + bSegmentLength;
+        boolean isAInverted = invertType == A_INVERT || invertType == BOTH_INVERT;
+        boolean isBInverted = invertType == B_INVERT || invertType == BOTH_INVERT;
+
+        if (aRouteIdx != bRouteIdx) {
+            concatenation.begin();
+            concatenation.addPrefix(solution, aRouteIdx, aPos - 1);
+            concatenation.addNodes(solution, bRouteIdx, bPos, bEnd, isBInverted);
+            concatenation.addSuffix(solution, aRouteIdx, aEnd + 1);
+            if (!concatenation.isFeasible())
+                return false;
+
+            concatenation.begin();
+            concatenation.addPrefix(solution, bRouteIdx, bPos - 1);
+            concatenation.addNodes(solution, aRouteIdx, aPos, aEnd, isAInverted);
+            concatenation.addSuffix(solution, bRouteIdx, bEnd + 1);
+            return concatenation.isFeasible();
+        }
+
+        // Overlapping segments are rejected in change
+        if (aEnd >= bPos && bEnd >= aPos)
+            return true;
+
+        concatenation.begin();
+        if (aPos < bPos) {
+            concatenation.addPrefix(solution, aRouteIdx, aPos - 1);
+            concatenation.addNodes(solution, aRouteIdx, bPos, bEnd, isBInverted);
+            concatenation.addNodes(solution, aRouteIdx, aEnd + 1, bPos - 1, false);
+            concatenation.addNodes(solution, aRouteIdx, aPos, aEnd, isAInverted);
+            concatenation.addSuffix(solution, aRouteIdx, bEnd + 1);
+        } else {
+            concatenation.addPrefix(solution, aRouteIdx, bPos - 1);
+            concatenation.addNodes(solution, aRouteIdx, aPos, aEnd, isAInverted);
+            concatenation.addNodes(solution, aRouteIdx, bEnd + 1, aPos - 1, false);
+            concatenation.addNodes(solution, aRouteIdx, bPos, bEnd, isBInverted);
+            concatenation.addSuffix(solution, aRouteIdx, aEnd + 1);
+        }
+
+        return concatenation.isFeasible();
+    }
+
+    private static Node[][] change(Solution solution, int aRouteIndex, int bRouteIndex, int aPos, int bPos, int aSegmentLength, int bSegmentLength, int invertType) throws XFVRPException {
 
         if (aRouteIndex == bRouteIndex &&
                 (((aPos < bPos) && (aPos + aSegmentLength) >= bPos) ||
@@ -102,6 +200,82 @@ public class XFVRPSwapUtil {
         }
     }
 
+    private static void apply(Solution solution, int aRouteIndex, int bRouteIndex, int aPos, int bPos, int aSegmentLength, int bSegmentLength, int invertType) throws XFVRPException {
+        Node[] aRoute = solution.getRoutes()[aRouteIndex];
+        Node[] bRoute = solution.getRoutes()[bRouteIndex];
+        checkSegments(aRoute, bRoute, aRouteIndex, bRouteIndex, aPos, bPos, aSegmentLength, bSegmentLength);
+
+        int aEnd = aPos + aSegmentLength;
+        int bEnd = bPos + bSegmentLength;
+        boolean isAInverted = invertType == A_INVERT || invertType == BOTH_INVERT;
+        boolean isBInverted = invertType == B_INVERT || invertType == BOTH_INVERT;
+
+        if (aSegmentLength == bSegmentLength) {
+            aRoute = solution.editRoute(aRouteIndex, aPos, aEnd);
+            bRoute = solution.editRoute(bRouteIndex, bPos, bEnd);
+            invert(aRoute, bRoute, aPos, bPos, aSegmentLength, bSegmentLength, invertType);
+            swapSegmentsEqualLength(aRoute, bRoute, aPos, bPos, aSegmentLength);
+        } else if (aRouteIndex != bRouteIndex) {
+            Node[] newARoute = solution.resizeRoute(aRouteIndex, aRoute.length + bSegmentLength - aSegmentLength);
+            replace(aRoute, aPos, aEnd, bRoute, bPos, bEnd, isBInverted, newARoute);
+            Node[] newBRoute = solution.resizeRoute(bRouteIndex, bRoute.length + aSegmentLength - bSegmentLength);
+            replace(bRoute, bPos, bEnd, aRoute, aPos, aEnd, isAInverted, newBRoute);
+        } else {
+            // Segment A is always before segment B
+            if (bPos < aPos) {
+                int tmp = aPos;
+                aPos = bPos;
+                bPos = tmp;
+                tmp = aEnd;
+                aEnd = bEnd;
+                bEnd = tmp;
+                boolean isInverted = isAInverted;
+                isAInverted = isBInverted;
+                isBInverted = isInverted;
+            }
+
+            // Rotate the segments and the nodes between them
+            Node[] route = solution.editRoute(aRouteIndex, aPos, bEnd);
+            int newBEnd = aPos + (bEnd - bPos);
+            int newAPos = bEnd - (aEnd - aPos);
+            XFVRPMoveUtil.swap(route, aPos, bEnd);
+            if (!isBInverted) XFVRPMoveUtil.swap(route, aPos, newBEnd);
+            XFVRPMoveUtil.swap(route, newBEnd + 1, newAPos - 1);
+            if (!isAInverted) XFVRPMoveUtil.swap(route, newAPos, bEnd);
+        }
+    }
+
+    private static void checkSegments(Node[] aRoute, Node[] bRoute, int aRouteIndex, int bRouteIndex, int aPos, int bPos, int aSegmentLength, int bSegmentLength) throws XFVRPException {
+        if (aRouteIndex == bRouteIndex &&
+                (((aPos < bPos) && (aPos + aSegmentLength) >= bPos) ||
+                        ((bPos < aPos) && (bPos + bSegmentLength) >= aPos))
+        ) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Segments are overlapping");
+        }
+
+        // Segments must not touch a depot
+        if (aPos == 0 || bPos == 0) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Segments contain the leading depot");
+        }
+        if (aPos + aSegmentLength == aRoute.length - 1 ||
+                bPos + bSegmentLength == bRoute.length - 1) {
+            throw new XFVRPException(XFVRPExceptionType.ILLEGAL_ARGUMENT, "Segments contain the trailing depot");
+        }
+    }
+
+    /**
+     * Copies the route into the new route, where the segment between start and end is replaced
+     * by the segment between segmentStart and segmentEnd of the other route
+     */
+    private static void replace(Node[] route, int start, int end, Node[] segmentRoute, int segmentStart, int segmentEnd, boolean isInverted, Node[] newRoute) {
+        int segmentLength = segmentEnd - segmentStart + 1;
+        System.arraycopy(route, 0, newRoute, 0, start);
+        System.arraycopy(segmentRoute, segmentStart, newRoute, start, segmentLength);
+        System.arraycopy(route, end + 1, newRoute, start + segmentLength, route.length - end - 1);
+        if (isInverted)
+            XFVRPMoveUtil.swap(newRoute, start, start + segmentLength - 1);
+    }
+
     private static void swapIntraRoute(int aPos, int bPos, int aSegmentLength, Node[] aRoute, Node[] aSegment, Node[] bSegment) {
         Node[] intermediates = new Node[bPos - (aPos + aSegmentLength + 1)];
         System.arraycopy(aRoute, aPos + aSegmentLength + 1, intermediates, 0, intermediates.length);
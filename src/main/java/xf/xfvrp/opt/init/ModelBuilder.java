@@ -8,10 +8,8 @@ import xf.xfvrp.base.compartment.CompartmentType;
 import xf.xfvrp.base.exception.XFVRPException;
 import xf.xfvrp.base.metric.InternalMetric;
 import xf.xfvrp.base.metric.Metric;
-import xf.xfvrp.base.metric.internal.AcceleratedMetricTransformator;
-import xf.xfvrp.base.metric.internal.FixCostMetricTransformator;
-import xf.xfvrp.base.metric.internal.OpenRouteMetricTransformator;
-import xf.xfvrp.base.metric.internal.PresetMetricTransformator;
+import xf.xfvrp.base.metric.internal.MetricTransformationPipeline;
+import xf.xfvrp.base.metric.internal.NeighborhoodIndex;
 import xf.xfvrp.base.monitor.StatusCode;
 import xf.xfvrp.base.monitor.StatusManager;
 import xf.xfvrp.base.preset.BlockNameConverter;
@@ -38,15 +36,19 @@ public class ModelBuilder {
         // Set local node index
         indexNodes(nodes);
 
-        // Metric transformations
-        InternalMetric internalMetric = buildInternalMetric(nodes, veh, externalMetric, parameter);
+        // Metric transformations (internal metric and metric for optimization in one pass)
+        MetricTransformationPipeline metrics = MetricTransformationPipeline.transform(externalMetric, nodes, veh, parameter);
+        InternalMetric internalMetric = metrics.getInternalMetric();
+        InternalMetric optMetric = metrics.getOptimizationMetric();
 
-        // Metric transformations for optimization
-        InternalMetric optMetric = buildOptimizationMetric(nodes, veh, internalMetric);
+        // Candidate lists for granular neighborhood searches
+        NeighborhoodIndex neighborhoodIndex = (parameter.isGranularNeighborhood()) ?
+                NeighborhoodIndex.build(nodes, internalMetric, optMetric, parameter.getNbrOfNearestNeighbors()) :
+                null;
 
         statusManager.fireMessage(StatusCode.RUNNING, "Nbr of nodes : " + nodes.length);
 
-        XFVRPModel model = new XFVRPModel(nodes, compartmentTypes, internalMetric, optMetric, veh, parameter);
+        XFVRPModel model = new XFVRPModel(nodes, compartmentTypes, internalMetric, optMetric, neighborhoodIndex, veh, parameter, statusManager.getPenaltyStatistics());
 
         countNbrOfNodesInBlocks(nodes, model);
 
@@ -60,20 +62,8 @@ public class ModelBuilder {
                 nbrOfNodesInBlocks[nodes[i].getPresetBlockIdx()]++;
     }
 
-    private InternalMetric buildInternalMetric(Node[] nodes, Vehicle veh, Metric metric, XFVRPParameter parameter) throws XFVRPException {
-        InternalMetric internalMetric = AcceleratedMetricTransformator.transform(metric, nodes, veh);
-        if (parameter.isOpenRouteAtStart() || parameter.isOpenRouteAtEnd())
-            internalMetric = OpenRouteMetricTransformator.transform(internalMetric, nodes, parameter);
-        return internalMetric;
-    }
-
     private void indexNodes(Node[] nodes) {
         for (int i = 0; i < nodes.length; i++)
             nodes[i].setIdx(i);
     }
-
-    private InternalMetric buildOptimizationMetric(Node[] nodes, Vehicle veh, InternalMetric internalMetric) {
-        InternalMetric optMetric = FixCostMetricTransformator.transform(internalMetric, nodes, veh);
-        return PresetMetricTransformator.transform(optMetric, nodes);
-    }
 }
@@ -2,6 +2,7 @@ package xf.xfvrp.report;
 
 import xf.xfvrp.base.Vehicle;
 import xf.xfvrp.base.XFVRPModel;
+import xf.xfvrp.base.quality.PenaltyStatistics;
 import xf.xfvrp.opt.Solution;
 
 import java.util.ArrayList;
@@ -29,6 +30,9 @@ public class Report {
 	private final List<RouteReport> reportList = new ArrayList<>();
 
 	private final Set<Vehicle> vehicleSet = new HashSet<>();
+
+	/* Counted penalties of the planning run at the time, when the report was built */
+	private final PenaltyStatistics penaltyStatistics;
 	
 	/**
 	 * A Report is the structral representation of a route planning solution.
@@ -36,6 +40,7 @@ public class Report {
 	 */
 	public Report(Solution solution) {
 		this.model = solution.getModel();
+		this.penaltyStatistics = copyPenaltyStatistics(model);
 		errors.add(solution);
 	}
 
@@ -46,6 +51,7 @@ public class Report {
 	 */
 	public Report(XFVRPModel model) {
 		this.model = model;
+		this.penaltyStatistics = copyPenaltyStatistics(model);
 	}
 	
 	public Set<Vehicle> getVehicles() {
@@ -75,6 +81,14 @@ public class Report {
 	public XFVRPModel getModel() {
 		return model;
 	}
+
+	/**
+	 * @return counted penalties per reason of all evaluations of the planning run,
+	 * which are not changed by following planning runs
+	 */
+	public PenaltyStatistics getPenaltyStatistics() {
+		return penaltyStatistics;
+	}
 	
 	/**
 	 * Import the route reports of another report object into this report.
@@ -91,4 +105,8 @@ public class Report {
 	public ErrorSummary getErrors() {
 		return errors;
 	}
+
+	private static PenaltyStatistics copyPenaltyStatistics(XFVRPModel model) {
+		return (model != null) ? model.getPenaltyStatistics().copy() : new PenaltyStatistics();
+	}
 }
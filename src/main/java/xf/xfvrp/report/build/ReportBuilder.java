@@ -109,8 +109,7 @@ public class ReportBuilder {
     }
 
     private void drive(Context context, RouteReport report) {
-        float[] dist = context.getModel().getDistanceAndTime(context.getLastNode(), context.getCurrentNode());
-        context.drive(dist);
+        context.drive();
 
         // check max driving time per shift restrictions
         if(context.getDrivingTime() >= context.getModel().getVehicle().getMaxDrivingTimePerShift()) {
@@ -152,7 +151,7 @@ public class ReportBuilder {
     }
 
     private void fillEvent(Event event, Context context) {
-        float[] dist = context.getModel().getDistanceAndTime(context.getLastNode(), context.getCurrentNode());
+        float[] dist = context.getLastDrivenDistance();
         event.setDistance(dist[0]);
         event.setTravelTime(dist[1]);
         event.setArrival(context.getRouteVar()[Context.TIME]);
@@ -0,0 +1,42 @@
+package util.instances
+
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.base.XFVRPModel
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.opt.Solution
+
+/**
+ * Depot at (0, 0) and customers C1..Cn at xlong = 1..n. Customers with odd numbers
+ * are shifted by zigZag in ylat, so that routes, which mix both sides, can be improved
+ * by many moves and swaps. With a zigZag of 0 all nodes are on one line.
+ */
+class TestLineScenario {
+
+	final Node depot
+	final List<Node> customers
+
+	TestLineScenario(int nbrOfCustomers, float zigZag) {
+		depot = new TestNode(externID: "DEP", globalIdx: 0, siteType: SiteType.DEPOT).getNode()
+		customers = (1..nbrOfCustomers).collect {
+			new TestNode(externID: "C" + it, globalIdx: it, xlong: it, ylat: (it % 2) * zigZag).getNode()
+		}
+	}
+
+	XFVRPModel model(XFVRPParameter parameter = new XFVRPParameter()) {
+		return TestXFVRPModel.get([depot] + customers, new TestVehicle(name: "V1", capacity: [10]).getVehicle(), parameter)
+	}
+
+	/**
+	 * @param routes indexes of the customers per route
+	 */
+	Solution solution(XFVRPModel model, List<List<Integer>> routes) {
+		def nodes = [depot]
+		for (List<Integer> route : routes) {
+			route.each { nodes.add(customers[it]) }
+			nodes.add(depot)
+		}
+
+		return Helper.set(model, nodes as Node[])
+	}
+}
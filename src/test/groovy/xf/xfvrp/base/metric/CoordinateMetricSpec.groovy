@@ -0,0 +1,61 @@
+package xf.xfvrp.base.metric
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.exception.XFVRPException
+
+class CoordinateMetricSpec extends Specification {
+
+	def v = new TestVehicle().getVehicle()
+
+	def nodes = [
+			new TestNode(geoId: 0, xlong: 0, ylat: 0).getNode(),
+			new TestNode(geoId: 1, xlong: 3, ylat: 4).getNode(),
+			new TestNode(geoId: 2, xlong: 7.3f, ylat: 1.9f).getNode(),
+			new TestNode(geoId: 3, xlong: -2.5f, ylat: 11.1f).getNode()
+	] as Node[]
+
+	def "Eucledian row is equal to single pairs"() {
+		def metric = new EucledianMetric()
+		float[] dist = new float[nodes.length]
+		float[] time = new float[nodes.length]
+
+		when:
+		metric.fillRow(nodes[1], nodes, v, dist, time)
+
+		then:
+		dist[0] == 5
+		dist[1] == 0
+		(0..<nodes.length).every { dist[it] == metric.getDistance(nodes[1], nodes[it], v) }
+		(0..<nodes.length).every { time[it] == metric.getTime(nodes[1], nodes[it], v) }
+	}
+
+	def "Air row is equal to single pairs"() {
+		def metric = new AirMetric()
+		float[] dist = new float[nodes.length]
+		float[] time = new float[nodes.length]
+
+		when:
+		metric.fillRow(nodes[2], nodes, v, dist, time)
+
+		then:
+		dist[2] == 0
+		(0..<nodes.length).every { dist[it] == metric.getDistance(nodes[2], nodes[it], v) }
+		(0..<nodes.length).every { time[it] == metric.getTime(nodes[2], nodes[it], v) }
+	}
+
+	def "Default row with missing entry"() {
+		def metric = new LongMapMetric()
+		metric.add(0, 0, 1, 2)
+		float[] dist = new float[2]
+		float[] time = new float[2]
+
+		when:
+		metric.fillRow(nodes[0], [nodes[0], nodes[1]] as Node[], v, dist, time)
+
+		then:
+		thrown XFVRPException
+	}
+}
@@ -0,0 +1,96 @@
+package xf.xfvrp.base.metric
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.exception.XFVRPException
+
+class LongMapMetricSpec extends Specification {
+
+	def v0 = new TestVehicle(vehicleMetricId: 0).getVehicle()
+	def v1 = new TestVehicle(vehicleMetricId: 1).getVehicle()
+
+	def "Add and read single entries"() {
+		def metric = new LongMapMetric()
+		def n1 = new TestNode(geoId: 1).getNode()
+		def n2 = new TestNode(geoId: 2).getNode()
+		def n3 = new TestNode(geoId: 3).getNode()
+
+		when:
+		metric.addDist(1, 2, 3)
+		metric.addTime(1, 2, 4)
+		metric.addTime(2, 1, 9)
+		metric.add(2, 3, 5, 6)
+		metric.add(2, 3, 1, 7, 8)
+
+		then:
+		metric.size() == 4
+		metric.getDistanceAndTime(n1, n2, v0) == [3, 4] as float[]
+		metric.getDistanceAndTime(n2, n1, v0) == [-1, 9] as float[]
+		metric.getDistance(n2, n3, v0) == 5
+		metric.getTime(n2, n3, v1) == 8
+		metric.getDistanceAndTime(n3, n2, v0) == null
+	}
+
+	def "Bulk add grows the table"() {
+		def metric = new LongMapMetric(1)
+		int n = 100
+		int[] src = new int[n * n]
+		int[] dst = new int[n * n]
+		float[] dist = new float[n * n]
+		float[] time = new float[n * n]
+		for (int i = 0; i < n; i++)
+			for (int j = 0; j < n; j++) {
+				src[i * n + j] = i
+				dst[i * n + j] = j
+				dist[i * n + j] = i + j
+				time[i * n + j] = i * j
+			}
+
+		when:
+		metric.add(src, dst, 1, dist, time)
+
+		then:
+		metric.size() == n * n
+		metric.getDistanceAndTime(new TestNode(geoId: 17).getNode(), new TestNode(geoId: 42).getNode(), v1) == [59, 714] as float[]
+		metric.getDistanceAndTime(new TestNode(geoId: 17).getNode(), new TestNode(geoId: 42).getNode(), v0) == null
+	}
+
+	def "Missing entry"() {
+		def metric = new LongMapMetric()
+
+		when:
+		metric.getDistance(new TestNode(geoId: 1).getNode(), new TestNode(geoId: 2).getNode(), v0)
+
+		then:
+		thrown XFVRPException
+	}
+
+	def "Reject geoId out of range"() {
+		def metric = new LongMapMetric()
+
+		when:
+		metric.add(-1, 2, 3, 4)
+
+		then:
+		thrown XFVRPException
+	}
+
+	def "Reject too many expected entries"() {
+		when:
+		new LongMapMetric(400_000_000)
+
+		then:
+		thrown XFVRPException
+	}
+
+	def "Bulk add with different array lengths"() {
+		def metric = new LongMapMetric()
+
+		when:
+		metric.add([1, 2] as int[], [1] as int[], [1, 2] as float[], [1, 2] as float[])
+
+		then:
+		thrown XFVRPException
+	}
+}
@@ -0,0 +1,105 @@
+package xf.xfvrp.base.metric
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.exception.XFVRPException
+
+import java.nio.file.Files
+
+class MemoryMappedMetricSpec extends Specification {
+
+	def "Write map metric and read it mapped"() {
+		def metric = new MapMetric()
+		metric.add(0, 1, 5, 6)
+		metric.add(1, 0, 1, 7, 8)
+		metric.add(2, 2, 3, 4)
+		def file = Files.createTempFile("metric", ".bin")
+
+		def n0 = new TestNode(geoId: 0).getNode()
+		def n1 = new TestNode(geoId: 1).getNode()
+		def n2 = new TestNode(geoId: 2).getNode()
+		def n5 = new TestNode(geoId: 5).getNode()
+		def v0 = new TestVehicle(vehicleMetricId: 0).getVehicle()
+		def v1 = new TestVehicle(vehicleMetricId: 1).getVehicle()
+
+		when:
+		MemoryMappedMetricWriter.write(metric, 3, 2, file)
+		def mapped = new MemoryMappedMetric(file)
+
+		then:
+		mapped.getSize() == 3
+		mapped.getNbrOfVehicleMetricIds() == 2
+		mapped.getDistance(n0, n1, v0) == 5
+		mapped.getTime(n0, n1, v0) == 6
+		mapped.getDistanceAndTime(n1, n0, v1) == [7, 8] as float[]
+		mapped.getDistanceAndTime(n2, n2, v0) == [3, 4] as float[]
+		mapped.getDistanceAndTime(n1, n0, v0) == null
+		mapped.getDistanceAndTime(n0, n5, v0) == null
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+
+	def "Write direct matrix metric"() {
+		def metric = new DirectMatrixMetric(2, 1)
+		metric.add(0, 1, 0, 10, 11)
+		metric.add(1, 0, 0, 12, 13)
+		def file = Files.createTempFile("metric", ".bin")
+
+		def n0 = new TestNode(geoId: 0).getNode()
+		def n1 = new TestNode(geoId: 1).getNode()
+		def v = new TestVehicle().getVehicle()
+
+		when:
+		MemoryMappedMetricWriter.write(metric, file)
+		def mapped = new MemoryMappedMetric(file)
+
+		then:
+		mapped.getDistanceAndTime(n0, n1, v) == [10, 11] as float[]
+		mapped.getDistanceAndTime(n1, n0, v) == [12, 13] as float[]
+		mapped.getDistanceAndTime(n0, n0, v) == null
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+
+	def "Reject ids outside of the matrix"() {
+		def metric = new DirectMatrixMetric(2, 1)
+		metric.add(0, 1, 0, 10, 11)
+		def file = Files.createTempFile("metric", ".bin")
+		MemoryMappedMetricWriter.write(metric, file)
+		def mapped = new MemoryMappedMetric(file)
+
+		when:
+		read(mapped, new TestNode(geoId: srcId).getNode(), new TestNode(geoId: dstId).getNode(), new TestVehicle(vehicleMetricId: vehicleMetricId).getVehicle())
+
+		then:
+		thrown XFVRPException
+
+		cleanup:
+		Files.deleteIfExists(file)
+
+		where:
+		srcId | dstId | vehicleMetricId | read
+		2     | 0     | 0               | { m, a, b, v -> m.getDistance(a, b, v) }
+		0     | -1    | 0               | { m, a, b, v -> m.getDistance(a, b, v) }
+		0     | 1     | 1               | { m, a, b, v -> m.getDistance(a, b, v) }
+		0     | 2     | 0               | { m, a, b, v -> m.getTime(a, b, v) }
+		0     | 1     | 1               | { m, a, b, v -> m.getTime(a, b, v) }
+	}
+
+	def "Reject file in wrong format"() {
+		def file = Files.createTempFile("metric", ".bin")
+		Files.write(file, new byte[32])
+
+		when:
+		new MemoryMappedMetric(file)
+
+		then:
+		thrown XFVRPException
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+}
@@ -0,0 +1,149 @@
+package xf.xfvrp.base.metric
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.exception.XFVRPException
+
+import java.nio.FloatBuffer
+import java.nio.file.Files
+
+class PackedMatrixMetricSpec extends Specification {
+
+	def n0 = new TestNode(geoId: 0).getNode()
+	def n1 = new TestNode(geoId: 1).getNode()
+	def v0 = new TestVehicle(vehicleMetricId: 0).getVehicle()
+	def v1 = new TestVehicle(vehicleMetricId: 1).getVehicle()
+
+	def "Set whole matrices and rows"() {
+		def metric = new PackedMatrixMetric(2, 2)
+
+		when:
+		metric.setMatrix(0, [0, 1, 2, 0] as float[], [0, 3, 4, 0] as float[])
+		metric.setRow(1, 1, [5, 6] as float[], [7, 8] as float[])
+
+		then:
+		metric.getDistance(n0, n1, v0) == 1
+		metric.getTime(n0, n1, v0) == 3
+		metric.getDistanceAndTime(n1, n0, v0) == [2, 4] as float[]
+		metric.getDistanceAndTime(n1, n0, v1) == [5, 7] as float[]
+		metric.getDistanceAndTime(n0, n1, v1) == null
+	}
+
+	def "Set matrix from buffers"() {
+		def metric = new PackedMatrixMetric(2, 1)
+		def interleaved = FloatBuffer.wrap([-1, 0, 0, 1, 2, 3, 4, 0, 0] as float[])
+		interleaved.position(1)
+
+		when:
+		metric.setMatrix(0, interleaved)
+
+		then:
+		interleaved.position() == 1
+		metric.getDistanceAndTime(n0, n1, v0) == [1, 2] as float[]
+		metric.getDistanceAndTime(n1, n0, v0) == [3, 4] as float[]
+	}
+
+	def "Wrong number of values"() {
+		def metric = new PackedMatrixMetric(2, 1)
+
+		when:
+		metric.setMatrix(0, [0, 1, 2] as float[], [0, 1, 2, 3] as float[])
+
+		then:
+		thrown XFVRPException
+	}
+
+	def "Fill row"() {
+		def metric = new PackedMatrixMetric(2, 1)
+		metric.setMatrix(0, [0, 1, 2, 0] as float[], [0, 3, 4, 0] as float[])
+		float[] dist = new float[2]
+		float[] time = new float[2]
+
+		when:
+		metric.fillRow(n1, [n1, n0] as Node[], v0, dist, time)
+
+		then:
+		dist == [0, 2] as float[]
+		time == [0, 4] as float[]
+	}
+
+	def "Fill row with missing entry"() {
+		def metric = new PackedMatrixMetric(2, 1)
+		metric.add(0, 0, 1, 1)
+
+		when:
+		metric.fillRow(n0, [n0, n1] as Node[], v0, new float[2], new float[2])
+
+		then:
+		thrown XFVRPException
+	}
+
+	def "Read binary matrix file"() {
+		def metric = new MapMetric()
+		metric.add(0, 1, 5, 6)
+		metric.add(1, 0, 1, 7, 8)
+		def file = Files.createTempFile("metric", ".bin")
+		MemoryMappedMetricWriter.write(metric, 2, 2, file)
+
+		when:
+		def packed = PackedMatrixMetric.read(file)
+
+		then:
+		packed.getSize() == 2
+		packed.getNbrOfVehicleMetricIds() == 2
+		packed.getDistanceAndTime(n0, n1, v0) == [5, 6] as float[]
+		packed.getDistanceAndTime(n1, n0, v1) == [7, 8] as float[]
+		packed.getDistanceAndTime(n1, n0, v0) == null
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+
+	def "Read CSV file"() {
+		def file = Files.createTempFile("metric", ".csv")
+		Files.write(file, ["# src,dst,dist,time", "0,1,5.5,6", "", "1; 0; 1; 7; 8"])
+
+		when:
+		def packed = PackedMatrixMetric.readCSV(file, 2, 2)
+
+		then:
+		packed.getDistanceAndTime(n0, n1, v0) == [5.5, 6] as float[]
+		packed.getDistanceAndTime(n1, n0, v1) == [7, 8] as float[]
+		packed.getDistanceAndTime(n1, n0, v0) == null
+
+		cleanup:
+		Files.deleteIfExists(file)
+	}
+
+	def "Invalid CSV file"() {
+		def file = Files.createTempFile("metric", ".csv")
+		Files.write(file, [line])
+
+		when:
+		PackedMatrixMetric.readCSV(file, 2, 1)
+
+		then:
+		thrown XFVRPException
+
+		cleanup:
+		Files.deleteIfExists(file)
+
+		where:
+		line << ["0,1,5", "0,1,a,6", "0,5,1,1", "0,1,1,1,1"]
+	}
+
+	def "Single profile direct matrix metric"() {
+		def metric = new DirectMatrixMetric(2)
+		n0.setIdx(0)
+		n1.setIdx(1)
+
+		when:
+		metric.add(0, 1, 5, 6)
+
+		then:
+		metric.getDistance(n0, n1, v0) == 5
+		metric.getTime(n0, n1, v0) == 6
+	}
+}
@@ -0,0 +1,75 @@
+package xf.xfvrp.base.metric.internal
+
+import spock.lang.Specification
+import util.instances.TestNode
+
+class AcceleratedMetricSpec extends Specification {
+
+	def "Add and read distance and time"() {
+		def n1 = new TestNode(externID: "1").getNode()
+		def n2 = new TestNode(externID: "2").getNode()
+		n1.setIdx(0)
+		n2.setIdx(1)
+
+		def metric = new AcceleratedMetric(2)
+		metric.add(0, 1, 5, 7)
+		metric.add(1, 0, 3, 4)
+		float[] out = new float[2]
+
+		when:
+		metric.getDistanceAndTime(n2, n1, out)
+		def record = metric.getDistanceAndTime(n1, n2)
+
+		then:
+		metric.getDistance(n1, n2) == 5
+		metric.getTime(n1, n2) == 7
+		metric.getDistance(n1, n1) == 0
+		out[0] == 3
+		out[1] == 4
+		record[0] == 5
+		record[1] == 7
+	}
+
+	def "Symmetric storage"() {
+		def n1 = new TestNode(externID: "1").getNode()
+		def n2 = new TestNode(externID: "2").getNode()
+		def n3 = new TestNode(externID: "3").getNode()
+		n1.setIdx(0)
+		n2.setIdx(1)
+		n3.setIdx(2)
+
+		def metric = new AcceleratedMetric(3, true)
+
+		when:
+		metric.add(0, 1, 5, 7)
+		metric.add(2, 0, 3, 4)
+		metric.add(1, 2, 6, 8)
+		metric.add(2, 2, 1, 1)
+
+		then:
+		metric.isSymmetric()
+		metric.getDistance(n1, n2) == 5
+		metric.getDistance(n2, n1) == 5
+		metric.getTime(n2, n1) == 7
+		metric.getDistance(n1, n3) == 3
+		metric.getTime(n1, n3) == 4
+		metric.getDistance(n3, n2) == 6
+		metric.getDistance(n3, n3) == 1
+		metric.getDistance(n1, n1) == 0
+	}
+
+	def "Returned record is not shared with the matrix"() {
+		def n1 = new TestNode(externID: "1").getNode()
+		n1.setIdx(0)
+
+		def metric = new AcceleratedMetric(1)
+		metric.add(0, 0, 5, 7)
+
+		when:
+		def record = metric.getDistanceAndTime(n1, n1)
+		record[0] = 99
+
+		then:
+		metric.getDistance(n1, n1) == 5
+	}
+}
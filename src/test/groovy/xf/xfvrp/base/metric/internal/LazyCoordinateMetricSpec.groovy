@@ -0,0 +1,82 @@
+package xf.xfvrp.base.metric.internal
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.base.metric.EucledianMetric
+
+class LazyCoordinateMetricSpec extends Specification {
+
+	def depot = new TestNode(externID: "D", siteType: SiteType.DEPOT, xlong: 0, ylat: 0).getNode()
+	def n1 = new TestNode(externID: "1", xlong: 3, ylat: 4).getNode()
+	def n2 = new TestNode(externID: "2", xlong: 1, ylat: 0).getNode()
+	def n3 = new TestNode(externID: "3", xlong: 6, ylat: 8).getNode()
+	def nodes = [depot, n1, n2, n3] as Node[]
+
+	def setup() {
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i].setIdx(i)
+	}
+
+	def "Distances are calculated on demand"() {
+		def parameter = new XFVRPParameter()
+		parameter.setLazyCoordinateMetricCacheSize(cacheSize)
+
+		when:
+		def metric = new LazyCoordinateMetric(new EucledianMetric(), nodes, parameter)
+		float[] out = new float[2]
+		metric.getDistanceAndTime(n1, n3, out)
+
+		then:
+		metric.getDistance(depot, n1) == 5
+		metric.getDistance(depot, n1) == 5
+		metric.getTime(n3, depot) == 10
+		out == [5, 5] as float[]
+		metric.getNearestNeighbors(0) == null
+
+		where:
+		cacheSize << [0, 16]
+	}
+
+	def "Open routes"() {
+		def parameter = new XFVRPParameter()
+		parameter.setOpenRouteAtEnd(true)
+
+		when:
+		def metric = new LazyCoordinateMetric(new EucledianMetric(), nodes, parameter)
+
+		then:
+		metric.getDistance(depot, n1) == 5
+		metric.getDistance(n1, depot) == 0
+		metric.getTime(n1, depot) == 0
+	}
+
+	def "Nearest neighbors"() {
+		def parameter = new XFVRPParameter()
+		parameter.setNbrOfNearestNeighbors(2)
+
+		when:
+		def metric = new LazyCoordinateMetric(new EucledianMetric(), nodes, parameter)
+
+		then:
+		metric.getNearestNeighbors(0) == [2, 1] as int[]
+		metric.getNearestNeighbors(3) == [1, 2] as int[]
+	}
+
+	def "Pipeline builds lazy metrics for coordinate metrics"() {
+		def parameter = new XFVRPParameter()
+		parameter.setLazyCoordinateMetric(true)
+
+		when:
+		def result = MetricTransformationPipeline.transform(new EucledianMetric(), nodes, new TestVehicle(fixCost: 10).getVehicle(), parameter)
+
+		then:
+		result.getInternalMetric() instanceof LazyCoordinateMetric
+		result.getOptimizationMetric() instanceof LazyOptMetric
+		result.getOptimizationMetric().getDistance(depot, n1) == 15
+		result.getOptimizationMetric().getDistance(n1, n3) == 5
+	}
+}
@@ -0,0 +1,99 @@
+package xf.xfvrp.base.metric.internal
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.Vehicle
+import xf.xfvrp.base.metric.EucledianMetric
+import xf.xfvrp.base.metric.Metric
+
+class MetricCacheSpec extends Specification {
+
+	def n0 = new TestNode(globalIdx: 0, externID: "0", xlong: 0, ylat: 0).getNode()
+	def n1 = new TestNode(globalIdx: 1, externID: "1", xlong: 3, ylat: 4).getNode()
+	def n2 = new TestNode(globalIdx: 2, externID: "2", xlong: 6, ylat: 8).getNode()
+	def v = new TestVehicle().getVehicle()
+
+	def "View on all nodes is the cached matrix"() {
+		def nodes = [n0, n1, n2] as Node[]
+		index(nodes)
+		def cache = new MetricCache(new EucledianMetric(), nodes)
+
+		when:
+		def metric = cache.getInternalMetric(nodes, v)
+
+		then:
+		metric instanceof AcceleratedMetric
+		metric.getDistance(n0, n2) == 10
+		cache.getInternalMetric(nodes, v).is(metric)
+	}
+
+	def "View on a subset of nodes"() {
+		def cache = new MetricCache(new EucledianMetric(), [n0, n1, n2] as Node[])
+		def subset = [n2, n0] as Node[]
+		index(subset)
+
+		when:
+		def metric = cache.getInternalMetric(subset, v)
+		float[] out = new float[2]
+		metric.getDistanceAndTime(n2, n0, out)
+
+		then:
+		metric instanceof RemappedMetric
+		metric.getDistance(n0, n2) == 10
+		metric.getTime(n2, n0) == 10
+		out == [10, 10] as float[]
+	}
+
+	def "Matrix is built once per vehicle metric id"() {
+		def userMetric = Spy(ConstantMetric)
+		def nodes = [n0, n1] as Node[]
+		index(nodes)
+		def cache = new MetricCache(userMetric, nodes)
+
+		when:
+		cache.getInternalMetric(nodes, v)
+		cache.getInternalMetric([n1] as Node[], v)
+		cache.getInternalMetric(nodes, new TestVehicle(vehicleMetricId: 1).getVehicle())
+
+		then:
+		8 * userMetric.getDistanceAndTime(_, _, _) >> ([1, 1] as float[])
+	}
+
+	def "Unknown nodes are not covered"() {
+		def cache = new MetricCache(new EucledianMetric(), [n0, n1] as Node[])
+		def nodes = [n0, n2] as Node[]
+		index(nodes)
+
+		expect:
+		cache.getInternalMetric(nodes, v) == null
+	}
+
+	def "Missing entries are not cached"() {
+		def userMetric = new ConstantMetric(value: null)
+		def nodes = [n0, n1] as Node[]
+		index(nodes)
+
+		expect:
+		new MetricCache(userMetric, nodes).getInternalMetric(nodes, v) == null
+	}
+
+	private static void index(Node[] nodes) {
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i].setIdx(i)
+	}
+
+	/**
+	 * Real implementation, so that default methods of Metric are not stubbed
+	 */
+	static class ConstantMetric implements Metric {
+		float[] value = [1, 1] as float[]
+
+		float getDistance(Node src, Node dst, Vehicle veh) { value[0] }
+
+		float getTime(Node src, Node dst, Vehicle veh) { value[1] }
+
+		float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) { value }
+	}
+}
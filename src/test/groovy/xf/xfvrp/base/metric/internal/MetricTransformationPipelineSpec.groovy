@@ -0,0 +1,139 @@
+package xf.xfvrp.base.metric.internal
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.base.Vehicle
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.base.exception.XFVRPException
+import xf.xfvrp.base.metric.EucledianMetric
+import xf.xfvrp.base.metric.Metric
+
+class MetricTransformationPipelineSpec extends Specification {
+
+	def depot = new TestNode(externID: "D", siteType: SiteType.DEPOT, xlong: 0, ylat: 0).getNode()
+	def n1 = new TestNode(externID: "1", xlong: 3, ylat: 4).getNode()
+	def n2 = new TestNode(externID: "2", xlong: 3, ylat: 0).getNode()
+	def nodes = [depot, n1, n2] as Node[]
+
+	def setup() {
+		for (int i = 0; i < nodes.length; i++)
+			nodes[i].setIdx(i)
+	}
+
+	def "Internal metric and fix costs"() {
+		def v = new TestVehicle(fixCost: 100).getVehicle()
+
+		when:
+		def result = MetricTransformationPipeline.transform(new EucledianMetric(), nodes, v, new XFVRPParameter())
+		def internal = result.getInternalMetric()
+		def opt = result.getOptimizationMetric()
+
+		then:
+		internal.getDistance(depot, n1) == 5
+		internal.getTime(n1, depot) == 5
+		internal.getDistance(n1, n2) == 4
+		opt.getDistance(depot, n1) == 105
+		opt.getDistance(n1, depot) == 105
+		opt.getDistance(n1, n2) == 4
+		opt.getDistance(depot, depot) == 0
+	}
+
+	def "Symmetric matrices for coordinate metrics"() {
+		def v = new TestVehicle(fixCost: 100).getVehicle()
+
+		when:
+		def result = MetricTransformationPipeline.transform(new EucledianMetric(), nodes, v, new XFVRPParameter())
+		def internal = result.getInternalMetric()
+		def opt = result.getOptimizationMetric()
+
+		then:
+		((AcceleratedMetric) internal).isSymmetric()
+		((InternalOptMetric) opt).isSymmetric()
+		internal.getDistance(n2, n1) == internal.getDistance(n1, n2)
+		opt.getDistance(n1, depot) == 105
+	}
+
+	def "No symmetric matrices with open routes"() {
+		def parameter = new XFVRPParameter()
+		parameter.setOpenRouteAtEnd(true)
+
+		when:
+		def result = MetricTransformationPipeline.transform(new EucledianMetric(), nodes, new TestVehicle().getVehicle(), parameter)
+
+		then:
+		!((AcceleratedMetric) result.getInternalMetric()).isSymmetric()
+		!((InternalOptMetric) result.getOptimizationMetric()).isSymmetric()
+		result.getInternalMetric().getDistance(n1, depot) == 0
+		result.getInternalMetric().getDistance(depot, n1) == 5
+	}
+
+	def "Declared symmetric metric"() {
+		def parameter = new XFVRPParameter()
+		parameter.setSymmetricMetric(true)
+
+		expect:
+		MetricTransformationPipeline.isSymmetric(new ConstantMetric(), parameter)
+		!MetricTransformationPipeline.isSymmetric(new ConstantMetric(), new XFVRPParameter())
+		MetricTransformationPipeline.isSymmetric(new EucledianMetric(), new XFVRPParameter())
+	}
+
+	def "Open routes"() {
+		def v = new TestVehicle(fixCost: 100).getVehicle()
+		def parameter = new XFVRPParameter()
+		parameter.setOpenRouteAtStart(true)
+
+		when:
+		def result = MetricTransformationPipeline.transform(new EucledianMetric(), nodes, v, parameter)
+
+		then:
+		result.getInternalMetric().getDistance(depot, n1) == 0
+		result.getInternalMetric().getTime(depot, n1) == 0
+		result.getInternalMetric().getDistance(n1, depot) == 5
+		result.getOptimizationMetric().getDistance(depot, n1) == 100
+		result.getOptimizationMetric().getDistance(n1, depot) == 105
+	}
+
+	def "Sequence position presets"() {
+		def a = new TestNode(externID: "A", xlong: 1, presetBlockIdx: 1, presetBlockPos: 1).getNode()
+		def b = new TestNode(externID: "B", xlong: 2, presetBlockIdx: 1, presetBlockPos: 2).getNode()
+		def c = new TestNode(externID: "C", xlong: 3).getNode()
+		def presetNodes = [depot, a, b, c] as Node[]
+		for (int i = 0; i < presetNodes.length; i++)
+			presetNodes[i].setIdx(i)
+
+		when:
+		def opt = MetricTransformationPipeline.transform(new EucledianMetric(), presetNodes, new TestVehicle().getVehicle(), new XFVRPParameter()).getOptimizationMetric()
+
+		then:
+		opt.getDistance(a, b) == 1
+		opt.getDistance(a, c) == Float.MAX_VALUE
+		opt.getDistance(c, b) == Float.MAX_VALUE
+		opt.getDistance(b, c) == 1
+	}
+
+	def "Missing distance information"() {
+		def metric = new ConstantMetric(value: null)
+
+		when:
+		MetricTransformationPipeline.transform(metric, nodes, new TestVehicle().getVehicle(), new XFVRPParameter())
+
+		then:
+		thrown XFVRPException
+	}
+
+	/**
+	 * User metric without coordinates with the same value for all pairs (null for missing entries)
+	 */
+	static class ConstantMetric implements Metric {
+		float[] value = [1, 1] as float[]
+
+		float getDistance(Node src, Node dst, Vehicle veh) { value[0] }
+
+		float getTime(Node src, Node dst, Vehicle veh) { value[1] }
+
+		float[] getDistanceAndTime(Node src, Node dst, Vehicle veh) { value }
+	}
+}
@@ -0,0 +1,79 @@
+package xf.xfvrp.base.metric.internal
+
+import spock.lang.Specification
+import util.instances.TestNode
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.exception.XFVRPException
+import xf.xfvrp.base.metric.OptimizationMetricPrecision
+
+class QuantizedOptMetricSpec extends Specification {
+
+	def n1 = new TestNode(externID: "1").getNode()
+	def n2 = new TestNode(externID: "2").getNode()
+	def n3 = new TestNode(externID: "3").getNode()
+
+	def setup() {
+		[n1, n2, n3].eachWithIndex { Node n, int i -> n.setIdx(i) }
+	}
+
+	def "Fixed-point distances with given scale"() {
+		def metric = new InternalOptMetric(3)
+		metric.setDistance(0, 1, 12.3456f)
+		metric.setDistance(1, 0, 7.25f)
+		metric.setDistance(0, 2, Float.MAX_VALUE)
+
+		when:
+		def result = QuantizedOptMetric.quantize(metric, precision, 100)
+
+		then:
+		result instanceof QuantizedOptMetric
+		result.getDistance(n1, n2) == 1235 / 100f
+		result.getDistance(n2, n1) == 7.25f
+		result.getDistance(n1, n3) == Float.MAX_VALUE
+		result.getDistance(n1, n1) == 0
+
+		where:
+		precision << [OptimizationMetricPrecision.INT16, OptimizationMetricPrecision.INT32]
+	}
+
+	def "Automatic scale uses the full value range"() {
+		def metric = new InternalOptMetric(3, true)
+		metric.setDistance(0, 1, 5000)
+		metric.setDistance(2, 1, 1)
+
+		when:
+		def result = (QuantizedOptMetric) QuantizedOptMetric.quantize(metric, OptimizationMetricPrecision.INT16, 0)
+
+		then:
+		Math.round(5000 * result.getScale()) < 65535
+		Math.round(5000 * result.getScale()) > 65000
+		Math.abs(result.getDistance(n2, n1) - 5000) < 0.1
+		Math.abs(result.getDistance(n2, n3) - 1) < 0.1
+	}
+
+	def "Exact metric is kept, if values do not fit"() {
+		def metric = new InternalOptMetric(2)
+		metric.setDistance(0, 1, distance)
+
+		expect:
+		QuantizedOptMetric.quantize(metric, OptimizationMetricPrecision.INT16, 100).is(metric)
+
+		where:
+		distance << [1000f, -1f, Float.NaN]
+	}
+
+	def "Float precision keeps exact metric"() {
+		def metric = new InternalOptMetric(2)
+
+		expect:
+		QuantizedOptMetric.quantize(metric, OptimizationMetricPrecision.FLOAT, 100).is(metric)
+	}
+
+	def "Invalid scale"() {
+		when:
+		QuantizedOptMetric.quantize(new InternalOptMetric(2), OptimizationMetricPrecision.INT32, -1)
+
+		then:
+		thrown XFVRPException
+	}
+}
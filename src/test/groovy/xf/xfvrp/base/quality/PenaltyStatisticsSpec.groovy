@@ -0,0 +1,70 @@
+package xf.xfvrp.base.quality
+
+import spock.lang.Specification
+import xf.xfvrp.base.Quality
+
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class PenaltyStatisticsSpec extends Specification {
+
+	def "Penalties are counted per reason"() {
+		def stats = new PenaltyStatistics()
+
+		when:
+		stats.add(2.5f, Quality.PENALTY_REASON_DELAY)
+		stats.add(1, Quality.PENALTY_REASON_DELAY)
+		stats.add(0, Quality.PENALTY_REASON_DELAY)
+		stats.add(1, Quality.PENALTY_REASON_CAPACITY)
+
+		then:
+		stats.getCount(Quality.PENALTY_REASON_DELAY) == 2
+		Math.abs(stats.getPenalty(Quality.PENALTY_REASON_DELAY) - 3.5f) < 0.001f
+		stats.getCount(Quality.PENALTY_REASON_CAPACITY) == 1
+		stats.getCount(Quality.PENALTY_REASON_BLACKLIST) == 0
+		stats.toString() == "capacity=1 (1.0), delay=2 (3.5)"
+	}
+
+	def "Penalties of several threads are counted"() {
+		def stats = new PenaltyStatistics()
+		def executor = Executors.newFixedThreadPool(4)
+
+		when:
+		4.times {
+			executor.submit({ 1000.times { stats.add(1, Quality.PENALTY_REASON_PRESETTING) } } as Runnable)
+		}
+		executor.shutdown()
+		executor.awaitTermination(10, TimeUnit.SECONDS)
+
+		then:
+		stats.getCount(Quality.PENALTY_REASON_PRESETTING) == 4000
+		stats.getPenalty(Quality.PENALTY_REASON_PRESETTING) == 4000
+	}
+
+	def "Copy is not changed by further penalties"() {
+		def stats = new PenaltyStatistics()
+		stats.add(2, Quality.PENALTY_REASON_CAPACITY)
+
+		when:
+		def copy = stats.copy()
+		stats.add(1, Quality.PENALTY_REASON_CAPACITY)
+		stats.clear()
+
+		then:
+		copy.getCount(Quality.PENALTY_REASON_CAPACITY) == 1
+		copy.getPenalty(Quality.PENALTY_REASON_CAPACITY) == 2
+	}
+
+	def "Cleared statistics have no penalties"() {
+		def stats = new PenaltyStatistics()
+		stats.add(1, Quality.PENALTY_REASON_STOPCOUNT)
+
+		when:
+		stats.clear()
+
+		then:
+		stats.getCount(Quality.PENALTY_REASON_STOPCOUNT) == 0
+		stats.getPenalty(Quality.PENALTY_REASON_STOPCOUNT) == 0
+		stats.toString() == ""
+	}
+}
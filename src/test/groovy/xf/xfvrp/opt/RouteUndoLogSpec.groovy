@@ -0,0 +1,112 @@
+package xf.xfvrp.opt
+
+import spock.lang.Specification
+import util.instances.Helper
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.opt.improve.routebased.MoveBuffer
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPSwapUtil
+
+class RouteUndoLogSpec extends Specification {
+
+	def nd = new Node(externID: "D", siteType: SiteType.DEPOT)
+	def n1 = new Node(externID: "1", siteType: SiteType.CUSTOMER)
+	def n2 = new Node(externID: "2", siteType: SiteType.CUSTOMER)
+	def n3 = new Node(externID: "3", siteType: SiteType.CUSTOMER)
+	def n4 = new Node(externID: "4", siteType: SiteType.CUSTOMER)
+	def n5 = new Node(externID: "5", siteType: SiteType.CUSTOMER)
+	def n6 = new Node(externID: "6", siteType: SiteType.CUSTOMER)
+
+	def "Applied moves and swaps are equal to changed routes and are reverted"() {
+		def sol = Helper.set([nd, n1, n2, n3, nd, n4, n5, n6, nd] as Node[])
+		def original = routesOf(sol)
+
+		when:
+		def isEqual = stepsOf(sol).every { float[] step ->
+			def changed = sol.copy()
+			(step.length == 9) ? XFVRPSwapUtil.change(changed, step) : XFVRPMoveUtil.change(changed, step)
+
+			def buffer = new MoveBuffer()
+			buffer.add(step)
+			int slot = buffer.poll()
+			(step.length == 9) ? XFVRPSwapUtil.apply(sol, buffer, slot) : XFVRPMoveUtil.apply(sol, buffer, slot)
+			def applied = routesOf(sol)
+			sol.undoRouteChanges()
+
+			return applied == routesOf(changed) && routesOf(sol) == original
+		}
+
+		then:
+		isEqual
+	}
+
+	def "Shared routes are copied on first change"() {
+		def sol = Helper.set([nd, n1, n2, n3, nd] as Node[])
+		def shared = sol.getRoutes()[0]
+		def sharedNodes = shared.collect { it.externID }
+
+		when:
+		def route = sol.editRoute(0, 1, 3)
+		XFVRPMoveUtil.swap(route, 1, 3)
+		def isCopied = route != shared
+		sol.commitRouteChanges()
+		def isInPlace = sol.editRoute(0, 1, 3) == route
+
+		then:
+		isCopied
+		isInPlace
+		shared.collect { it.externID } == sharedNodes
+		sol.getRoutes()[0].collect { it.externID } == ["D", "3", "2", "1", "D"]
+	}
+
+	def "Committed changes are not reverted"() {
+		def sol = Helper.set([nd, n1, n2, nd, n3, nd] as Node[])
+		def buffer = new MoveBuffer()
+		buffer.add([1, 0, 1, 1, 1, 0, 0, 0] as float[])
+
+		when:
+		XFVRPMoveUtil.apply(sol, buffer, buffer.poll())
+		sol.commitRouteChanges()
+		def committed = routesOf(sol)
+		sol.undoRouteChanges()
+
+		then:
+		routesOf(sol) == committed
+	}
+
+	/**
+	 * All moves of segments with up to two nodes and all swaps of single nodes
+	 */
+	private static List<float[]> stepsOf(Solution sol) {
+		def routes = sol.getRoutes()
+		def steps = []
+		for (int a = 0; a < routes.length; a++) {
+			for (int b = 0; b < routes.length; b++) {
+				for (int i = 1; i < routes[a].length - 1; i++) {
+					for (int j = 1; j < routes[b].length; j++) {
+						if (!(a == b && (j == i || j == i + 1))) {
+							steps.add([1, a, b, i, j, 0, 0, 0] as float[])
+							if (i < routes[a].length - 2 && !(a == b && j >= i && j <= i + 2)) {
+								steps.add([1, a, b, i, j, 1, 0, 0] as float[])
+								steps.add([1, a, b, i, j, 1, 1, 0] as float[])
+							}
+						}
+						if (j < routes[b].length - 1 && !(a == b && Math.abs(i - j) <= 1)) {
+							for (int invertType = 0; invertType < 4; invertType++)
+								steps.add([1, a, b, i, j, 0, 0, invertType, 0] as float[])
+							if (i < routes[a].length - 2 && !(a == b && (j >= i - 1 && j <= i + 2)))
+								steps.add([1, a, b, i, j, 1, 0, 3, 0] as float[])
+						}
+					}
+				}
+			}
+		}
+
+		return steps
+	}
+
+	private static List<List<String>> routesOf(Solution sol) {
+		return sol.getRoutes().collect { route -> route.collect { it.externID } }
+	}
+}
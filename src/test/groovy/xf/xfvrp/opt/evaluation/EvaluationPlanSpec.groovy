@@ -0,0 +1,53 @@
+package xf.xfvrp.opt.evaluation
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import util.instances.TestXFVRPModel
+import xf.xfvrp.base.SiteType
+
+class EvaluationPlanSpec extends Specification {
+
+	def openTimeWindow = [[0, Integer.MAX_VALUE]] as float[][]
+
+	def "Plain model has no checks"() {
+		def v = new TestVehicle(name: "V1", maxRouteDuration: Float.MAX_VALUE, maxStopCount: Integer.MAX_VALUE,
+				maxWaitingTime: Float.MAX_VALUE, maxDrivingTimePerShift: Integer.MAX_VALUE).getVehicle()
+		def model = TestXFVRPModel.get([
+				new TestNode(globalIdx: 0, externID: "DEP", siteType: SiteType.DEPOT, timeWindow: openTimeWindow).getNode(),
+				new TestNode(globalIdx: 1, externID: "1", timeWindow: openTimeWindow).getNode()
+		], v)
+
+		when:
+		def plan = new EvaluationPlan(model)
+
+		then:
+		!plan.isStopCounted()
+		!plan.isTimeChecked()
+		!plan.isDriverShiftChecked()
+		!plan.isPresetChecked()
+	}
+
+	def "Restricted data is checked"() {
+		def v = new TestVehicle(name: "V1", fixCost: 10).getVehicle()
+		def model = TestXFVRPModel.get([
+				new TestNode(globalIdx: 0, externID: "DEP", siteType: SiteType.DEPOT).getNode(),
+				new TestNode(globalIdx: 1, externID: "1", presetBlockIdx: 1, presetBlockPos: 2).getNode(),
+				new TestNode(globalIdx: 2, externID: "2", presetBlockRank: 1, presetDepotGlobalIdx: 0).getNode(),
+				new TestNode(globalIdx: 3, externID: "3", presetBlackNodeIdx: 1).getNode()
+		], v)
+
+		when:
+		def plan = new EvaluationPlan(model)
+
+		then:
+		plan.isStopCounted()
+		plan.isTimeChecked()
+		plan.isDriverShiftChecked()
+		plan.isPresetBlockChecked()
+		plan.isPresetSequenceChecked()
+		plan.isPresetPositionChecked()
+		plan.isPresetDepotChecked()
+		plan.isPresetBlackListChecked()
+	}
+}
@@ -74,6 +74,45 @@ class EvaluationServicePresetsSpec extends Specification {
 		Math.abs(result.getCost() - 6.242) < 0.001
 	}
 	
+	def "Block Preset - Repeated checks with same service"() {
+		def v = new TestVehicle(name: "V1", capacity: [3, 3]).getVehicle()
+		def model = initScen(v, [2, 2, 3] as int[])
+		def n = model.getNodes()
+
+		def notOkay = Helper.set(model, [nd, n[1], n[3], nd, n[2], nd] as Node[])
+		def okay = Helper.set(model, [nd, n[1], n[2], n[3], nd] as Node[])
+
+		when:
+		def result1 = service.check(notOkay)
+		def result2 = service.check(okay)
+		def result3 = service.check(notOkay)
+
+		then:
+		result1.getPenalty() > 0
+		result2.getPenalty() == 0
+		Math.abs(result2.getCost() - 4) < 0.001
+		result3.getPenalty() == result1.getPenalty()
+		Math.abs(result3.getCost() - result1.getCost()) < 0.001
+	}
+
+	def "Block Preset - Checks with other service after release of workspaces"() {
+		def v = new TestVehicle(name: "V1", capacity: [3, 3]).getVehicle()
+		def model = initScen(v, [2, 2, 3] as int[])
+		def n = model.getNodes()
+
+		def notOkay = Helper.set(model, [nd, n[1], n[3], nd, n[2], nd] as Node[])
+
+		when:
+		def result1 = service.check(notOkay)
+		EvaluationService.releaseWorkspaces(model)
+		def result2 = new EvaluationService().check(notOkay)
+
+		then:
+		result1.getPenalty() > 0
+		result2.getPenalty() == result1.getPenalty()
+		Math.abs(result2.getCost() - result1.getCost()) < 0.001
+	}
+
 	def "Solution does not contain full block in route"() {
 		def v = new TestVehicle(name: "V1", capacity: [3, 3]).getVehicle()
 		def model = initScen(v, [2, 2, 3] as int[])
@@ -294,6 +333,25 @@ class EvaluationServicePresetsSpec extends Specification {
 		result.getPenalty() > 0
 		Math.abs(result.getCost() - 4) < 0.001
 	}
+
+	def "Blacklist Preset - Repeated checks with same service"() {
+		def v = new TestVehicle(idx: 1, name: "V1", capacity: [3, 3]).getVehicle()
+		def model = initScenWithBlackNodes(v, [-1, 3, 2] as int[])
+		def n = model.getNodes()
+
+		def solNotOkay = Helper.set(model, [nd, n[1], n[2], n[3], nd] as Node[])
+		def solOkay = Helper.set(model, [nd, n[1], n[2], nd, n[3], nd] as Node[])
+
+		when:
+		def result1 = service.check(solNotOkay)
+		def result2 = service.check(solOkay)
+		def result3 = service.check(solNotOkay)
+
+		then:
+		result1.getPenalty() > 0
+		result2.getPenalty() == 0
+		result3.getPenalty() > 0
+	}
 	
 	XFVRPModel initScen(Vehicle v, int[] presetBlocks) {
 		return initScenAbstract(v, presetBlocks, [0, 0, 0] as int[], [0, 0, 0] as int[], [0, 0, 0] as int[], [-1, -1, -1] as int[])
@@ -0,0 +1,55 @@
+package xf.xfvrp.opt.evaluation
+
+import spock.lang.Specification
+import util.instances.TestNode
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+
+class RouteInfoTableSpec extends Specification {
+
+	def nd = new TestNode(externID: "DEP", siteType: SiteType.DEPOT).getNode()
+	def nr = new TestNode(externID: "REP", siteType: SiteType.REPLENISH).getNode()
+
+	def setup() {
+		nd.setIdx(0)
+		nr.setIdx(3)
+	}
+
+	def "Open infos are set to their depot or replenish site"() {
+		def table = new RouteInfoTable(2)
+
+		when:
+		table.add(nd)
+		table.open(nd, 0)
+		table.getOpen(0).addDeliveryAmount(2)
+		table.finish(0)
+		table.add(nr)
+		table.open(nr, 0)
+		table.getOpen(0).addDeliveryAmount(3)
+		table.finish(0)
+		table.open(nd, 0)
+
+		then:
+		table.get(nd)[0].getDeliveryAmount() == 2
+		table.get(nd)[1] == null
+		table.get(nr)[0].getDeliveryAmount() == 3
+		table.get(nr)[0].getDepot() == nr
+	}
+
+	def "Cleared table contains no infos"() {
+		def table = new RouteInfoTable(1)
+		table.add(nd)
+		table.open(nd, 0)
+		table.finish(0)
+
+		when:
+		table.clear()
+		table.add(nr)
+
+		then:
+		!table.contains(nd)
+		table.get(nd) == null
+		table.get(nr)[0] == null
+		table.getOpen(0) == null
+	}
+}
@@ -0,0 +1,173 @@
+package xf.xfvrp.opt.evaluation
+
+import spock.lang.Specification
+import util.instances.Helper
+import util.instances.TestNode
+import util.instances.TestVehicle
+import util.instances.TestXFVRPModel
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.base.XFVRPModel
+import xf.xfvrp.opt.improve.routebased.MoveBuffer
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPSwapUtil
+
+class RouteSegmentSummariesSpec extends Specification {
+
+	def service = new EvaluationService()
+
+	def "Feasible route"() {
+		def model = model([[0, 10], [0, 10], [0, 10]] as float[][], 10)
+		def n = model.getNodes()
+		def sol = Helper.set(model, [n[0], n[1], n[2], n[3], n[0]] as Node[])
+		def concatenation = new RouteConcatenation(new RouteSegmentSummaries(model))
+
+		when:
+		concatenation.begin()
+		concatenation.addPrefix(sol, 0, 1)
+		concatenation.addNodes(sol, 0, 2, 2, false)
+		concatenation.addSuffix(sol, 0, 3)
+
+		then:
+		concatenation.isFeasible()
+	}
+
+	def "Inverted nodes violate time window"() {
+		def model = model([[0, 1], [0, 10], [0, 10]] as float[][], 10)
+		def n = model.getNodes()
+		def sol = Helper.set(model, [n[0], n[3], n[2], n[1], n[0]] as Node[])
+		def concatenation = new RouteConcatenation(new RouteSegmentSummaries(model))
+
+		when:
+		concatenation.begin()
+		concatenation.addPrefix(sol, 0, 0)
+		concatenation.addNodes(sol, 0, 1, 3, false)
+		concatenation.addSuffix(sol, 0, 4)
+		def isFeasible = concatenation.isFeasible()
+		concatenation.begin()
+		concatenation.addPrefix(sol, 0, 0)
+		concatenation.addNodes(sol, 0, 1, 3, true)
+		concatenation.addSuffix(sol, 0, 4)
+		def isInvertedFeasible = concatenation.isFeasible()
+
+		then:
+		!isFeasible
+		isInvertedFeasible
+	}
+
+	def "Capacity is violated"() {
+		def model = model([[0, 10], [0, 10], [0, 10]] as float[][], 2)
+		def n = model.getNodes()
+		def sol = Helper.set(model, [n[0], n[1], n[2], n[0], n[3], n[0]] as Node[])
+		def concatenation = new RouteConcatenation(new RouteSegmentSummaries(model))
+
+		when:
+		concatenation.begin()
+		concatenation.addPrefix(sol, 0, 2)
+		concatenation.addNodes(sol, 1, 1, 1, false)
+		concatenation.addSuffix(sol, 0, 3)
+
+		then:
+		!concatenation.isFeasible()
+	}
+
+	def "Summaries are updated for replaced routes"() {
+		def model = model([[0, 10], [0, 10], [0, 10]] as float[][], 2)
+		def n = model.getNodes()
+		def sol = Helper.set(model, [n[0], n[1], n[0], n[2], n[3], n[0]] as Node[])
+		def summaries = new RouteSegmentSummaries(model)
+		summaries.update(sol)
+		def demandBefore = summaries.getSuffix(sol, 0, 0).getDelivery(0)
+		def nbrOfCustomersBefore = sol.getRoutes()[0].length - 2
+
+		when:
+		sol.setRoute(0, [n[0], n[1], n[2], n[0]] as Node[])
+		def demandAfter = summaries.getSuffix(sol, 0, 0).getDelivery(0)
+
+		then:
+		demandBefore == nbrOfCustomersBefore
+		demandAfter == 2
+	}
+
+	def "Not applicable for multiple time windows"() {
+		def depot = new TestNode(externID: "DEP", siteType: SiteType.DEPOT, demand: [0]).getNode()
+		def customer = new TestNode(externID: "C1", xlong: 1, timeWindow: [[0, 1], [2, 3]]).getNode()
+
+		when:
+		def model = TestXFVRPModel.get([depot, customer], new TestVehicle(name: "V1", capacity: [3]).getVehicle())
+
+		then:
+		!RouteSegmentSummaries.isApplicable(model)
+	}
+
+	def "Rejected moves and swaps are infeasible in evaluation"() {
+		def model = model([[0, 3], [2, 4], [0, 9], [1, 5], [6, 12], [0, 20]] as float[][], 4)
+		def n = model.getNodes()
+		def sol = Helper.set(model, [n[0], n[1], n[2], n[3], n[0], n[4], n[5], n[6], n[0]] as Node[])
+		service.check(sol)
+		def concatenation = new RouteConcatenation(new RouteSegmentSummaries(model))
+		def steps = stepsOf(sol)
+		int nbrOfRejected = 0
+
+		when:
+		def isSound = steps.every { float[] step ->
+			def buffer = new MoveBuffer()
+			buffer.add(step)
+			int slot = buffer.poll()
+			boolean isFeasible = (step.length == 9) ?
+					XFVRPSwapUtil.isFeasible(sol, buffer, slot, concatenation) :
+					XFVRPMoveUtil.isFeasible(sol, buffer, slot, concatenation)
+
+			def oldRoutes = (step.length == 9) ? XFVRPSwapUtil.change(sol, step) : XFVRPMoveUtil.change(sol, step)
+			def penalty = service.check(sol).getPenalty()
+			sol.setRoute((int) step[1], oldRoutes[0])
+			if (oldRoutes.length > 1)
+				sol.setRoute((int) step[2], oldRoutes[1])
+
+			if (!isFeasible)
+				nbrOfRejected++
+			return isFeasible || penalty > 0
+		}
+
+		then:
+		isSound
+		nbrOfRejected > 0
+	}
+
+	/**
+	 * All single node moves (with and without inversion of segments of two nodes) and single node swaps
+	 */
+	private static List<float[]> stepsOf(def sol) {
+		def routes = sol.getRoutes()
+		def steps = []
+		for (int a = 0; a < routes.length; a++) {
+			for (int b = 0; b < routes.length; b++) {
+				for (int i = 1; i < routes[a].length - 1; i++) {
+					for (int j = 1; j < routes[b].length; j++) {
+						if (a == b && (j == i || j == i + 1))
+							continue
+						steps.add([1, a, b, i, j, 0, 0, 0] as float[])
+						if (i < routes[a].length - 2 && !(a == b && j >= i && j <= i + 2))
+							steps.add([1, a, b, i, j, 1, 1, 0] as float[])
+						if (j < routes[b].length - 1 && !(a == b && Math.abs(i - j) <= 1))
+							steps.add([1, a, b, i, j, 0, 0, 0, 0] as float[])
+					}
+				}
+			}
+		}
+
+		return steps
+	}
+
+	/**
+	 * Customers on a line with distance 1 between neighbours and a demand of 1
+	 */
+	private static XFVRPModel model(float[][] timeWindows, float capacity) {
+		def depot = new TestNode(externID: "DEP", siteType: SiteType.DEPOT, demand: [0], timeWindow: [[0, 99]]).getNode()
+		def customers = (0..<timeWindows.length).collect {
+			new TestNode(externID: "C" + (it + 1), globalIdx: it + 1, xlong: it + 1, timeWindow: [timeWindows[it]]).getNode()
+		}
+
+		return TestXFVRPModel.get([depot] + customers, new TestVehicle(name: "V1", capacity: [capacity]).getVehicle())
+	}
+}
@@ -0,0 +1,82 @@
+package xf.xfvrp.opt.improve.intraroute
+
+import spock.lang.Specification
+import util.instances.Helper
+import util.instances.TestLineScenario
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.XFVRPModel
+import xf.xfvrp.opt.evaluation.EvaluationService
+
+class XFVRPIntraRouteOptSpec extends Specification {
+
+	def service = new EvaluationService()
+
+	// All nodes on one line
+	def scenario = new TestLineScenario(8, 0)
+	def depot = scenario.depot
+	def customers = scenario.customers
+
+	def "Zig-zag routes are sorted along the line"() {
+		def model = model()
+		def c = customers
+		def sol = Helper.set(model, [depot, c[2], c[0], c[3], c[1], depot, c[7], c[4], c[6], c[5], depot] as Node[])
+		def opt = new XFVRPIntraRouteOpt()
+		opt.setModel(model)
+		def costBefore = service.check(sol).getCost()
+
+		when:
+		def result = opt.execute(sol)
+		def routes = result.getRoutes().findAll { it.length > 2 }.collect { route -> route.collect { it.externID } }
+
+		then:
+		result.getQuality().getCost() < costBefore
+		routes.contains(["DEP", "C1", "C2", "C3", "C4", "DEP"]) || routes.contains(["DEP", "C4", "C3", "C2", "C1", "DEP"])
+		routes.contains(["DEP", "C5", "C6", "C7", "C8", "DEP"]) || routes.contains(["DEP", "C8", "C7", "C6", "C5", "DEP"])
+	}
+
+	def "No node changes its route"() {
+		def model = model()
+		def c = customers
+		def sol = Helper.set(model, [depot, c[0], c[7], c[1], c[6], depot, c[2], c[5], c[3], c[4], depot] as Node[])
+		def nodesBefore = sol.getRoutes().collect { route -> route.collect { it.externID } as Set }
+
+		when:
+		def result = new IntraRouteSearch(model).optimize(sol.getRoutes()[0])
+
+		then:
+		result.collect { it.externID } as Set == nodesBefore[0]
+		result[0] == depot
+		result[result.length - 1] == depot
+	}
+
+	def "Short routes are not changed"() {
+		def model = model()
+		def c = customers
+		def route = [depot, c[1], c[0], depot] as Node[]
+
+		when:
+		def result = new IntraRouteSearch(model).optimize(route)
+
+		then:
+		result.is(route)
+	}
+
+	def "Search is reused for several routes"() {
+		def model = model()
+		def c = customers
+		def sol = Helper.set(model, [depot, c[2], c[0], c[3], c[1], depot, c[7], c[4], c[6], c[5], depot] as Node[])
+		def search = new IntraRouteSearch(model, service)
+
+		when:
+		def result1 = search.optimize(sol.getRoutes()[0])
+		def result2 = search.optimize(sol.getRoutes()[1])
+
+		then:
+		result1.collect { it.externID } == new IntraRouteSearch(model).optimize(sol.getRoutes()[0]).collect { it.externID }
+		result2.collect { it.externID } == new IntraRouteSearch(model).optimize(sol.getRoutes()[1]).collect { it.externID }
+	}
+
+	private XFVRPModel model() {
+		return scenario.model()
+	}
+}
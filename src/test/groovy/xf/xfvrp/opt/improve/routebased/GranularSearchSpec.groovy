@@ -0,0 +1,68 @@
+package xf.xfvrp.opt.improve.routebased
+
+import spock.lang.Specification
+import util.instances.TestLineScenario
+import xf.xfvrp.base.XFVRPModel
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveSearchUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPSwapSearchUtil
+
+class GranularSearchSpec extends Specification {
+
+	def scenario = new TestLineScenario(8, 3)
+	def depot = scenario.depot
+	def customers = scenario.customers
+
+	def "Candidates are the nearest customers"() {
+		when:
+		def model = model(true, 2)
+		def index = model.getNeighborhoodIndex()
+
+		then:
+		index.getCandidates(depot.getIdx()).length == 0
+		index.getCandidates(customers[0].getIdx()) as List == [customers[2].getIdx(), customers[1].getIdx()]
+		index.getCandidates(customers[3].getIdx()) as List == [customers[1].getIdx(), customers[5].getIdx()]
+		model(false, 2).getNeighborhoodIndex() == null
+	}
+
+	def "Granular moves are a subset of all moves"() {
+		def full = search(model(false, 0), true)
+		def granular = search(model(true, 1), true)
+
+		expect:
+		granular.size() > 0
+		granular.size() < full.size()
+		full.containsAll(granular)
+	}
+
+	def "Granular swaps are a subset of all swaps"() {
+		def full = search(model(false, 0), false)
+		def granular = search(model(true, 1), false)
+
+		expect:
+		granular.size() > 0
+		granular.size() < full.size()
+		full.containsAll(granular)
+	}
+
+	private XFVRPModel model(boolean isGranular, int k) {
+		def parameter = new XFVRPParameter()
+		parameter.setGranularNeighborhood(isGranular)
+		parameter.setNbrOfNearestNeighbors(k)
+
+		return scenario.model(parameter)
+	}
+
+	private Set<List<Float>> search(XFVRPModel model, boolean isMove) {
+		// Zig-zag routes, so that many moves and swaps are improving
+		def sol = scenario.solution(model, [[0, 3, 4, 7], [1, 2, 5, 6]])
+
+		def steps = new PriorityQueue<float[]>((o1, o2) -> Float.compare(o2[0], o1[0]))
+		if (isMove)
+			XFVRPMoveSearchUtil.search(sol, steps, 2, true)
+		else
+			XFVRPSwapSearchUtil.search(sol, steps, 2, false, true)
+
+		return steps.collect { it.toList() } as Set
+	}
+}
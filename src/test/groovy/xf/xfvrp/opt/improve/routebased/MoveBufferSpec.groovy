@@ -0,0 +1,161 @@
+package xf.xfvrp.opt.improve.routebased
+
+import spock.lang.Specification
+import xf.xfvrp.base.exception.XFVRPException
+
+class MoveBufferSpec extends Specification {
+
+	def "Poll order is equal to priority queue"() {
+		def values = [3, 1, 4, 1, 5, 9, 2, 6, 5, 3, 5, 8, 9, 7, 9, 3, 2, 3, 8, 4] as float[]
+		def buffer = new MoveBuffer()
+		def queue = new PriorityQueue<float[]>((o1, o2) -> Float.compare(o2[0], o1[0]))
+
+		when:
+		values.eachWithIndex { float v, int i ->
+			buffer.add(v, i, 0, 0, 0, 0, 0, 0)
+			queue.add([v, i, 0, 0, 0, 0, 0, 0] as float[])
+		}
+		def polled = []
+		while (!buffer.isEmpty())
+			polled.add(buffer.toArray(buffer.poll()).toList())
+		def expected = []
+		while (!queue.isEmpty())
+			expected.add(queue.poll().toList())
+
+		then:
+		polled == expected
+		buffer.size() == values.length
+	}
+
+	def "Bounded buffer keeps the best steps"() {
+		def buffer = new MoveBuffer(3)
+
+		when:
+		[5, 1, 7, 3, 9, 2].eachWithIndex { int v, int i -> buffer.add(v, i, 0, 0, 0, 0, 0, 0) }
+		def polled = []
+		while (!buffer.isEmpty())
+			polled.add(buffer.getValue(buffer.poll()))
+
+		then:
+		polled == [9f, 7f, 5f]
+		buffer.isTruncated()
+	}
+
+	def "Bounded buffer is not truncated, if all steps fit"() {
+		def buffer = new MoveBuffer(3)
+
+		when:
+		buffer.add(1, 0, 0, 0, 0, 0, 0, 0)
+		buffer.add(2, 0, 0, 0, 0, 0, 0, 0)
+
+		then:
+		!buffer.isTruncated()
+		buffer.size() == 2
+	}
+
+	def "Descriptors are kept"() {
+		def buffer = new MoveBuffer()
+		def move = [2.5, 1, 2, 3, 4, 2, 1, -1] as float[]
+		def swap = [1.5, 1, 2, 3, 4, 2, 1, 3, -1] as float[]
+
+		when:
+		buffer.add(move)
+		buffer.add(swap)
+		def first = buffer.poll()
+		def second = buffer.poll()
+
+		then:
+		buffer.toArray(first) == move
+		buffer.toArray(second) == swap
+		buffer.getLength(second) == 9
+		buffer.getParameter(second, 7) == 3
+		buffer.isEmpty()
+	}
+
+	def "Copied steps keep their insertion order"() {
+		def buffer = new MoveBuffer()
+		buffer.add(1, 1, 0, 0, 0, 0, 0, 0)
+		buffer.add(2, 2, 0, 0, 0, 0, 0, 0, 0)
+		def queue = new ArrayDeque<float[]>()
+
+		when:
+		def copy = new MoveBuffer()
+		copy.addAll(buffer)
+		copy.addTo(queue)
+
+		then:
+		queue.collect { it.length } == [8, 9]
+		queue.collect { it[1] } == [1f, 2f]
+	}
+
+	def "Clear removes all steps"() {
+		def buffer = new MoveBuffer()
+		buffer.add(1, 0, 0, 0, 0, 0, 0, 0)
+		buffer.poll()
+		buffer.add(2, 0, 0, 0, 0, 0, 0, 0)
+
+		when:
+		buffer.clear()
+
+		then:
+		buffer.isEmpty()
+		buffer.size() == 0
+	}
+
+	def "Search limit is reached"() {
+		def buffer = new MoveBuffer(1)
+		buffer.setSearchLimit(2)
+
+		when:
+		buffer.add(1, 0, 0, 0, 0, 0, 0, 0)
+		def isReachedAfterOne = buffer.isSearchLimitReached()
+		buffer.add(2, 0, 0, 0, 0, 0, 0, 0)
+
+		then:
+		!isReachedAfterOne
+		buffer.isSearchLimitReached()
+		buffer.size() == 1
+	}
+
+	def "Continued search skips searched routes"() {
+		def buffer = new MoveBuffer()
+		buffer.setSearchLimit(1)
+		buffer.nextRoute()
+		buffer.nextRoute()
+		buffer.add(1, 0, 0, 0, 0, 0, 0, 0)
+		buffer.markStopped()
+
+		when:
+		buffer.continueSearch()
+
+		then:
+		buffer.isEmpty()
+		!buffer.isStopped()
+		!buffer.isSearchLimitReached()
+		!buffer.nextRoute()
+		!buffer.nextRoute()
+		buffer.nextRoute()
+	}
+
+	def "Clear resets the continued search, but not the first route"() {
+		def buffer = new MoveBuffer()
+		buffer.setFirstRoute(3)
+		buffer.nextRoute()
+		buffer.continueSearch()
+
+		when:
+		buffer.clear()
+
+		then:
+		buffer.nextRoute()
+		buffer.getFirstRoute() == 3
+	}
+
+	def "Invalid descriptor"() {
+		when:
+		new MoveBuffer().add([1, 2, 3] as float[])
+
+		then:
+		thrown XFVRPException
+	}
+}
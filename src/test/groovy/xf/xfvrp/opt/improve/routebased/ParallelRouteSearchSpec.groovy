@@ -0,0 +1,146 @@
+package xf.xfvrp.opt.improve.routebased
+
+import spock.lang.Specification
+import util.instances.TestLineScenario
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.opt.Solution
+import xf.xfvrp.opt.improve.routebased.move.XFVRPBorderMoveSearchUtil
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveSearchUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPBorderSwapSearchUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPSwapSearchUtil
+
+class ParallelRouteSearchSpec extends Specification {
+
+	def scenario = new TestLineScenario(12, 3)
+
+	def "Sequential search for all routes in one range"() {
+		def sol = solution(false)
+		def ranges = []
+
+		when:
+		ParallelRouteSearch.search(sol, new MoveBuffer(), { from, to, steps -> ranges.add([from, to]) } as ParallelRouteSearch.RouteRangeSearch)
+
+		then:
+		ranges == [[0, sol.getRoutes().length]]
+	}
+
+	def "Parallel search covers all routes"() {
+		def sol = solution(true)
+		def routes = Collections.synchronizedList([])
+
+		when:
+		ParallelRouteSearch.search(sol, new MoveBuffer(), { from, to, steps -> (from..<to).each { routes.add(it) } } as ParallelRouteSearch.RouteRangeSearch)
+
+		then:
+		routes.sort() == (0..<sol.getRoutes().length).toList()
+	}
+
+	def "Search with limit stops after the route, where the limit is reached"() {
+		def sol = solution(true)
+		def buffer = new MoveBuffer()
+		buffer.setSearchLimit(2)
+		def routes = []
+		def search = { from, to, steps ->
+			routes.add(from)
+			steps.add(1, from, 0, 0, 0, 0, 0, 0)
+		} as ParallelRouteSearch.RouteRangeSearch
+
+		when:
+		ParallelRouteSearch.search(sol, buffer, search)
+		def routesOfFirstSearch = new ArrayList(routes)
+		buffer.continueSearch()
+		routes.clear()
+		ParallelRouteSearch.search(sol, buffer, search)
+
+		then:
+		routesOfFirstSearch == [0, 1]
+		routes == [2, 3]
+		buffer.isStopped() == (sol.getRoutes().length > 4)
+	}
+
+	def "Search with limit starts at the first route"() {
+		def sol = solution(false)
+		def buffer = new MoveBuffer()
+		buffer.setSearchLimit(1)
+		buffer.setFirstRoute(sol.getRoutes().length - 1)
+		def routes = []
+
+		when:
+		ParallelRouteSearch.search(sol, buffer, { from, to, steps ->
+			routes.add(from)
+			steps.add(1, from, 0, 0, 0, 0, 0, 0)
+		} as ParallelRouteSearch.RouteRangeSearch)
+
+		then:
+		routes == [sol.getRoutes().length - 1]
+		buffer.isStopped()
+	}
+
+	def "Parallel move search is equal to sequential search"() {
+		def seq = new MoveBuffer()
+		def par = new MoveBuffer()
+
+		when:
+		XFVRPMoveSearchUtil.search(solution(false), seq, null, 3, true)
+		XFVRPMoveSearchUtil.search(solution(true), par, null, 3, true)
+
+		then:
+		seq.size() > 0
+		poll(par) == poll(seq)
+	}
+
+	def "Parallel swap search is equal to sequential search"() {
+		def seq = new MoveBuffer()
+		def par = new MoveBuffer()
+
+		when:
+		XFVRPSwapSearchUtil.search(solution(false), seq, null, 3, false, true)
+		XFVRPSwapSearchUtil.search(solution(true), par, null, 3, false, true)
+
+		then:
+		seq.size() > 0
+		poll(par) == poll(seq)
+	}
+
+	def "Parallel border search is equal to sequential search"() {
+		def seq = new MoveBuffer()
+		def par = new MoveBuffer()
+
+		when:
+		XFVRPBorderMoveSearchUtil.search(solution(false), seq, null, true)
+		XFVRPBorderSwapSearchUtil.search(solution(false), seq, null, true)
+		XFVRPBorderMoveSearchUtil.search(solution(true), par, null, true)
+		XFVRPBorderSwapSearchUtil.search(solution(true), par, null, true)
+
+		then:
+		seq.size() > 0
+		poll(par) == poll(seq)
+	}
+
+	def "Parallel cached search is equal to sequential search"() {
+		def seq = new MoveBuffer()
+		def par = new MoveBuffer()
+
+		when:
+		XFVRPMoveSearchUtil.search(solution(false), seq, new RoutePairCache(), 2, true)
+		XFVRPMoveSearchUtil.search(solution(true), par, new RoutePairCache(), 2, true)
+
+		then:
+		seq.size() > 0
+		poll(par) == poll(seq)
+	}
+
+	private Solution solution(boolean isParallel) {
+		def model = scenario.model(new XFVRPParameter(parallelNeighborhoodSearch: isParallel))
+
+		return scenario.solution(model, [[0, 3, 4], [1, 2, 7], [5, 6, 9], [8, 11, 10]])
+	}
+
+	private static List<List<Float>> poll(MoveBuffer steps) {
+		def list = []
+		while (!steps.isEmpty())
+			list.add(steps.toArray(steps.poll()).toList())
+
+		return list
+	}
+}
@@ -0,0 +1,107 @@
+package xf.xfvrp.opt.improve.routebased
+
+import spock.lang.Specification
+import util.instances.TestLineScenario
+import xf.xfvrp.opt.Solution
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveSearchUtil
+import xf.xfvrp.opt.improve.routebased.move.XFVRPMoveUtil
+import xf.xfvrp.opt.improve.routebased.swap.XFVRPSwapSearchUtil
+
+class RoutePairCacheSpec extends Specification {
+
+	def scenario = new TestLineScenario(8, 3)
+
+	def "Only route pairs with changed routes are invalid"() {
+		def sol = solution()
+		def cache = new RoutePairCache()
+
+		when:
+		cache.update(sol)
+		def isChangedAtStart = cache.isChanged(0, 1)
+		cache.addTo(new MoveBuffer())
+		cache.update(sol)
+		def isChangedAfterSearch = cache.isChanged(0, 1)
+		sol.setRoute(1, Arrays.copyOf(sol.getRoutes()[1], sol.getRoutes()[1].length))
+		cache.update(sol)
+
+		then:
+		isChangedAtStart
+		!isChangedAfterSearch
+		cache.isChanged(0, 1)
+		cache.isChanged(1, 1)
+		!cache.isChanged(0, 0)
+	}
+
+	def "Marked routes are invalid"() {
+		def sol = solution()
+		def cache = new RoutePairCache()
+		cache.update(sol)
+		cache.addTo(new MoveBuffer())
+
+		when:
+		cache.markChanged(0)
+		cache.update(sol)
+
+		then:
+		cache.isChanged(0, 1)
+		!cache.isChanged(1, 1)
+	}
+
+	def "Cached move search is equal to full search after a change"() {
+		def sol = solution()
+		def cache = new RoutePairCache()
+		def steps = new MoveBuffer()
+		XFVRPMoveSearchUtil.search(sol, steps, cache, 2, true)
+
+		when:
+		XFVRPMoveUtil.change(sol, steps, steps.poll())
+		def cached = new MoveBuffer()
+		XFVRPMoveSearchUtil.search(sol, cached, cache, 2, true)
+		def full = queue()
+		XFVRPMoveSearchUtil.search(sol, full, 2, true)
+
+		then:
+		full.size() > 0
+		poll(cached) == poll(full)
+	}
+
+	def "Cached swap search is equal to full search without a change"() {
+		def sol = solution()
+		def cache = new RoutePairCache()
+		XFVRPSwapSearchUtil.search(sol, new MoveBuffer(), cache, 2, false, true)
+
+		when:
+		def cached = new MoveBuffer()
+		XFVRPSwapSearchUtil.search(sol, cached, cache, 2, false, true)
+		def full = queue()
+		XFVRPSwapSearchUtil.search(sol, full, 2, false, true)
+
+		then:
+		full.size() > 0
+		poll(cached) == poll(full)
+	}
+
+	private Solution solution() {
+		return scenario.solution(scenario.model(), [[0, 3, 4, 7], [1, 2, 5, 6]])
+	}
+
+	private static PriorityQueue<float[]> queue() {
+		return new PriorityQueue<float[]>((o1, o2) -> Float.compare(o2[0], o1[0]))
+	}
+
+	private static List<List<Float>> poll(PriorityQueue<float[]> steps) {
+		def list = []
+		while (!steps.isEmpty())
+			list.add(steps.poll().toList())
+
+		return list
+	}
+
+	private static List<List<Float>> poll(MoveBuffer steps) {
+		def list = []
+		while (!steps.isEmpty())
+			list.add(steps.toArray(steps.poll()).toList())
+
+		return list
+	}
+}
@@ -0,0 +1,102 @@
+package xf.xfvrp.opt.improve.routebased.move
+
+import spock.lang.Specification
+import util.instances.TestNode
+import util.instances.TestVehicle
+import util.instances.TestXFVRPModel
+import xf.xfvrp.base.Node
+import xf.xfvrp.base.SiteType
+import xf.xfvrp.base.XFVRPModel
+import xf.xfvrp.base.XFVRPParameter
+import xf.xfvrp.base.compartment.CompartmentType
+import xf.xfvrp.base.metric.InternalMetric
+import xf.xfvrp.base.metric.internal.InternalOptMetric
+
+class MoveDeltaRowsSpec extends Specification {
+
+	def nodes = [
+			new TestNode(externID: "DEP", siteType: SiteType.DEPOT).getNode(),
+			new TestNode(externID: "1", siteType: SiteType.CUSTOMER).getNode(),
+			new TestNode(externID: "2", siteType: SiteType.CUSTOMER).getNode(),
+			new TestNode(externID: "3", siteType: SiteType.CUSTOMER).getNode(),
+			new TestNode(externID: "4", siteType: SiteType.CUSTOMER).getNode(),
+			new TestNode(externID: "5", siteType: SiteType.CUSTOMER).getNode(),
+			new TestNode(externID: "6", siteType: SiteType.CUSTOMER).getNode()
+	] as Node[]
+
+	def setup() {
+		nodes.eachWithIndex { Node n, int i -> n.setIdx(i) }
+	}
+
+	def "Rows are equal to the calculation of single positions"() {
+		def model = model(metric(symmetric), isWrapped)
+		def srcRoute = [nodes[0], nodes[1], nodes[2], nodes[3], nodes[0]] as Node[]
+		def dstRoute = [nodes[0], nodes[4], nodes[5], nodes[6], nodes[0]] as Node[]
+		def rows = new MoveDeltaRows(model)
+
+		when:
+		rows.setDestination(dstRoute)
+		def isEqual = true
+		for (int srcPos = 1; srcPos < srcRoute.length - 1; srcPos++) {
+			rows.compute(srcRoute, srcPos, 3, true)
+			for (int segmentLength = 0; srcPos + segmentLength < srcRoute.length - 1; segmentLength++) {
+				for (int dstPos = 1; dstPos < dstRoute.length; dstPos++) {
+					isEqual &= Math.abs(rows.getValue(segmentLength, dstPos) - saving(model, srcRoute, dstRoute, srcPos, dstPos, segmentLength, false)) < 0.0001f
+					if (segmentLength > 0)
+						isEqual &= Math.abs(rows.getInvertedValue(segmentLength, dstPos) - saving(model, srcRoute, dstRoute, srcPos, dstPos, segmentLength, true)) < 0.0001f
+				}
+			}
+		}
+
+		then:
+		isEqual
+
+		where:
+		symmetric | isWrapped
+		false     | false
+		true      | false
+		false     | true
+	}
+
+	def "Rows grow with longer destination routes"() {
+		def model = model(metric(false), false)
+		def srcRoute = [nodes[0], nodes[1], nodes[2], nodes[0]] as Node[]
+		def shortRoute = [nodes[0], nodes[3], nodes[0]] as Node[]
+		def longRoute = [nodes[0], nodes[3], nodes[4], nodes[5], nodes[6], nodes[0]] as Node[]
+		def rows = new MoveDeltaRows(model)
+
+		when:
+		rows.setDestination(shortRoute)
+		rows.compute(srcRoute, 1, 2, false)
+		rows.setDestination(longRoute)
+		rows.compute(srcRoute, 1, 2, false)
+
+		then:
+		Math.abs(rows.getValue(1, 5) - saving(model, srcRoute, longRoute, 1, 5, 1, false)) < 0.0001f
+	}
+
+	private static float saving(XFVRPModel model, Node[] srcRoute, Node[] dstRoute, int srcPos, int dstPos, int segmentLength, boolean isInverted) {
+		def first = isInverted ? srcRoute[srcPos + segmentLength] : srcRoute[srcPos]
+		def last = isInverted ? srcRoute[srcPos] : srcRoute[srcPos + segmentLength]
+		float old = model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos]) +
+				model.getDistanceForOptimization(srcRoute[srcPos + segmentLength], srcRoute[srcPos + segmentLength + 1]) +
+				model.getDistanceForOptimization(dstRoute[dstPos - 1], dstRoute[dstPos])
+		return old - (model.getDistanceForOptimization(srcRoute[srcPos - 1], srcRoute[srcPos + segmentLength + 1]) +
+				model.getDistanceForOptimization(dstRoute[dstPos - 1], first) +
+				model.getDistanceForOptimization(last, dstRoute[dstPos]))
+	}
+
+	private InternalOptMetric metric(boolean symmetric) {
+		def metric = new InternalOptMetric(nodes.length, symmetric)
+		for (int i = 0; i < nodes.length; i++)
+			for (int j = (symmetric ? i : 0); j < nodes.length; j++)
+				metric.setDistance(i, j, ((i == j) ? 0 : (i * 7 + j * 3) % 11 + 0.1f * i) as float)
+		return metric
+	}
+
+	private XFVRPModel model(InternalOptMetric metric, boolean isWrapped) {
+		// A wrapped metric is read node by node
+		InternalMetric optMetric = isWrapped ? ([getDistance: { Node a, Node b -> metric.getDistance(a, b) }] as InternalMetric) : metric
+		return TestXFVRPModel.get(nodes, [] as CompartmentType[], metric, optMetric, new TestVehicle(name: "V1").getVehicle(), new XFVRPParameter())
+	}
+}